@@ -4,6 +4,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import org.joget.hedera.lib.plugindefaultproperties.*;
 import org.joget.hedera.lib.hashvariable.*;
+import org.joget.hedera.service.AccountUtil;
+import org.joget.hedera.service.FileHashService;
+import org.joget.hedera.service.HederaClientRegistry;
+import org.joget.hedera.service.MerkleAnchorService;
+import org.joget.hedera.service.MirrorHttpTransport;
+import org.joget.hedera.service.MirrorRestService;
+import org.joget.hedera.service.TokenAssociationManager;
+import org.joget.hedera.service.TopicSubscriptionService;
+import org.joget.hedera.service.TransactionCompletionService;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
@@ -39,11 +48,25 @@ public class Activator implements BundleActivator {
         registrationList.add(context.registerService(HederaTransactionHashVariable.class.getName(), new HederaTransactionHashVariable(), null));
         registrationList.add(context.registerService(HederaTokenHashVariable.class.getName(), new HederaTokenHashVariable(), null));
         registrationList.add(context.registerService(HederaScheduleHashVariable.class.getName(), new HederaScheduleHashVariable(), null));
+        
+        //Long-running services
+        TopicSubscriptionService.start();
+        TransactionCompletionService.start();
     }
 
     public void stop(BundleContext context) {
         for (ServiceRegistration registration : registrationList) {
             registration.unregister();
         }
+        
+        TopicSubscriptionService.shutdown();
+        MerkleAnchorService.shutdown();
+        TransactionCompletionService.shutdown();
+        HederaClientRegistry.shutdown();
+        MirrorRestService.shutdown();
+        MirrorHttpTransport.shutdown();
+        AccountUtil.clearKeyCache();
+        FileHashService.shutdown();
+        TokenAssociationManager.clear();
     }
 }
@@ -62,8 +62,7 @@ public class HederaGenerateAccountTool extends HederaProcessTool {
                     FormRowSet accountRowSet = getFormRecord(formDefIdGetData, accountId);
                     if (!accountRowSet.isEmpty()) {
                         FormRow accountData = accountRowSet.get(0);
-                        Mnemonic signerMnemonic = Mnemonic.fromString(PluginUtil.decrypt(accountData.getProperty(getMnemonicField)));
-                        PublicKey signerPublicKey = AccountUtil.derivePublicKeyFromMnemonic(signerMnemonic);
+                        PublicKey signerPublicKey = AccountUtil.deriveKeyPairFromEncryptedMnemonic(accountData.getProperty(getMnemonicField)).publicKey();
 
                         keyList.add(signerPublicKey);
                     }
@@ -3,7 +3,6 @@ package org.joget.hedera.lib;
 import com.hedera.hashgraph.sdk.AccountId;
 import com.hedera.hashgraph.sdk.BadMnemonicException;
 import com.hedera.hashgraph.sdk.Client;
-import com.hedera.hashgraph.sdk.Mnemonic;
 import com.hedera.hashgraph.sdk.PrecheckStatusException;
 import com.hedera.hashgraph.sdk.PrivateKey;
 import com.hedera.hashgraph.sdk.PublicKey;
@@ -15,20 +14,42 @@ import com.hedera.hashgraph.sdk.TokenInfoQuery;
 import com.hedera.hashgraph.sdk.TokenMintTransaction;
 import com.hedera.hashgraph.sdk.TokenSupplyType;
 import com.hedera.hashgraph.sdk.TokenType;
-import com.hedera.hashgraph.sdk.TransactionRecord;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeoutException;
 import org.joget.apps.app.service.AppUtil;
+import org.joget.apps.datalist.model.DataListCollection;
+import org.joget.apps.datalist.service.DataListService;
 import org.joget.apps.form.model.FormRow;
 import org.joget.apps.form.model.FormRowSet;
 import org.joget.commons.util.LogUtil;
 import org.joget.hedera.model.HederaProcessTool;
+import org.joget.hedera.model.TransactionResult;
 import org.joget.hedera.service.AccountUtil;
+import org.joget.hedera.service.AccountUtil.KeyPair;
 import org.joget.hedera.service.PluginUtil;
 import org.joget.hedera.service.TransactionUtil;
 import org.joget.workflow.util.WorkflowUtil;
 
 public class HederaMintTokenTool extends HederaProcessTool {
+    
+    //Maximum number of NFT metadata entries accepted in a single mint transaction
+    private static final int MAX_NFT_METADATA_PER_TX = 10;
+    private static final int DEFAULT_MAX_CONCURRENT_MINTS = 5;
+    
+    private static final String STATUS_SUCCESS = "SUCCESS";
+    private static final String STATUS_PARTIAL = "PARTIAL";
+    private static final String STATUS_FAILED = "FAILED";
+    private static final String STATUS_UNKNOWN = "UNKNOWN";
 
     @Override
     public String getName() {
@@ -50,7 +71,7 @@ public class HederaMintTokenTool extends HederaProcessTool {
     @Override
     public boolean isInputDataValid(Map props) {
         String formDefId = getPropertyString("formDefId");
-        final String primaryKey = appService.getOriginProcessId(wfAssignment.getProcessId());
+        final String primaryKey = getOriginProcessId();
         
         FormRowSet rowSet = getFormRecord(formDefId, null);
         
@@ -83,8 +104,9 @@ public class HederaMintTokenTool extends HederaProcessTool {
                     .setTokenId(TokenId.fromString(tokenId))
                     .execute(client);
 
-                final String accountMnemonic = PluginUtil.decrypt(WorkflowUtil.processVariable(getPropertyString("accountMnemonic"), "", wfAssignment));
-                final PublicKey minterPublicKey = AccountUtil.derivePublicKeyFromMnemonic(Mnemonic.fromString(accountMnemonic));
+                final PublicKey minterPublicKey = AccountUtil.deriveKeyPairFromEncryptedMnemonic(
+                        WorkflowUtil.processVariable(getPropertyString("accountMnemonic"), "", wfAssignment)
+                ).publicKey();
 
                 if (tokenInfo.supplyKey != null && !(tokenInfo.supplyKey.toString()).equals(minterPublicKey.toString())) {
                     LogUtil.warn(getClassName(), "Mint transaction aborted. Specified token ID of " + tokenId + " - supply key not authorized for minter account.");
@@ -122,33 +144,27 @@ public class HederaMintTokenTool extends HederaProcessTool {
             FormRow row = rowSet.get(0);
 
             final String minterAccountId = row.getProperty(getPropertyString("minterAccountId"));
-            final String accountMnemonic = PluginUtil.decrypt(WorkflowUtil.processVariable(getPropertyString("accountMnemonic"), "", wfAssignment));
+            final KeyPair minterKeyPair = AccountUtil.deriveKeyPairFromEncryptedMnemonic(WorkflowUtil.processVariable(getPropertyString("accountMnemonic"), "", wfAssignment));
             final boolean mintMore = "mintMore".equalsIgnoreCase(getPropertyString("tokenIdHandling"));
             final boolean mintTypeNft = "nft".equalsIgnoreCase(getPropertyString("mintType"));
 
             final AccountId minterAccount = AccountId.fromString(minterAccountId);
-            final PublicKey minterPublicKey = AccountUtil.derivePublicKeyFromMnemonic(Mnemonic.fromString(accountMnemonic));
-            final PrivateKey minterPrivateKey = AccountUtil.derivePrivateKeyFromMnemonic(Mnemonic.fromString(accountMnemonic));
+            final PublicKey minterPublicKey = minterKeyPair.publicKey();
+            final PrivateKey minterPrivateKey = minterKeyPair.privateKey();
 
-            TransactionRecord transactionRecord;
+            TransactionResult transactionResult;
 
             if (mintMore) { // value is "mintMore"
                 if (mintTypeNft) { 
-                    transactionRecord = mintMoreNft(row, null)
-                            .freezeWith(client)
-                            .sign(minterPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
-
                     String tokenId = row.getProperty(getPropertyString("tokenId"));
 
-                    storeNftDataToForm(row, tokenId, transactionRecord);
+                    transactionResult = mintNft(row, tokenId, minterPrivateKey, true);
                 } else {
-                    transactionRecord = mintMoreNativeToken(client, row, null)
-                            .freezeWith(client)
-                            .sign(minterPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(
+                            mintMoreNativeToken(client, row, null)
+                                    .freezeWith(client)
+                                    .sign(minterPrivateKey)
+                    );
                 }
             } else { // value is "createNew"
                 TokenCreateTransaction genericTokenCreateTx = createGenericToken(row, minterAccount, minterPublicKey, client.getOperatorPublicKey());
@@ -156,37 +172,36 @@ public class HederaMintTokenTool extends HederaProcessTool {
                 genericTokenCreateTx = setTokenMaxSupply(row, genericTokenCreateTx);
 
                 if (mintTypeNft) {
-                    TransactionRecord createTokenTxRecord = createAsNft(row, genericTokenCreateTx)
-                            .freezeWith(client)
-                            .sign(minterPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
-
-                    storeTokenDataToForm(row, createTokenTxRecord);
+                    TransactionResult createTokenTxResult = executeTransaction(
+                            createAsNft(row, genericTokenCreateTx)
+                                    .freezeWith(client)
+                                    .sign(minterPrivateKey)
+                    );
 
-                    String tokenId = createTokenTxRecord.receipt.tokenId.toString();
+                    storeTokenDataToForm(row, createTokenTxResult);
 
-                    transactionRecord = mintMoreNft(row, tokenId)
-                            .freezeWith(client)
-                            .sign(minterPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    String tokenId = createTokenTxResult.getReceipt().tokenId.toString();
 
-                    storeNftDataToForm(row, tokenId, transactionRecord);
+                    transactionResult = mintNft(row, tokenId, minterPrivateKey, false);
                 } else {
-                    transactionRecord = createAsNativeToken(row, genericTokenCreateTx)
-                            .freezeWith(client)
-                            .sign(minterPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = executeTransaction(
+                            createAsNativeToken(row, genericTokenCreateTx)
+                                    .freezeWith(client)
+                                    .sign(minterPrivateKey)
+                    );
 
-                    storeTokenDataToForm(row, transactionRecord);
+                    storeTokenDataToForm(row, transactionResult);
                 }
             }
+            
+            //Nothing left to mint from an earlier run
+            if (transactionResult == null) {
+                return null;
+            }
 
-            storeGenericTxDataToWorkflowVariable(transactionRecord);
+            storeGenericTxDataToWorkflowVariable(transactionResult);
 
-            return transactionRecord;
+            return transactionResult;
         } catch (PrecheckStatusException | BadMnemonicException | ReceiptStatusException e) {
             throw new RuntimeException(e.getClass().getName() + " : " + e.getMessage());
         }
@@ -369,11 +384,286 @@ public class HederaMintTokenTool extends HederaProcessTool {
                 .setDecimals(tokenDecimalsInt);
     }
     
-    private TokenMintTransaction mintMoreNft(FormRow row, String tokenId) {
-        if (tokenId == null || tokenId.isBlank()) {
-            tokenId = row.getProperty(getPropertyString("tokenId"));
+    private TransactionResult mintNft(FormRow row, String tokenId, PrivateKey minterPrivateKey, boolean resume) 
+            throws TimeoutException, PrecheckStatusException, ReceiptStatusException {
+        
+        final String mintSource = getPropertyString("nftMintSource");
+        if ("multiValue".equals(mintSource) || "formGrid".equals(mintSource) || "datalist".equals(mintSource)) {
+            return bulkMintNft(row, tokenId, minterPrivateKey, resume);
+        }
+        
+        final String ipfsCid = getRowIpfsCid(row);
+        if (ipfsCid == null || ipfsCid.isBlank()) {
+            throw new RuntimeException("No IPFS content ID found to mint for token " + tokenId + ".");
+        }
+        
+        TransactionResult transactionResult = executeTransaction(
+                mintMoreNft(tokenId, Collections.singletonList(ipfsCid))
+                        .freezeWith(client)
+                        .sign(minterPrivateKey)
+        );
+            
+        storeNftDataToForm(row, tokenId, transactionResult);
+            
+        return transactionResult;
+    }
+    
+    /*
+        Packs the CIDs into mint transactions of up to MAX_NFT_METADATA_PER_TX entries each, 
+        and keeps up to "maxConcurrentMints" of them awaiting consensus at any one time.
+        Once a batch fails, no further batches are submitted, but serials of batches already in flight are still stored.
+        
+        The mint status and serials of each source row are written back to the row as each of its batches completes. When minting more into an existing token, 
+        rows already minted are skipped, and partly minted rows only mint their CIDs without a serial, so a failed run can simply be re-run.
+        Rows are marked UNKNOWN before their batch is submitted, and stay so if the batch may have reached consensus without a receipt 
+        or the run is interrupted. Such rows are skipped until checked.
+    */
+    private TransactionResult bulkMintNft(FormRow row, String tokenId, PrivateKey minterPrivateKey, boolean resume) {
+        final List<MintRow> mintRows = getMintRows(row);
+        
+        List<PendingMint> pendingMints = new ArrayList<>();
+        for (MintRow mintRow : mintRows) {
+            if (resume && !mintRow.isResumable()) {
+                continue;
+            }
+            
+            for (int i = 0; i < mintRow.ipfsCids.size(); i++) {
+                if (!resume) {
+                    mintRow.serials[i] = "";
+                }
+                if (mintRow.serials[i].isEmpty()) {
+                    pendingMints.add(new PendingMint(mintRow, i));
+                }
+            }
+        }
+        
+        if (pendingMints.isEmpty()) {
+            if (mintRows.isEmpty()) {
+                throw new RuntimeException("No IPFS content ID found to mint for token " + tokenId + ".");
+            }
+            LogUtil.info(getClassName(), "No NFTs left to mint for token " + tokenId + ".");
+            return null;
+        }
+        
+        final int maxConcurrentMints = getMaxConcurrentMints();
+        final Deque<MintBatch> inFlight = new ArrayDeque<>();
+        
+        TransactionResult lastResult = null;
+        Throwable firstError = null;
+        int nextIndex = 0;
+        int mintedCount = 0;
+        
+        while ((nextIndex < pendingMints.size() && firstError == null) || !inFlight.isEmpty()) {
+            if (nextIndex < pendingMints.size() && firstError == null && inFlight.size() < maxConcurrentMints) {
+                final List<PendingMint> batch = pendingMints.subList(nextIndex, Math.min(nextIndex + MAX_NFT_METADATA_PER_TX, pendingMints.size()));
+                nextIndex += batch.size();
+                
+                List<String> batchCids = new ArrayList<>(batch.size());
+                for (PendingMint pendingMint : batch) {
+                    batchCids.add(pendingMint.getIpfsCid());
+                }
+                
+                final List<MintRow> batchRows = getBatchRows(batch);
+                boolean isMarked = false;
+                try {
+                    final TokenMintTransaction mintTransaction = mintMoreNft(tokenId, batchCids)
+                            .freezeWith(client)
+                            .sign(minterPrivateKey);
+                    
+                    //Stored before submitting, so that rows of an interrupted run are not minted again on resume
+                    for (MintRow mintRow : batchRows) {
+                        mintRow.attempted = true;
+                        mintRow.pendingBatches++;
+                    }
+                    isMarked = true;
+                    storeMintStatus(batchRows);
+                    
+                    inFlight.add(new MintBatch(batch, executeTransactionAsync(mintTransaction)));
+                } catch (RuntimeException ex) {
+                    firstError = ex;
+                    LogUtil.error(getClassName(), ex, "Unable to submit NFT mint batch for token " + tokenId);
+                    
+                    if (isMarked) {
+                        for (MintRow mintRow : batchRows) {
+                            mintRow.pendingBatches--;
+                        }
+                        storeMintStatus(batchRows);
+                    }
+                }
+                continue;
+            }
+            
+            final MintBatch mintBatch = inFlight.poll();
+            final List<MintRow> batchRows = getBatchRows(mintBatch.mints());
+            for (MintRow mintRow : batchRows) {
+                mintRow.pendingBatches--;
+            }
+            
+            try {
+                TransactionResult transactionResult = mintBatch.request().join();
+                storeNftDataToForm(row, tokenId, transactionResult);
+                
+                //Serials are assigned in the order of the metadata entries
+                final List<Long> serials = transactionResult.getReceipt().serials;
+                for (int i = 0; i < mintBatch.mints().size() && i < serials.size(); i++) {
+                    mintBatch.mints().get(i).setSerial(serials.get(i).toString());
+                }
+                
+                mintedCount += serials.size();
+                lastResult = transactionResult;
+            } catch (CompletionException ex) {
+                final Throwable cause = ex.getCause();
+                if (firstError == null) {
+                    firstError = cause;
+                }
+                
+                //Failed prechecks never reach consensus, and failed receipts did not mint. Anything else may have minted.
+                if (!(cause instanceof PrecheckStatusException) && !(cause instanceof ReceiptStatusException)) {
+                    for (PendingMint pendingMint : mintBatch.mints()) {
+                        pendingMint.mintRow().unconfirmed = true;
+                    }
+                }
+                LogUtil.error(getClassName(), cause, "NFT mint batch failed for token " + tokenId);
+            }
+            
+            storeMintStatus(batchRows);
+        }
+        
+        LogUtil.info(getClassName(), "Minted " + mintedCount + " of " + pendingMints.size() + " pending NFTs for token " + tokenId);
+        
+        if (firstError != null) {
+            throw new RuntimeException(firstError.getClass().getName() + " : " + firstError.getMessage());
+        }
+        
+        return lastResult;
+    }
+    
+    private List<MintRow> getMintRows(FormRow row) {
+        return switch (getPropertyString("nftMintSource")) {
+            case "multiValue" -> getMultiValueMintRows(row);
+            case "formGrid" -> getGridMintRows(row);
+            case "datalist" -> getDatalistMintRows();
+            default -> new ArrayList<>();
+        };
+    }
+    
+    private List<MintRow> getMultiValueMintRows(FormRow row) {
+        List<MintRow> mintRows = new ArrayList<>();
+        addMintRow(
+                mintRows, 
+                getRowIpfsCid(row), 
+                row.getProperty(getPropertyString("nftMintStatusField")), 
+                row.getProperty(getPropertyString("nftMintSerialsField")), 
+                row
+        );
+        
+        return mintRows;
+    }
+    
+    private List<MintRow> getGridMintRows(FormRow row) {
+        FormRowSet gridRows = getGridRows(getPropertyString("nftGridFormDefId"), getPropertyString("nftGridForeignKey"), row.getId());
+        if (gridRows == null) {
+            return new ArrayList<>();
+        }
+        
+        List<MintRow> mintRows = new ArrayList<>();
+        for (FormRow gridRow : gridRows) {
+            addMintRow(
+                    mintRows, 
+                    gridRow.getProperty(getPropertyString("nftGridCidField")), 
+                    gridRow.getProperty(getPropertyString("nftMintStatusField")), 
+                    gridRow.getProperty(getPropertyString("nftMintSerialsField")), 
+                    gridRow
+            );
+        }
+        
+        return mintRows;
+    }
+    
+    private List<MintRow> getDatalistMintRows() {
+        DataListCollection datalistRows = getDatalistRows(getPropertyString("nftDatalistId"));
+        if (datalistRows == null) {
+            LogUtil.warn(getClassName(), "Unable to read IPFS content IDs. Datalist '" + getPropertyString("nftDatalistId") + "' not found.");
+            return new ArrayList<>();
+        }
+        
+        List<MintRow> mintRows = new ArrayList<>();
+        for (Object datalistRow : datalistRows) {
+            //Mint status is written to the form behind the datalist, matched by record ID
+            FormRow statusRow = new FormRow();
+            statusRow.setId(getDatalistValue(datalistRow, "id"));
+            
+            addMintRow(
+                    mintRows, 
+                    getDatalistValue(datalistRow, getPropertyString("nftDatalistCidColumn")), 
+                    getDatalistValue(datalistRow, getPropertyString("nftMintStatusField")), 
+                    getDatalistValue(datalistRow, getPropertyString("nftMintSerialsField")), 
+                    statusRow
+            );
+        }
+        
+        return mintRows;
+    }
+    
+    private String getDatalistValue(Object datalistRow, String column) {
+        if (column.isEmpty()) {
+            return null;
+        }
+        
+        Object value = DataListService.evaluateColumnValueFromRow(datalistRow, column);
+        return value != null ? value.toString() : null;
+    }
+    
+    private void addMintRow(List<MintRow> mintRows, String ipfsCidValue, String status, String serialsValue, FormRow statusRow) {
+        final List<String> ipfsCids = splitIpfsCids(ipfsCidValue);
+        if (!ipfsCids.isEmpty()) {
+            mintRows.add(new MintRow(ipfsCids, status, serialsValue, statusRow));
+        }
+    }
+    
+    private List<MintRow> getBatchRows(List<PendingMint> batch) {
+        Set<MintRow> batchRows = new LinkedHashSet<>();
+        for (PendingMint pendingMint : batch) {
+            batchRows.add(pendingMint.mintRow());
+        }
+        
+        return new ArrayList<>(batchRows);
+    }
+    
+    private void storeMintStatus(List<MintRow> mintRows) {
+        final String statusField = getPropertyString("nftMintStatusField");
+        final String serialsField = getPropertyString("nftMintSerialsField");
+        final String statusFormDefId = switch (getPropertyString("nftMintSource")) {
+            case "formGrid" -> getPropertyString("nftGridFormDefId");
+            case "datalist" -> getPropertyString("nftDatalistFormDefId");
+            default -> getPropertyString("formDefId");
+        };
+        
+        if (statusFormDefId.isEmpty() || (statusField.isEmpty() && serialsField.isEmpty())) {
+            return;
+        }
+        
+        FormRowSet statusRows = new FormRowSet();
+        for (MintRow mintRow : mintRows) {
+            if (!mintRow.attempted || mintRow.statusRow.getId() == null) {
+                continue;
+            }
+            
+            if (!statusField.isEmpty()) {
+                mintRow.statusRow.setProperty(statusField, mintRow.getStatus());
+            }
+            if (!serialsField.isEmpty()) {
+                mintRow.statusRow.setProperty(serialsField, String.join(PluginUtil.MULTI_VALUE_DELIMITER, mintRow.serials));
+            }
+            statusRows.add(mintRow.statusRow);
         }
         
+        if (!statusRows.isEmpty()) {
+            storeFormRows(statusFormDefId, statusRows);
+        }
+    }
+    
+    private String getRowIpfsCid(FormRow row) {
         // Typically looks like --> Qmcv6hwtmdVumrNeb42R1KmCEWdYWGcqNgs17Y3hj6CkP4
         // IPFS should contain the JSON that then contains the file CID
         String ipfsCid = row.getProperty(getPropertyString("ipfsCid"));
@@ -383,12 +673,45 @@ public class HederaMintTokenTool extends HederaProcessTool {
             ipfsCid = row.getProperty(getPropertyString("ipfsCidMintMore"));
         }
         
+        return ipfsCid;
+    }
+    
+    //Multi-value fields are stored as semicolon separated values
+    private List<String> splitIpfsCids(String value) {
+        List<String> ipfsCids = new ArrayList<>();
+        if (value == null) {
+            return ipfsCids;
+        }
+        
+        for (String ipfsCid : value.split("[;,\\s]+")) {
+            if (!ipfsCid.isBlank()) {
+                ipfsCids.add(ipfsCid);
+            }
+        }
+        
+        return ipfsCids;
+    }
+    
+    private int getMaxConcurrentMints() {
+        try {
+            return Math.max(1, Integer.parseInt(getPropertyString("maxConcurrentMints")));
+        } catch (NumberFormatException e) {
+            return DEFAULT_MAX_CONCURRENT_MINTS;
+        }
+    }
+    
+    private TokenMintTransaction mintMoreNft(String tokenId, List<String> ipfsCids) {
 //        final String nftFileName = row.getProperty(getPropertyString("nftFileName"));
 //        final String nftFileType = getPropertyString("nftFileType"); // Check for other common supported mime types
         
-        return new TokenMintTransaction()
-                .setTokenId(TokenId.fromString(tokenId))
-                .addMetadata(ipfsCid.getBytes());
+        TokenMintTransaction tokenMintTx = new TokenMintTransaction()
+                .setTokenId(TokenId.fromString(tokenId));
+        
+        for (String ipfsCid : ipfsCids) {
+            tokenMintTx.addMetadata(ipfsCid.getBytes());
+        }
+        
+        return tokenMintTx;
     }
     
     private TokenMintTransaction mintMoreNativeToken(Client client, FormRow row, String tokenId) 
@@ -415,7 +738,7 @@ public class HederaMintTokenTool extends HederaProcessTool {
         } 
     }
     
-    private void storeTokenDataToForm(FormRow row, TransactionRecord transactionRecord) {
+    private void storeTokenDataToForm(FormRow row, TransactionResult transactionResult) {
         String formDefId = getPropertyString("formDefIdStoreTokenData");
         
         if (formDefId == null || formDefId.isEmpty()) {
@@ -439,7 +762,7 @@ public class HederaMintTokenTool extends HederaProcessTool {
         FormRow newRow = new FormRow();
 
         //Token ID set as Record ID
-        newRow.setId(transactionRecord.receipt.tokenId.toString());
+        newRow.setId(transactionResult.getReceipt().tokenId.toString());
         newRow = addRow(newRow, tokenTypeField, mintTypeNft ? "Non-fungible Token" : "Fungible Token");
         newRow = addRow(newRow, tokenNameField, tokenName);
         newRow = addRow(newRow, tokenSymbolField, tokenSymbol);
@@ -452,7 +775,7 @@ public class HederaMintTokenTool extends HederaProcessTool {
         }
     }
     
-    private void storeNftDataToForm(FormRow row, String tokenId, TransactionRecord transactionRecord) {
+    private void storeNftDataToForm(FormRow row, String tokenId, TransactionResult transactionResult) {
         String formDefId = getPropertyString("formDefIdStoreNftData");
         
         if (formDefId == null || formDefId.isEmpty()) {
@@ -469,14 +792,20 @@ public class HederaMintTokenTool extends HederaProcessTool {
         String minterAccountField = getPropertyString("nftMinterAccountField");
         String isNftOnTestnetField = getPropertyString("isNftOnTestnetField");
 
-        FormRow newRow = new FormRow();
+        FormRowSet rowSet = new FormRowSet();
+        
+        for (Long serial : transactionResult.getReceipt().serials) {
+            FormRow newRow = new FormRow();
 
-        newRow = addRow(newRow, nftSerialNumberField, transactionRecord.receipt.serials.get(0).toString());
-        newRow = addRow(newRow, nftAssociatedTokenIdField, tokenId);
-        newRow = addRow(newRow, minterAccountField, minterAccountId);
-        newRow = addRow(newRow, isNftOnTestnetField, String.valueOf(isTest));
+            newRow = addRow(newRow, nftSerialNumberField, serial.toString());
+            newRow = addRow(newRow, nftAssociatedTokenIdField, tokenId);
+            newRow = addRow(newRow, minterAccountField, minterAccountId);
+            newRow = addRow(newRow, isNftOnTestnetField, String.valueOf(isTest));
+            
+            rowSet.add(newRow);
+        }
         
-        FormRowSet storedData = storeFormRow(formDefId, newRow);
+        FormRowSet storedData = storeFormRows(formDefId, rowSet);
         if (storedData == null) {
             LogUtil.warn(getClassName(), "Unable to store NFT data to form. Encountered invalid form ID of '" + formDefId + "'.");
         }
@@ -489,4 +818,73 @@ public class HederaMintTokenTool extends HederaProcessTool {
         
         return row;
     }
+    
+    private static final class MintRow {
+        
+        private final List<String> ipfsCids;
+        private final String status;
+        private final String[] serials;
+        private final FormRow statusRow;
+        
+        private boolean attempted;
+        private boolean unconfirmed;
+        private int pendingBatches;
+        
+        //Serials are stored in the order of the row's CIDs, with an empty entry for each CID not minted yet
+        private MintRow(List<String> ipfsCids, String status, String serialsValue, FormRow statusRow) {
+            this.ipfsCids = ipfsCids;
+            this.status = status;
+            this.statusRow = statusRow;
+            this.serials = new String[ipfsCids.size()];
+            Arrays.fill(serials, "");
+            
+            if (serialsValue != null && !serialsValue.isEmpty()) {
+                final String[] storedSerials = serialsValue.split(PluginUtil.MULTI_VALUE_DELIMITER, -1);
+                if (storedSerials.length == serials.length) {
+                    System.arraycopy(storedSerials, 0, serials, 0, serials.length);
+                }
+            }
+        }
+        
+        private boolean isResumable() {
+            if (STATUS_SUCCESS.equals(status)) {
+                return false;
+            }
+            if (STATUS_UNKNOWN.equals(status)) {
+                LogUtil.warn(HederaMintTokenTool.class.getName(), "Skipping row " + statusRow.getId() + " with mint status UNKNOWN. Check its mint on the mirror node, then clear its status to mint it again.");
+                return false;
+            }
+            //Without serials of the last run, the CIDs already minted in a partly minted row cannot be told apart
+            if (STATUS_PARTIAL.equals(status) && Arrays.stream(serials).allMatch(String::isEmpty)) {
+                LogUtil.warn(HederaMintTokenTool.class.getName(), "Skipping partly minted row " + statusRow.getId() + ". Its minted serials are unknown.");
+                return false;
+            }
+            return true;
+        }
+        
+        private String getStatus() {
+            if (unconfirmed || pendingBatches > 0) {
+                return STATUS_UNKNOWN;
+            }
+            
+            final long mintedCount = Arrays.stream(serials).filter(serial -> !serial.isEmpty()).count();
+            if (mintedCount == serials.length) {
+                return STATUS_SUCCESS;
+            }
+            return mintedCount > 0 ? STATUS_PARTIAL : STATUS_FAILED;
+        }
+    }
+    
+    private record PendingMint(MintRow mintRow, int index) {
+        
+        private String getIpfsCid() {
+            return mintRow.ipfsCids.get(index);
+        }
+        
+        private void setSerial(String serial) {
+            mintRow.serials[index] = serial;
+        }
+    }
+    
+    private record MintBatch(List<PendingMint> mints, CompletableFuture<TransactionResult> request) {}
 }
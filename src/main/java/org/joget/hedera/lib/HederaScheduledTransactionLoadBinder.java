@@ -13,6 +13,7 @@ import org.joget.apps.form.model.FormLoadElementBinder;
 import org.joget.apps.form.model.FormRow;
 import org.joget.apps.form.model.FormRowSet;
 import org.joget.hedera.model.HederaFormBinder;
+import org.joget.hedera.service.BackendUtil;
 import org.joget.hedera.service.PluginUtil;
 import org.joget.hedera.service.TransactionUtil;
 import org.joget.workflow.util.WorkflowUtil;
@@ -68,6 +69,8 @@ public class HederaScheduledTransactionLoadBinder extends HederaFormBinder imple
             String expirationTimeField = getPropertyString("expirationTimeField");
             String executedAtField = getPropertyString("executedAtField");
             String deletedAtField = getPropertyString("deletedAtField");
+            
+            final String timezone = BackendUtil.getTimezone(getProperties());
 
             FormRow row = new FormRow();
 
@@ -82,11 +85,11 @@ public class HederaScheduledTransactionLoadBinder extends HederaFormBinder imple
             //The Hedera account paying for the execution of this scheduled transaction
             row = addRow(row, payerAccountIdField, scheduleInfo.payerAccountId.toString());
             //The date and time when this scheduled transaction will expire
-            row = addRow(row, expirationTimeField, TransactionUtil.convertInstantToZonedDateTimeString(scheduleInfo.expirationTime));
+            row = addRow(row, expirationTimeField, TransactionUtil.convertInstantToZonedDateTimeString(scheduleInfo.expirationTime, timezone));
             //The time the schedule transaction was executed. If the schedule transaction has not executed this field will be left null.
-            row = addRow(row, executedAtField, TransactionUtil.convertInstantToZonedDateTimeString(scheduleInfo.executedAt));
+            row = addRow(row, executedAtField, TransactionUtil.convertInstantToZonedDateTimeString(scheduleInfo.executedAt, timezone));
             //The consensus time the schedule transaction was deleted. If the schedule transaction was not deleted, this field will be left null.
-            row = addRow(row, deletedAtField, TransactionUtil.convertInstantToZonedDateTimeString(scheduleInfo.deletedAt));
+            row = addRow(row, deletedAtField, TransactionUtil.convertInstantToZonedDateTimeString(scheduleInfo.deletedAt, timezone));
 
             FormRowSet rows = new FormRowSet();
             rows.add(row);
@@ -7,37 +7,55 @@ import org.joget.workflow.util.WorkflowUtil;
 import com.hedera.hashgraph.sdk.AccountId;
 import com.hedera.hashgraph.sdk.BadMnemonicException;
 import com.hedera.hashgraph.sdk.Hbar;
-import com.hedera.hashgraph.sdk.Mnemonic;
 import com.hedera.hashgraph.sdk.NftId;
 import com.hedera.hashgraph.sdk.PrecheckStatusException;
 import com.hedera.hashgraph.sdk.PrivateKey;
 import com.hedera.hashgraph.sdk.ReceiptStatusException;
 import com.hedera.hashgraph.sdk.ScheduleCreateTransaction;
-import com.hedera.hashgraph.sdk.TokenAssociateTransaction;
+import com.hedera.hashgraph.sdk.Status;
 import com.hedera.hashgraph.sdk.TokenId;
-import com.hedera.hashgraph.sdk.TransactionRecord;
 import com.hedera.hashgraph.sdk.TransferTransaction;
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeoutException;
-import org.joget.apps.form.model.Form;
-import org.joget.apps.form.model.FormData;
+import org.joget.apps.datalist.model.DataListCollection;
+import org.joget.apps.datalist.service.DataListService;
 import org.joget.apps.form.model.FormRow;
 import org.joget.apps.form.model.FormRowSet;
 import org.joget.apps.form.service.FileUtil;
 import org.joget.hedera.model.HederaProcessTool;
+import org.joget.hedera.model.TransactionResult;
 import org.joget.hedera.service.AccountUtil;
+import org.joget.hedera.service.FileHashService;
 import org.joget.hedera.service.MirrorRestService;
 import org.joget.hedera.service.PluginUtil;
+import org.joget.hedera.service.TokenAssociationManager;
 import org.joget.hedera.service.TransactionUtil;
-import org.json.JSONArray;
 import org.json.JSONObject;
 
 public class HederaSendTransactionTool extends HederaProcessTool {
     
+    //Network limits on the number of account amounts in a single transfer transaction
+    private static final int MAX_HBAR_TRANSFERS_PER_TX = 10;
+    private static final int MAX_TOKEN_TRANSFERS_PER_TX = 10;
+    private static final int DEFAULT_MAX_CONCURRENT_TRANSFERS = 5;
+    
+    private static final String HBAR_ASSET_KEY = "";
+    
+    private static final String STATUS_SUCCESS = "SUCCESS";
+    private static final String STATUS_UNKNOWN = "UNKNOWN";
+    
     @Override
     public String getName() {
         return "Hedera Send Transaction Tool";
@@ -57,10 +75,9 @@ public class HederaSendTransactionTool extends HederaProcessTool {
     
     @Override
     public boolean isInputDataValid(Map props) {
-        final String accountMnemonic = PluginUtil.decrypt(WorkflowUtil.processVariable(getPropertyString("accountMnemonic"), "", wfAssignment));
-        
         try {
-            Mnemonic.fromString(accountMnemonic);
+            //Derived keys are cached, so runTool() reuses this derivation
+            AccountUtil.deriveKeyPairFromEncryptedMnemonic(WorkflowUtil.processVariable(getPropertyString("accountMnemonic"), "", wfAssignment));
         } catch (BadMnemonicException ex) {
             LogUtil.warn(getClassName(), "Send transaction aborted. Sender account encountered bad/invalid mnemonic phrase.");
             return false;
@@ -70,7 +87,7 @@ public class HederaSendTransactionTool extends HederaProcessTool {
         }
         
         String formDefId = getPropertyString("formDefId");
-        final String primaryKey = appService.getOriginProcessId(wfAssignment.getProcessId());
+        final String primaryKey = getOriginProcessId();
         
         FormRowSet rowSet = getFormRecord(formDefId, null);
         
@@ -95,14 +112,20 @@ public class HederaSendTransactionTool extends HederaProcessTool {
 
             final String paymentUnit = getPropertyString("paymentUnit");
             final String senderAccountId = row.getProperty(getPropertyString("senderAccountId"));
-            final String accountMnemonic = PluginUtil.decrypt(WorkflowUtil.processVariable(getPropertyString("accountMnemonic"), "", wfAssignment));
             final String receiverAccountId = row.getProperty(getPropertyString("receiverAccountId"));
             final String amount = row.getProperty(getPropertyString("amount"));
             final String transactionMemo = WorkflowUtil.processVariable(getPropertyString("transactionMemo"), "", wfAssignment);
             final boolean enableScheduledTx = "true".equals(getPropertyString("enableScheduledTransaction"));
 
             final AccountId senderAccount = AccountId.fromString(senderAccountId);
-            final PrivateKey senderPrivateKey = AccountUtil.derivePrivateKeyFromMnemonic(Mnemonic.fromString(accountMnemonic));
+            final PrivateKey senderPrivateKey = AccountUtil.deriveKeyPairFromEncryptedMnemonic(
+                    WorkflowUtil.processVariable(getPropertyString("accountMnemonic"), "", wfAssignment)
+            ).privateKey();
+            
+            final String payoutSource = getPropertyString("payoutSource");
+            if (!"nft".equals(paymentUnit) && ("formGrid".equals(payoutSource) || "datalist".equals(payoutSource))) {
+                return bulkPayout(row, senderAccount, senderPrivateKey, transactionMemo);
+            }
 
             final AccountId receiverAccount = AccountId.fromString(receiverAccountId);
 
@@ -113,36 +136,21 @@ public class HederaSendTransactionTool extends HederaProcessTool {
 
                 final MirrorRestService restService = new MirrorRestService(getProperties(), client.getLedgerId());
                 
+                //Fetch token decimals in parallel with the association check below
+                final CompletableFuture<JSONObject> tokenDataRequest = "nativeTokens".equals(paymentUnit)
+                        ? restService.getTokenDataAsync(tokenId)
+                        : null;
+                
                 //Auto-associate tokens with receiver here
                 final boolean enableTokenAutoAssociateWithReceiver = "true".equals(getPropertyString("enableTokenAutoAssociateWithReceiver"));
                 if (enableTokenAutoAssociateWithReceiver) {
                     //IDEA: If don't want to require mnemonic, perhaps check for receiver's automatic token associations + number of tokens already existed
-                    final String receiverAccountMnemonic = PluginUtil.decrypt(WorkflowUtil.processVariable(getPropertyString("receiverAccountMnemonic"), "", wfAssignment));
-                    final PrivateKey receiverPrivateKey = AccountUtil.derivePrivateKeyFromMnemonic(Mnemonic.fromString(receiverAccountMnemonic));
+                    final PrivateKey receiverPrivateKey = AccountUtil.deriveKeyPairFromEncryptedMnemonic(
+                            WorkflowUtil.processVariable(getPropertyString("receiverAccountMnemonic"), "", wfAssignment)
+                    ).privateKey();
 
-                    //Check if token already associated before doing so
-                    JSONObject jsonResponse = restService.get("balances?account.id=" + receiverAccountId);
-                    if (jsonResponse == null) {
-                        LogUtil.warn(getClassName(), "Error retrieving data from mirror node.");
-                    }
-                    JSONArray accountTokens = jsonResponse.getJSONArray("balances").getJSONObject(0).getJSONArray("tokens");
-                    boolean tokenFound = false;
-                    for (int i = 0; i < accountTokens.length(); i++) {
-                        JSONObject balanceObj = accountTokens.getJSONObject(i);
-                        if (balanceObj.getString("token_id").equals(tokenId)) {
-                            tokenFound = true;
-                            break;
-                        }
-                    }
-                    if (!tokenFound) {
-                        new TokenAssociateTransaction()
-                            .setAccountId(receiverAccount)
-                            .setTokenIds(Collections.singletonList(TokenId.fromString(tokenId)))
-                            .freezeWith(client)
-                            .sign(receiverPrivateKey)
-                            .execute(client)
-                            .getReceipt(client);
-                    }
+                    //Only associates the token if not yet associated
+                    TokenAssociationManager.associate(client, restService, receiverAccount, receiverPrivateKey, Collections.singletonList(tokenId));
                 }
 
                 switch (paymentUnit) {
@@ -157,7 +165,7 @@ public class HederaSendTransactionTool extends HederaProcessTool {
                     }
                     case "nativeTokens": {
                         //Auto-calc token decimals for transfer amount
-                        JSONObject jsonResponse = restService.get("tokens/" + tokenId);
+                        JSONObject jsonResponse = tokenDataRequest.join();
 
                         int actualAmount = TransactionUtil.calcActualTokenAmountBasedOnDecimals(amount, Integer.parseInt(jsonResponse.getString("decimals")));
 
@@ -179,27 +187,26 @@ public class HederaSendTransactionTool extends HederaProcessTool {
             //Can set a transaction memo of string up to max length of 100
             final boolean hashFilesInMemo = "true".equals(getPropertyString("hashFilesInMemo"));
             if (hashFilesInMemo) {
-                String primaryKey = appService.getOriginProcessId(wfAssignment.getProcessId());
-                FormData formData = new FormData();
-                formData.setPrimaryKeyValue(primaryKey);
-                Form form = appService.viewDataForm(appDef.getId(), appDef.getVersion().toString(), formDefId, null, null, null, formData, null, null);
+                String primaryKey = getOriginProcessId();
+                //Only the form's table name is needed to locate uploaded files, no need to render the form
+                final String tableName = appService.getFormTableName(appDef, formDefId);
                 
                 final String filesToHash = row.getProperty(getPropertyString("filesToHash"));
                 List<String> fileNames = Arrays.asList(filesToHash.split(";"));
                 if (fileNames.size() > 1) {
                     Collections.sort(fileNames); //Ensure hashing consistency
                     try {
-                        List<String> filesHash = new ArrayList<>();
+                        List<File> files = new ArrayList<>();
                         for (String fileName : fileNames) {
-                            File file = FileUtil.getFile(fileName, form, primaryKey);
-                            filesHash.add(PluginUtil.getFileHashSha256(file));
+                            files.add(FileUtil.getFile(fileName, tableName, primaryKey));
                         }
+                        List<String> filesHash = FileHashService.sha256Hex(files);
                         transferTransaction.setTransactionMemo("files: " + PluginUtil.getTextHashSha256(String.join("", filesHash)));
                     } catch (Exception ex) {}
                 } else if (fileNames.size() == 1) {
                     try {
-                        File file = FileUtil.getFile(fileNames.get(0), form, primaryKey);
-                        transferTransaction.setTransactionMemo("file: " + PluginUtil.getFileHashSha256(file));
+                        File file = FileUtil.getFile(fileNames.get(0), tableName, primaryKey);
+                        transferTransaction.setTransactionMemo("file: " + FileHashService.sha256Hex(file));
                     } catch (Exception ex) {}
                 }
             } else {
@@ -208,41 +215,479 @@ public class HederaSendTransactionTool extends HederaProcessTool {
                 }
             }
 
-            TransactionRecord transactionRecord;
+            TransactionResult transactionResult;
 
             if (enableScheduledTx) {
-                transactionRecord = new ScheduleCreateTransaction()
-                    .setScheduledTransaction(transferTransaction)
-                    .setAdminKey(client.getOperatorPublicKey())
-                    .setPayerAccountId(senderAccount)
-                    .freezeWith(client)
-                    .sign(senderPrivateKey)
-                    .execute(client)
-                    .getRecord(client);
+                transactionResult = executeTransaction(
+                        new ScheduleCreateTransaction()
+                            .setScheduledTransaction(transferTransaction)
+                            .setAdminKey(client.getOperatorPublicKey())
+                            .setPayerAccountId(senderAccount)
+                            .freezeWith(client)
+                            .sign(senderPrivateKey)
+                );
             } else {
-                transactionRecord = transferTransaction
-                    .freezeWith(client)
-                    .sign(senderPrivateKey)
-                    .execute(client)
-                    .getRecord(client);
+                transactionResult = submitTransaction(
+                        transferTransaction
+                            .freezeWith(client)
+                            .sign(senderPrivateKey)
+                );
             }
 
-            storeGenericTxDataToWorkflowVariable(transactionRecord);
-            storeAdditionalDataToWorkflowVariable(transactionRecord);
+            storeGenericTxDataToWorkflowVariable(transactionResult);
+            storeAdditionalDataToWorkflowVariable(transactionResult);
 
-            return transactionRecord;
+            return transactionResult;
         } catch (PrecheckStatusException | BadMnemonicException | ReceiptStatusException e) {
             throw new RuntimeException(e.getClass().getName() + " : " + e.getMessage());
         }
     }
     
-    protected void storeAdditionalDataToWorkflowVariable(TransactionRecord transactionRecord) {
+    /*
+        Pays out all pending rows of the payout source from the sender account.
+        Rows are packed into transfer transactions within the network's limits of MAX_HBAR_TRANSFERS_PER_TX hbar 
+        and MAX_TOKEN_TRANSFERS_PER_TX token account amounts per transaction, 
+        and up to "maxConcurrentTransfers" transactions are kept awaiting consensus at any one time.
+        The outcome of each row is written back to the row as soon as its transaction completes. Rows already paid out are skipped, so failed payouts can simply be re-run.
+        
+        Rows are marked UNKNOWN along with the transaction ID before their transaction is submitted, and stay so if it is not confirmed (e.g. on timeout, or if the run is interrupted).
+        On re-run, these are first looked up on the mirror node, and only paid out again once the transaction is known to have failed or expired.
+    */
+    private TransactionResult bulkPayout(FormRow row, AccountId senderAccount, PrivateKey senderPrivateKey, String transactionMemo) {
+        if ("true".equals(getPropertyString("enableScheduledTransaction"))) {
+            LogUtil.warn(getClassName(), "Scheduled transactions are not supported for bulk payouts. Payouts are sent immediately instead.");
+        }
+        if ("true".equals(getPropertyString("enableTokenAutoAssociateWithReceiver"))) {
+            //The receiver mnemonic is of a single account, so it cannot sign associations for the receivers of a bulk payout
+            LogUtil.warn(getClassName(), "Token auto-association is not supported for bulk payouts. Receivers must already be associated with the token.");
+        }
+        
+        final MirrorRestService restService = new MirrorRestService(getProperties(), client.getLedgerId());
+        
+        final List<Payout> payouts = getPayouts(row);
+        final List<Payout> validPayouts = resolvePayoutUnits(restService, reconcileUnknownPayouts(restService, payouts));
+        final List<List<Payout>> batches = packPayouts(validPayouts);
+        
+        //Stores the outcome of reconciled and invalid payouts
+        storePayoutStatus(payouts);
+        
+        final int maxConcurrentTransfers = getMaxConcurrentTransfers();
+        final Deque<PayoutBatch> inFlight = new ArrayDeque<>();
+        
+        TransactionResult lastResult = null;
+        int nextIndex = 0;
+        int paidCount = 0;
+        
+        while (nextIndex < batches.size() || !inFlight.isEmpty()) {
+            if (nextIndex < batches.size() && inFlight.size() < maxConcurrentTransfers) {
+                inFlight.add(submitPayoutBatch(batches.get(nextIndex++), senderAccount, senderPrivateKey, transactionMemo));
+                continue;
+            }
+            
+            final PayoutBatch payoutBatch = inFlight.poll();
+            try {
+                TransactionResult transactionResult = payoutBatch.request().join();
+                for (Payout payout : payoutBatch.payouts()) {
+                    payout.setStatus(transactionResult.getReceipt().status.toString(), transactionResult.getTransactionId().toString());
+                }
+                
+                paidCount += payoutBatch.payouts().size();
+                lastResult = transactionResult;
+            } catch (CompletionException ex) {
+                final String status = getFailedPayoutStatus(payoutBatch, ex.getCause());
+                
+                //The transaction ID is kept for unconfirmed transactions, to look them up before paying out again
+                for (Payout payout : payoutBatch.payouts()) {
+                    payout.setStatus(status, STATUS_UNKNOWN.equals(status) ? payoutBatch.transactionId() : "");
+                }
+                LogUtil.error(getClassName(), ex.getCause(), "Payout batch of " + payoutBatch.payouts().size() + " transfers failed with status " + status + ".");
+            }
+            
+            storePayoutStatus(payoutBatch.payouts());
+        }
+        
+        LogUtil.info(getClassName(), "Paid out " + paidCount + " of " + payouts.size() + " pending payouts in " + batches.size() + " transactions.");
+        
+        if (lastResult != null) {
+            storeGenericTxDataToWorkflowVariable(lastResult);
+        }
+        
+        return lastResult;
+    }
+    
+    /*
+        Failed prechecks never reach consensus, and failed receipts reached consensus without paying out, so both can be paid out again.
+        Any other failure of a submitted transaction (e.g. timeout) leaves it unknown whether the payout was made.
+        A duplicate transaction precheck means an earlier submission of the same transaction was received, so it is unknown too.
+    */
+    private String getFailedPayoutStatus(PayoutBatch payoutBatch, Throwable cause) {
+        if (cause instanceof ReceiptStatusException receiptException) {
+            return receiptException.receipt.status.toString();
+        }
+        if (cause instanceof PrecheckStatusException precheckException && precheckException.status != Status.DUPLICATE_TRANSACTION) {
+            return precheckException.status.toString();
+        }
+        
+        return payoutBatch.transactionId() != null ? STATUS_UNKNOWN : "FAILED";
+    }
+    
+    private PayoutBatch submitPayoutBatch(List<Payout> batch, AccountId senderAccount, PrivateKey senderPrivateKey, String transactionMemo) {
+        //Amounts to the same receiver are merged, so that each receiver takes up one account amount per asset
+        Map<String, Map<String, Long>> assetAmounts = new LinkedHashMap<>();
+        for (Payout payout : batch) {
+            assetAmounts.computeIfAbsent(payout.getAssetKey(), k -> new LinkedHashMap<>()).merge(payout.receiverAccountId, payout.units, Math::addExact);
+        }
+        
+        final TransferTransaction transferTransaction = new TransferTransaction();
+        try {
+            
+            assetAmounts.forEach((assetKey, receiverAmounts) -> {
+                long totalUnits = 0;
+                for (Map.Entry<String, Long> receiverAmount : receiverAmounts.entrySet()) {
+                    addPayoutTransfer(transferTransaction, assetKey, AccountId.fromString(receiverAmount.getKey()), receiverAmount.getValue());
+                    totalUnits = Math.addExact(totalUnits, receiverAmount.getValue());
+                }
+                addPayoutTransfer(transferTransaction, assetKey, senderAccount, Math.negateExact(totalUnits));
+            });
+            
+            if (!transactionMemo.isBlank()) {
+                transferTransaction.setTransactionMemo(transactionMemo);
+            }
+            
+            transferTransaction
+                    .freezeWith(client)
+                    .sign(senderPrivateKey);
+        } catch (RuntimeException ex) {
+            return new PayoutBatch(batch, null, CompletableFuture.failedFuture(ex));
+        }
+        
+        //Stored before submitting, so that rows of an interrupted run are reconciled on re-run instead of paid out again
+        final String transactionId = transferTransaction.getTransactionId().toString();
+        for (Payout payout : batch) {
+            payout.setStatus(STATUS_UNKNOWN, transactionId);
+        }
+        storePayoutStatus(batch);
+        
+        try {
+            return new PayoutBatch(batch, transactionId, executeTransactionAsync(transferTransaction));
+        } catch (RuntimeException ex) {
+            return new PayoutBatch(batch, transactionId, CompletableFuture.failedFuture(ex));
+        }
+    }
+    
+    private void addPayoutTransfer(TransferTransaction transferTransaction, String assetKey, AccountId account, long units) {
+        if (assetKey.equals(HBAR_ASSET_KEY)) {
+            transferTransaction.addHbarTransfer(account, Hbar.fromTinybars(units));
+        } else {
+            transferTransaction.addTokenTransfer(TokenId.fromString(assetKey), account, units);
+        }
+    }
+    
+    /*
+        Greedily fills each transaction up to the network's transfer list limits.
+        Every asset in a transaction takes one account amount for the sender, plus one per distinct receiver.
+    */
+    private List<List<Payout>> packPayouts(List<Payout> payouts) {
+        List<List<Payout>> batches = new ArrayList<>();
+        List<Payout> batch = new ArrayList<>();
+        Map<String, Set<String>> batchReceivers = new HashMap<>();
+        
+        for (Payout payout : payouts) {
+            Map<String, Set<String>> candidateReceivers = new HashMap<>();
+            batchReceivers.forEach((assetKey, receivers) -> candidateReceivers.put(assetKey, new HashSet<>(receivers)));
+            candidateReceivers.computeIfAbsent(payout.getAssetKey(), k -> new HashSet<>()).add(payout.receiverAccountId);
+            
+            if (!batch.isEmpty() && !isWithinTransferLimits(candidateReceivers)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                candidateReceivers.clear();
+                candidateReceivers.computeIfAbsent(payout.getAssetKey(), k -> new HashSet<>()).add(payout.receiverAccountId);
+            }
+            
+            batch.add(payout);
+            batchReceivers = candidateReceivers;
+        }
+        
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        
+        return batches;
+    }
+    
+    private boolean isWithinTransferLimits(Map<String, Set<String>> assetReceivers) {
+        int hbarTransfers = 0;
+        int tokenTransfers = 0;
+        
+        for (Map.Entry<String, Set<String>> entry : assetReceivers.entrySet()) {
+            if (entry.getKey().equals(HBAR_ASSET_KEY)) {
+                hbarTransfers += entry.getValue().size() + 1;
+            } else {
+                tokenTransfers += entry.getValue().size() + 1;
+            }
+        }
+        
+        return hbarTransfers <= MAX_HBAR_TRANSFERS_PER_TX && tokenTransfers <= MAX_TOKEN_TRANSFERS_PER_TX;
+    }
+    
+    /*
+        Looks up the last transaction of each UNKNOWN payout on the mirror node, in parallel.
+        Payouts found successful are marked SUCCESS, and payouts found failed, or not found after the transaction expired, are paid out again.
+        Payouts still within the transaction's validity window, or without a transaction ID, are skipped for now.
+    */
+    private List<Payout> reconcileUnknownPayouts(MirrorRestService restService, List<Payout> payouts) {
+        Map<String, CompletableFuture<JSONObject>> txDataRequests = new HashMap<>();
+        for (Payout payout : payouts) {
+            if (STATUS_UNKNOWN.equals(payout.previousStatus) && payout.previousTransactionId != null) {
+                txDataRequests.computeIfAbsent(payout.previousTransactionId, txId -> restService.getTxDataAsync(TransactionUtil.formatTransactionIdForMirror(txId)));
+            }
+        }
+        
+        List<Payout> pendingPayouts = new ArrayList<>();
+        for (Payout payout : payouts) {
+            if (!STATUS_UNKNOWN.equals(payout.previousStatus)) {
+                pendingPayouts.add(payout);
+                continue;
+            }
+            
+            if (payout.previousTransactionId == null) {
+                LogUtil.warn(getClassName(), "Skipping payout to '" + payout.receiverAccountId + "' with status UNKNOWN and no transaction ID. Check the payout, then clear its status to pay out again.");
+                continue;
+            }
+            
+            final JSONObject transaction = TransactionUtil.getMirrorTransaction(txDataRequests.get(payout.previousTransactionId).join());
+            if (transaction != null) {
+                final String result = transaction.getString("result");
+                if (STATUS_SUCCESS.equals(result)) {
+                    payout.setStatus(STATUS_SUCCESS, payout.previousTransactionId);
+                } else {
+                    LogUtil.info(getClassName(), "Transaction " + payout.previousTransactionId + " of payout to '" + payout.receiverAccountId + "' failed with " + result + ". Paying out again.");
+                    pendingPayouts.add(payout);
+                }
+            } else if (TransactionUtil.isTransactionExpired(payout.previousTransactionId)) {
+                LogUtil.info(getClassName(), "Transaction " + payout.previousTransactionId + " of payout to '" + payout.receiverAccountId + "' expired without reaching consensus. Paying out again.");
+                pendingPayouts.add(payout);
+            } else {
+                LogUtil.warn(getClassName(), "Skipping payout to '" + payout.receiverAccountId + "'. Transaction " + payout.previousTransactionId + " may still reach consensus.");
+            }
+        }
+        
+        return pendingPayouts;
+    }
+    
+    /*
+        Converts payout amounts to tinybars or the smallest token unit, with token decimals looked up in parallel.
+        Payouts that cannot be sent (e.g. invalid account, amount or token) are marked INVALID and left out.
+    */
+    private List<Payout> resolvePayoutUnits(MirrorRestService restService, List<Payout> payouts) {
+        Map<String, CompletableFuture<JSONObject>> tokenDataRequests = new HashMap<>();
+        for (Payout payout : payouts) {
+            if (payout.tokenId != null) {
+                tokenDataRequests.computeIfAbsent(payout.tokenId, restService::getTokenDataAsync);
+            }
+        }
+        
+        List<Payout> validPayouts = new ArrayList<>();
+        for (Payout payout : payouts) {
+            try {
+                AccountId.fromString(payout.receiverAccountId);
+                
+                if (payout.tokenId == null) {
+                    payout.units = Hbar.fromString(payout.amount).toTinybars();
+                } else {
+                    TokenId.fromString(payout.tokenId);
+                    
+                    JSONObject tokenData = tokenDataRequests.get(payout.tokenId).join();
+                    if (tokenData == null || !tokenData.has("decimals")) {
+                        throw new IllegalArgumentException("Token " + payout.tokenId + " not found.");
+                    }
+                    payout.units = TransactionUtil.calcActualTokenAmountBasedOnDecimals(payout.amount, Integer.parseInt(tokenData.getString("decimals")));
+                }
+                
+                if (payout.units <= 0) {
+                    throw new IllegalArgumentException("Amount must be positive.");
+                }
+                
+                validPayouts.add(payout);
+            } catch (RuntimeException ex) {
+                LogUtil.warn(getClassName(), "Skipping invalid payout of '" + payout.amount + "' to '" + payout.receiverAccountId + "' --> " + ex.getMessage());
+                payout.setStatus("INVALID", "");
+            }
+        }
+        
+        return validPayouts;
+    }
+    
+    private List<Payout> getPayouts(FormRow row) {
+        return switch (getPropertyString("payoutSource")) {
+            case "formGrid" -> getGridPayouts(row);
+            case "datalist" -> getDatalistPayouts();
+            default -> new ArrayList<>();
+        };
+    }
+    
+    private List<Payout> getGridPayouts(FormRow row) {
+        FormRowSet gridRows = getGridRows(getPropertyString("payoutGridFormDefId"), getPropertyString("payoutGridForeignKey"), row.getId());
+        if (gridRows == null) {
+            return new ArrayList<>();
+        }
+        
+        List<Payout> payouts = new ArrayList<>();
+        for (FormRow gridRow : gridRows) {
+            addPendingPayout(
+                    payouts,
+                    gridRow.getProperty(getPropertyString("payoutGridReceiverField")),
+                    gridRow.getProperty(getPropertyString("payoutGridAmountField")),
+                    gridRow.getProperty(getPropertyString("payoutGridTokenField")),
+                    gridRow.getProperty(getPropertyString("payoutStatusField")),
+                    gridRow.getProperty(getPropertyString("payoutTxIdField")),
+                    gridRow
+            );
+        }
+        
+        return payouts;
+    }
+    
+    private List<Payout> getDatalistPayouts() {
+        DataListCollection datalistRows = getDatalistRows(getPropertyString("payoutDatalistId"));
+        if (datalistRows == null) {
+            LogUtil.warn(getClassName(), "Unable to read payouts. Datalist '" + getPropertyString("payoutDatalistId") + "' not found.");
+            return new ArrayList<>();
+        }
+        
+        List<Payout> payouts = new ArrayList<>();
+        for (Object datalistRow : datalistRows) {
+            //Outcomes are written to the form behind the datalist, matched by record ID
+            FormRow statusRow = new FormRow();
+            statusRow.setId(getDatalistValue(datalistRow, "id"));
+            
+            addPendingPayout(
+                    payouts,
+                    getDatalistValue(datalistRow, getPropertyString("payoutDatalistReceiverColumn")),
+                    getDatalistValue(datalistRow, getPropertyString("payoutDatalistAmountColumn")),
+                    getDatalistValue(datalistRow, getPropertyString("payoutDatalistTokenColumn")),
+                    getDatalistValue(datalistRow, getPropertyString("payoutStatusField")),
+                    getDatalistValue(datalistRow, getPropertyString("payoutTxIdField")),
+                    statusRow
+            );
+        }
+        
+        return payouts;
+    }
+    
+    private String getDatalistValue(Object datalistRow, String column) {
+        if (column.isEmpty()) {
+            return null;
+        }
+        
+        Object value = DataListService.evaluateColumnValueFromRow(datalistRow, column);
+        return value != null ? value.toString() : null;
+    }
+    
+    private void addPendingPayout(List<Payout> payouts, String receiverAccountId, String amount, String rowTokenId, String status, String transactionId, FormRow statusRow) {
+        if (STATUS_SUCCESS.equals(status) || receiverAccountId == null || receiverAccountId.isBlank()) {
+            return;
+        }
+        
+        //Rows without a token of their own pay out in the configured payment unit
+        String tokenId = (rowTokenId != null && !rowTokenId.isBlank()) ? rowTokenId.trim() : null;
+        if (tokenId == null && "nativeTokens".equals(getPropertyString("paymentUnit"))) {
+            tokenId = WorkflowUtil.processVariable(getPropertyString("tokenId"), "", wfAssignment);
+        }
+        
+        payouts.add(new Payout(
+                receiverAccountId.trim(), 
+                amount != null ? amount.trim() : "", 
+                tokenId, 
+                status, 
+                (transactionId != null && !transactionId.isBlank()) ? transactionId.trim() : null, 
+                statusRow
+        ));
+    }
+    
+    private void storePayoutStatus(List<Payout> payouts) {
+        final String statusField = getPropertyString("payoutStatusField");
+        final String txIdField = getPropertyString("payoutTxIdField");
+        final String statusFormDefId = "datalist".equals(getPropertyString("payoutSource")) 
+                ? getPropertyString("payoutDatalistFormDefId") 
+                : getPropertyString("payoutGridFormDefId");
+        
+        if (statusFormDefId.isEmpty() || (statusField.isEmpty() && txIdField.isEmpty())) {
+            return;
+        }
+        
+        FormRowSet statusRows = new FormRowSet();
+        for (Payout payout : payouts) {
+            if (payout.status == null || payout.statusRow.getId() == null) {
+                continue;
+            }
+            
+            if (!statusField.isEmpty()) {
+                payout.statusRow.setProperty(statusField, payout.status);
+            }
+            if (!txIdField.isEmpty()) {
+                payout.statusRow.setProperty(txIdField, payout.transactionId);
+            }
+            statusRows.add(payout.statusRow);
+        }
+        
+        if (!statusRows.isEmpty()) {
+            storeFormRows(statusFormDefId, statusRows);
+        }
+    }
+    
+    private int getMaxConcurrentTransfers() {
+        try {
+            return Math.max(1, Integer.parseInt(getPropertyString("maxConcurrentTransfers")));
+        } catch (NumberFormatException e) {
+            return DEFAULT_MAX_CONCURRENT_TRANSFERS;
+        }
+    }
+    
+    protected void storeAdditionalDataToWorkflowVariable(TransactionResult transactionResult) {
         String wfScheduleId = getPropertyString("wfScheduleId");
         
         storeValuetoActivityVar(
                 wfAssignment.getActivityId(), 
                 wfScheduleId, 
-                transactionRecord.receipt.scheduleId != null ? transactionRecord.receipt.scheduleId.toString() : ""
+                !transactionResult.isPending() && transactionResult.getReceipt().scheduleId != null ? transactionResult.getReceipt().scheduleId.toString() : ""
         );
     }
+    
+    private static final class Payout {
+        
+        private final String receiverAccountId;
+        private final String amount;
+        private final String tokenId;
+        private final String previousStatus;
+        private final String previousTransactionId;
+        private final FormRow statusRow;
+        
+        private long units;
+        private String status;
+        private String transactionId;
+        
+        private Payout(String receiverAccountId, String amount, String tokenId, String previousStatus, String previousTransactionId, FormRow statusRow) {
+            this.receiverAccountId = receiverAccountId;
+            this.amount = amount;
+            this.tokenId = tokenId;
+            this.previousStatus = previousStatus;
+            this.previousTransactionId = previousTransactionId;
+            this.statusRow = statusRow;
+        }
+        
+        private String getAssetKey() {
+            return tokenId != null ? tokenId : HBAR_ASSET_KEY;
+        }
+        
+        private void setStatus(String status, String transactionId) {
+            this.status = status;
+            this.transactionId = transactionId;
+        }
+    }
+    
+    /**
+     * @param transactionId ID of the submitted transaction, or null if it could not be submitted
+     */
+    private record PayoutBatch(List<Payout> payouts, String transactionId, CompletableFuture<TransactionResult> request) {}
 }
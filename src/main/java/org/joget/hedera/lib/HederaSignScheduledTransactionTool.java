@@ -1,7 +1,6 @@
 package org.joget.hedera.lib;
 
 import com.hedera.hashgraph.sdk.BadMnemonicException;
-import com.hedera.hashgraph.sdk.Mnemonic;
 import com.hedera.hashgraph.sdk.PrecheckStatusException;
 import com.hedera.hashgraph.sdk.PrivateKey;
 import com.hedera.hashgraph.sdk.PublicKey;
@@ -17,6 +16,7 @@ import org.joget.apps.app.service.AppUtil;
 import org.joget.commons.util.LogUtil;
 import org.joget.hedera.model.HederaProcessTool;
 import org.joget.hedera.service.AccountUtil;
+import org.joget.hedera.service.AccountUtil.KeyPair;
 import org.joget.hedera.service.PluginUtil;
 import org.joget.workflow.util.WorkflowUtil;
 
@@ -49,9 +49,9 @@ public class HederaSignScheduledTransactionTool extends HederaProcessTool {
         
         try {    
     //        final String signerAccountId = WorkflowUtil.processVariable(getPropertyString("signerAccountId"), "", wfAssignment);
-            final String signerMnemonic = PluginUtil.decrypt(WorkflowUtil.processVariable(getPropertyString("signerMnemonic"), "", wfAssignment));
-            final PrivateKey signerPrivateKey = AccountUtil.derivePrivateKeyFromMnemonic(Mnemonic.fromString(signerMnemonic));
-            final PublicKey signerPublicKey = AccountUtil.derivePublicKeyFromMnemonic(Mnemonic.fromString(signerMnemonic));
+            final KeyPair signerKeyPair = AccountUtil.deriveKeyPairFromEncryptedMnemonic(WorkflowUtil.processVariable(getPropertyString("signerMnemonic"), "", wfAssignment));
+            final PrivateKey signerPrivateKey = signerKeyPair.privateKey();
+            final PublicKey signerPublicKey = signerKeyPair.publicKey();
 
             final String scheduleId = WorkflowUtil.processVariable(getPropertyString("scheduleId"), "", null);
             ScheduleId scheduleIdObj = ScheduleId.fromString(scheduleId);
@@ -1,10 +1,10 @@
 package org.joget.hedera.lib;
 
 import com.hedera.hashgraph.sdk.AccountId;
-import com.hedera.hashgraph.sdk.Mnemonic;
 import com.hedera.hashgraph.sdk.PrecheckStatusException;
 import com.hedera.hashgraph.sdk.PrivateKey;
 import com.hedera.hashgraph.sdk.ReceiptStatusException;
+import com.hedera.hashgraph.sdk.Status;
 import com.hedera.hashgraph.sdk.TokenAssociateTransaction;
 import com.hedera.hashgraph.sdk.TokenBurnTransaction;
 import com.hedera.hashgraph.sdk.TokenDeleteTransaction;
@@ -17,24 +17,55 @@ import com.hedera.hashgraph.sdk.TokenRevokeKycTransaction;
 import com.hedera.hashgraph.sdk.TokenUnfreezeTransaction;
 import com.hedera.hashgraph.sdk.TokenUnpauseTransaction;
 import com.hedera.hashgraph.sdk.TokenWipeTransaction;
-import com.hedera.hashgraph.sdk.TransactionRecord;
+import com.hedera.hashgraph.sdk.Transaction;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeoutException;
 import org.joget.apps.app.service.AppUtil;
+import org.joget.apps.datalist.model.DataListCollection;
+import org.joget.apps.datalist.service.DataListService;
 import org.joget.apps.form.model.FormRow;
 import org.joget.apps.form.model.FormRowSet;
 import org.joget.commons.util.LogUtil;
 import org.joget.hedera.model.HederaProcessTool;
+import org.joget.hedera.model.TransactionResult;
 import org.joget.hedera.service.AccountUtil;
 import org.joget.hedera.service.MirrorRestService;
 import org.joget.hedera.service.PluginUtil;
+import org.joget.hedera.service.TokenAssociationManager;
 import org.joget.hedera.service.TransactionUtil;
 import org.joget.workflow.util.WorkflowUtil;
 import org.json.JSONObject;
 
 public class HederaTokenManagementTool extends HederaProcessTool {
     
+    private static final int DEFAULT_MAX_CONCURRENT_TRANSACTIONS = 10;
+    private static final int DEFAULT_MAX_RETRIES = 2;
+    private static final long RETRY_BACKOFF_MILLIS = 1000;
+    private static final int RESULT_STORE_INTERVAL = 50;
+    
+    private static final String STATUS_SUCCESS = "SUCCESS";
+    private static final String STATUS_UNKNOWN = "UNKNOWN";
+    
+    //Statuses of failures that did not apply the operation, and may succeed when submitted again
+    private static final Set<Status> RETRYABLE_STATUSES = EnumSet.of(
+            Status.BUSY, 
+            Status.PLATFORM_TRANSACTION_NOT_CREATED, 
+            Status.PLATFORM_NOT_ACTIVE, 
+            Status.TRANSACTION_EXPIRED, 
+            Status.THROTTLED_AT_CONSENSUS
+    );
+    
     @Override
     public String getName() {
         return "Hedera Token Management Tool";
@@ -55,7 +86,7 @@ public class HederaTokenManagementTool extends HederaProcessTool {
     @Override
     public boolean isInputDataValid(Map props) {
         String formDefId = getPropertyString("formDefId");
-        final String primaryKey = appService.getOriginProcessId(wfAssignment.getProcessId());
+        final String primaryKey = getOriginProcessId();
         
         FormRowSet rowSet = getFormRecord(formDefId, null);
         
@@ -78,92 +109,98 @@ public class HederaTokenManagementTool extends HederaProcessTool {
             
             final String transactionMemo = WorkflowUtil.processVariable(getPropertyString("transactionMemo"), "", wfAssignment).trim();
             
-            TransactionRecord transactionRecord;
+            TransactionResult transactionResult;
             final OperationType operationType = OperationType.fromString(getPropertyString("operationType"));
+            
+            final String bulkSource = getPropertyString("bulkSource");
+            if ("multiValueField".equals(bulkSource) || "datalist".equals(bulkSource)) {
+                return bulkManage(operationType, row, tokenId, transactionMemo);
+            }
 
             switch (operationType) {
                 case ASSOCIATE: {
                     final AccountId targetAccount = AccountId.fromString(row.getProperty(getPropertyString("targetAccount")));
                     final PrivateKey targetAccountPrivateKey = getPrivateKey(getPropertyString("targetAccountMnemonic"));
                     
-                    transactionRecord = new TokenAssociateTransaction()
-                            .setAccountId(targetAccount)
-                            .setTokenIds(Collections.singletonList(TokenId.fromString(tokenId)))
-                            .setTransactionMemo(transactionMemo)
-                            .freezeWith(client)
-                            .sign(targetAccountPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(
+                            new TokenAssociateTransaction()
+                                    .setAccountId(targetAccount)
+                                    .setTokenIds(Collections.singletonList(TokenId.fromString(tokenId)))
+                                    .setTransactionMemo(transactionMemo)
+                                    .freezeWith(client)
+                                    .sign(targetAccountPrivateKey)
+                    );
                     break;
                 }
                 case DISSOCIATE: {
                     final AccountId targetAccount = AccountId.fromString(row.getProperty(getPropertyString("targetAccount")));
                     final PrivateKey targetAccountPrivateKey = getPrivateKey(getPropertyString("targetAccountMnemonic"));
                     
-                    transactionRecord = new TokenDissociateTransaction()
-                            .setAccountId(targetAccount)
-                            .setTokenIds(Collections.singletonList(TokenId.fromString(tokenId)))
-                            .setTransactionMemo(transactionMemo)
-                            .freezeWith(client)
-                            .sign(targetAccountPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(
+                            new TokenDissociateTransaction()
+                                    .setAccountId(targetAccount)
+                                    .setTokenIds(Collections.singletonList(TokenId.fromString(tokenId)))
+                                    .setTransactionMemo(transactionMemo)
+                                    .freezeWith(client)
+                                    .sign(targetAccountPrivateKey)
+                    );
+                    TokenAssociationManager.forget(client.getLedgerId(), targetAccount.toString(), tokenId);
                     break;
                 }
                 case GRANT_KYC: {
                     final AccountId targetAccount = AccountId.fromString(row.getProperty(getPropertyString("targetAccount")));
                     final PrivateKey kycAccountPrivateKey = getPrivateKey(getPropertyString("kycAccountMnemonic"));
                     
-                    transactionRecord = new TokenGrantKycTransaction()
-                            .setAccountId(targetAccount)
-                            .setTokenId(TokenId.fromString(tokenId))
-                            .setTransactionMemo(transactionMemo)
-                            .freezeWith(client)
-                            .sign(kycAccountPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(
+                            new TokenGrantKycTransaction()
+                                    .setAccountId(targetAccount)
+                                    .setTokenId(TokenId.fromString(tokenId))
+                                    .setTransactionMemo(transactionMemo)
+                                    .freezeWith(client)
+                                    .sign(kycAccountPrivateKey)
+                    );
                     break;
                 }
                 case REVOKE_KYC: {
                     final AccountId targetAccount = AccountId.fromString(row.getProperty(getPropertyString("targetAccount")));
                     final PrivateKey kycAccountPrivateKey = getPrivateKey(getPropertyString("kycAccountMnemonic"));
                     
-                    transactionRecord = new TokenRevokeKycTransaction()
-                            .setAccountId(targetAccount)
-                            .setTokenId(TokenId.fromString(tokenId))
-                            .setTransactionMemo(transactionMemo)
-                            .freezeWith(client)
-                            .sign(kycAccountPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(
+                            new TokenRevokeKycTransaction()
+                                    .setAccountId(targetAccount)
+                                    .setTokenId(TokenId.fromString(tokenId))
+                                    .setTransactionMemo(transactionMemo)
+                                    .freezeWith(client)
+                                    .sign(kycAccountPrivateKey)
+                    );
                     break;
                 }
                 case FREEZE: {
                     final AccountId targetAccount = AccountId.fromString(row.getProperty(getPropertyString("targetAccount")));
                     final PrivateKey freezeAccountPrivateKey = getPrivateKey(getPropertyString("freezeAccountMnemonic"));
                     
-                    transactionRecord = new TokenFreezeTransaction()
-                            .setAccountId(targetAccount)
-                            .setTokenId(TokenId.fromString(tokenId))
-                            .setTransactionMemo(transactionMemo)
-                            .freezeWith(client)
-                            .sign(freezeAccountPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(
+                            new TokenFreezeTransaction()
+                                    .setAccountId(targetAccount)
+                                    .setTokenId(TokenId.fromString(tokenId))
+                                    .setTransactionMemo(transactionMemo)
+                                    .freezeWith(client)
+                                    .sign(freezeAccountPrivateKey)
+                    );
                     break;
                 }
                 case UNFREEZE: {
                     final AccountId targetAccount = AccountId.fromString(row.getProperty(getPropertyString("targetAccount")));
                     final PrivateKey freezeAccountPrivateKey = getPrivateKey(getPropertyString("freezeAccountMnemonic"));
                     
-                    transactionRecord = new TokenUnfreezeTransaction()
-                            .setAccountId(targetAccount)
-                            .setTokenId(TokenId.fromString(tokenId))
-                            .setTransactionMemo(transactionMemo)
-                            .freezeWith(client)
-                            .sign(freezeAccountPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(
+                            new TokenUnfreezeTransaction()
+                                    .setAccountId(targetAccount)
+                                    .setTokenId(TokenId.fromString(tokenId))
+                                    .setTransactionMemo(transactionMemo)
+                                    .freezeWith(client)
+                                    .sign(freezeAccountPrivateKey)
+                    );
                     break;
                 }
                 case WIPE: {
@@ -186,47 +223,47 @@ public class HederaTokenManagementTool extends HederaProcessTool {
                         tokenWipeTx.addSerial(Long.parseLong(nftSerialNumberToWipe));
                     }
                     
-                    transactionRecord = tokenWipeTx
-                            .freezeWith(client)
-                            .sign(wipeAccountPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(
+                            tokenWipeTx
+                                    .freezeWith(client)
+                                    .sign(wipeAccountPrivateKey)
+                    );
                     break;
                 }
                 case PAUSE: {
                     final PrivateKey pauseAccountPrivateKey = getPrivateKey(getPropertyString("pauseAccountMnemonic"));
                     
-                    transactionRecord = new TokenPauseTransaction()
-                            .setTokenId(TokenId.fromString(tokenId))
-                            .setTransactionMemo(transactionMemo)
-                            .freezeWith(client)
-                            .sign(pauseAccountPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(
+                            new TokenPauseTransaction()
+                                    .setTokenId(TokenId.fromString(tokenId))
+                                    .setTransactionMemo(transactionMemo)
+                                    .freezeWith(client)
+                                    .sign(pauseAccountPrivateKey)
+                    );
                     break;
                 }
                 case UNPAUSE: {
                     final PrivateKey pauseAccountPrivateKey = getPrivateKey(getPropertyString("pauseAccountMnemonic"));
                     
-                    transactionRecord = new TokenUnpauseTransaction()
-                            .setTokenId(TokenId.fromString(tokenId))
-                            .setTransactionMemo(transactionMemo)
-                            .freezeWith(client)
-                            .sign(pauseAccountPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(
+                            new TokenUnpauseTransaction()
+                                    .setTokenId(TokenId.fromString(tokenId))
+                                    .setTransactionMemo(transactionMemo)
+                                    .freezeWith(client)
+                                    .sign(pauseAccountPrivateKey)
+                    );
                     break;
                 }
                 case DELETE: {
                     final PrivateKey adminAccountPrivateKey = getPrivateKey(getPropertyString("adminAccountMnemonic"));
                     
-                    transactionRecord = new TokenDeleteTransaction()
-                            .setTokenId(TokenId.fromString(tokenId))
-                            .setTransactionMemo(transactionMemo)
-                            .freezeWith(client)
-                            .sign(adminAccountPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(
+                            new TokenDeleteTransaction()
+                                    .setTokenId(TokenId.fromString(tokenId))
+                                    .setTransactionMemo(transactionMemo)
+                                    .freezeWith(client)
+                                    .sign(adminAccountPrivateKey)
+                    );
                     break;
                 }
                 case BURN: {
@@ -250,11 +287,11 @@ public class HederaTokenManagementTool extends HederaProcessTool {
                         tokenBurnTx.addSerial(Long.parseLong(nftSerialNumberToBurn));
                     }
                     
-                    transactionRecord = tokenBurnTx
-                            .freezeWith(client)
-                            .sign(supplyAccountPrivateKey)
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(
+                            tokenBurnTx
+                                    .freezeWith(client)
+                                    .sign(supplyAccountPrivateKey)
+                    );
                     break;
                 }
                 default:
@@ -262,23 +299,393 @@ public class HederaTokenManagementTool extends HederaProcessTool {
                     return null;
             }
 
-            storeGenericTxDataToWorkflowVariable(transactionRecord);
+            storeGenericTxDataToWorkflowVariable(transactionResult);
 
-            return transactionRecord;
+            return transactionResult;
         } catch (PrecheckStatusException | ReceiptStatusException e) {
             throw new RuntimeException(e.getClass().getName() + " : " + e.getMessage());
         }
     }
     
-    private PrivateKey getPrivateKey(String mnemonicString) {
+    /*
+        Applies the operation to all accounts of the bulk source, with the same token and signing key.
+        Up to "bulkMaxConcurrentTransactions" transactions are kept awaiting consensus at any one time.
+        Accounts that failed for transient reasons (e.g. BUSY) are retried in up to "bulkMaxRetries" further rounds, 
+        each with new transactions. Other failures are final for the run.
+        
+        Transactions that were submitted but not confirmed (e.g. on timeout) may still apply the operation, so they are not retried. 
+        Their accounts are marked UNKNOWN along with the transaction ID, and are looked up on the mirror node on the next run.
+        
+        The outcome for each account is stored to the result form every RESULT_STORE_INTERVAL accounts, so that outcomes survive an interrupted run. 
+        Accounts already with status SUCCESS are skipped, so a failed run can simply be re-run.
+    */
+    private TransactionResult bulkManage(OperationType operationType, FormRow row, String tokenId, String transactionMemo) {
+        if (!isBulkSupported(operationType)) {
+            LogUtil.warn(getClassName(), "Bulk mode is not supported for operation '" + operationType + "'. Only KYC, freeze and fungible token wipe operations are supported.");
+            return null;
+        }
+        
+        //The signing key is derived once for the whole run
+        final PrivateKey signingKey = switch (operationType) {
+            case GRANT_KYC, REVOKE_KYC -> getPrivateKey(getPropertyString("kycAccountMnemonic"));
+            case FREEZE, UNFREEZE -> getPrivateKey(getPropertyString("freezeAccountMnemonic"));
+            default -> getPrivateKey(getPropertyString("wipeAccountMnemonic"));
+        };
+        if (signingKey == null) {
+            return null;
+        }
+        
+        final long amountToWipe = (operationType == OperationType.WIPE) 
+                ? Long.parseLong(row.getProperty(getPropertyString("amountToWipe"))) 
+                : 0;
+        
+        final List<BulkTarget> targets = getBulkTargets(row);
+        final int maxConcurrentTransactions = getIntProperty("bulkMaxConcurrentTransactions", DEFAULT_MAX_CONCURRENT_TRANSACTIONS, 1);
+        final int maxRetries = getIntProperty("bulkMaxRetries", DEFAULT_MAX_RETRIES, 0);
+        
+        List<BulkTarget> pendingTargets = reconcileUnknownTargets(tokenId, targets);
+        
+        //Outcomes not stored yet. Targets only join once their outcome is final for the run.
+        final List<BulkTarget> completedTargets = new ArrayList<>();
+        for (BulkTarget target : targets) {
+            if (target.status != null) {
+                completedTargets.add(target);
+            }
+        }
+        
+        TransactionResult lastResult = null;
+        int successCount = 0;
+        
+        for (int round = 0; round <= maxRetries && !pendingTargets.isEmpty(); round++) {
+            if (round > 0) {
+                LogUtil.info(getClassName(), "Retrying " + pendingTargets.size() + " accounts (round " + round + " of " + maxRetries + ").");
+                
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS * round);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            
+            final Deque<BulkRequest> inFlight = new ArrayDeque<>();
+            final List<BulkTarget> retryTargets = new ArrayList<>();
+            int nextIndex = 0;
+            
+            while (nextIndex < pendingTargets.size() || !inFlight.isEmpty()) {
+                if (nextIndex < pendingTargets.size() && inFlight.size() < maxConcurrentTransactions) {
+                    inFlight.add(submitBulkTransaction(operationType, pendingTargets.get(nextIndex++), tokenId, transactionMemo, amountToWipe, signingKey));
+                    continue;
+                }
+                
+                final BulkRequest bulkRequest = inFlight.poll();
+                try {
+                    TransactionResult transactionResult = bulkRequest.request().join();
+                    bulkRequest.target().setStatus(transactionResult.getReceipt().status.toString(), transactionResult.getTransactionId().toString());
+                    
+                    successCount++;
+                    lastResult = transactionResult;
+                } catch (CompletionException ex) {
+                    final Throwable cause = ex.getCause();
+                    final String status = getFailedStatus(bulkRequest, cause);
+                    
+                    //The transaction ID is kept for unconfirmed transactions, to look them up on the next run
+                    bulkRequest.target().setStatus(status, STATUS_UNKNOWN.equals(status) ? bulkRequest.transactionId() : "");
+                    
+                    if (isRetryable(cause)) {
+                        retryTargets.add(bulkRequest.target());
+                        continue;
+                    }
+                    LogUtil.warn(getClassName(), "Token operation failed for account " + bulkRequest.target().accountId + " with status " + status + " --> " + cause.getMessage());
+                }
+                
+                completedTargets.add(bulkRequest.target());
+                if (completedTargets.size() >= RESULT_STORE_INTERVAL) {
+                    storeBulkResults(row.getId(), completedTargets);
+                    completedTargets.clear();
+                }
+            }
+            
+            pendingTargets = retryTargets;
+        }
+        
+        for (BulkTarget target : pendingTargets) {
+            LogUtil.warn(getClassName(), "Token operation failed for account " + target.accountId + " after " + maxRetries + " retries with status " + target.status + ".");
+            completedTargets.add(target);
+        }
+        
+        storeBulkResults(row.getId(), completedTargets);
+        
+        LogUtil.info(getClassName(), "Token operation '" + operationType + "' succeeded for " + successCount + " of " + targets.size() + " accounts.");
+        
+        if (lastResult != null) {
+            storeGenericTxDataToWorkflowVariable(lastResult);
+        }
+        
+        return lastResult;
+    }
+    
+    /*
+        Associating and dissociating need the key of each account, and NFT wipes need a serial number per account, 
+        so only operations signed by a single token key with the same input for every account are supported in bulk.
+    */
+    private boolean isBulkSupported(OperationType operationType) {
+        return switch (operationType) {
+            case GRANT_KYC, REVOKE_KYC, FREEZE, UNFREEZE -> true;
+            case WIPE -> "fungibleToken".equals(getPropertyString("wipeTokenType"));
+            default -> false;
+        };
+    }
+    
+    private BulkRequest submitBulkTransaction(OperationType operationType, BulkTarget target, String tokenId, String transactionMemo, long amountToWipe, PrivateKey signingKey) {
         try {
-            return AccountUtil.derivePrivateKeyFromMnemonic(
-                    Mnemonic.fromString(
-                            PluginUtil.decrypt(
-                                    WorkflowUtil.processVariable(mnemonicString, "", wfAssignment)
-                            )
-                    )
+            final AccountId accountId = AccountId.fromString(target.accountId);
+            final TokenId token = TokenId.fromString(tokenId);
+            
+            final Transaction<?> transaction = switch (operationType) {
+                case GRANT_KYC -> new TokenGrantKycTransaction().setAccountId(accountId).setTokenId(token);
+                case REVOKE_KYC -> new TokenRevokeKycTransaction().setAccountId(accountId).setTokenId(token);
+                case FREEZE -> new TokenFreezeTransaction().setAccountId(accountId).setTokenId(token);
+                case UNFREEZE -> new TokenUnfreezeTransaction().setAccountId(accountId).setTokenId(token);
+                case WIPE -> new TokenWipeTransaction().setAccountId(accountId).setTokenId(token).setAmount(amountToWipe);
+                default -> throw new IllegalArgumentException("Operation '" + operationType + "' is not supported in bulk mode.");
+            };
+            
+            transaction
+                    .setTransactionMemo(transactionMemo)
+                    .freezeWith(client)
+                    .sign(signingKey);
+            
+            return new BulkRequest(target, transaction.getTransactionId().toString(), executeTransactionAsync(transaction));
+        } catch (RuntimeException ex) {
+            return new BulkRequest(target, null, CompletableFuture.failedFuture(ex));
+        }
+    }
+    
+    //Only failures known not to have applied the operation are retried with a new transaction
+    private boolean isRetryable(Throwable ex) {
+        if (ex instanceof PrecheckStatusException precheckException) {
+            return RETRYABLE_STATUSES.contains(precheckException.status);
+        }
+        if (ex instanceof ReceiptStatusException receiptException) {
+            return RETRYABLE_STATUSES.contains(receiptException.receipt.status);
+        }
+        
+        return false;
+    }
+    
+    /*
+        Failed prechecks never reach consensus, and failed receipts reached consensus without applying the operation.
+        Any other failure of a submitted transaction (e.g. timeout) leaves it unknown whether the operation was applied.
+        A duplicate transaction precheck means an earlier submission of the same transaction was received, so it is unknown too.
+    */
+    private String getFailedStatus(BulkRequest bulkRequest, Throwable ex) {
+        if (ex instanceof ReceiptStatusException receiptException && receiptException.receipt.status != Status.UNKNOWN) {
+            return receiptException.receipt.status.toString();
+        }
+        if (ex instanceof PrecheckStatusException precheckException && precheckException.status != Status.DUPLICATE_TRANSACTION) {
+            return precheckException.status.toString();
+        }
+        
+        return bulkRequest.transactionId() != null ? STATUS_UNKNOWN : "FAILED";
+    }
+    
+    /*
+        Looks up the last transaction of each UNKNOWN account on the mirror node, in parallel.
+        Accounts found successful are marked SUCCESS, and accounts found failed, or not found after the transaction expired, are submitted again.
+        Accounts still within the transaction's validity window, or without a transaction ID, are skipped for now.
+    */
+    private List<BulkTarget> reconcileUnknownTargets(String tokenId, List<BulkTarget> targets) {
+        MirrorRestService restService = null;
+        Map<String, CompletableFuture<JSONObject>> txDataRequests = new HashMap<>();
+        for (BulkTarget target : targets) {
+            if (target.status == null && STATUS_UNKNOWN.equals(target.previousStatus) && target.previousTransactionId != null) {
+                if (restService == null) {
+                    restService = new MirrorRestService(getProperties(), client.getLedgerId());
+                }
+                txDataRequests.put(target.accountId, restService.getTxDataAsync(TransactionUtil.formatTransactionIdForMirror(target.previousTransactionId)));
+            }
+        }
+        
+        List<BulkTarget> pendingTargets = new ArrayList<>();
+        for (BulkTarget target : targets) {
+            if (target.status != null) {
+                continue;
+            }
+            if (!STATUS_UNKNOWN.equals(target.previousStatus)) {
+                pendingTargets.add(target);
+                continue;
+            }
+            
+            if (target.previousTransactionId == null) {
+                LogUtil.warn(getClassName(), "Skipping account " + target.accountId + " with status UNKNOWN and no transaction ID. Check the account's token " + tokenId + ", then clear its status to run it again.");
+                continue;
+            }
+            
+            final JSONObject transaction = TransactionUtil.getMirrorTransaction(txDataRequests.get(target.accountId).join());
+            if (transaction != null) {
+                final String result = transaction.getString("result");
+                if (STATUS_SUCCESS.equals(result)) {
+                    target.setStatus(STATUS_SUCCESS, target.previousTransactionId);
+                } else {
+                    LogUtil.info(getClassName(), "Transaction " + target.previousTransactionId + " for account " + target.accountId + " failed with " + result + ". Submitting again.");
+                    pendingTargets.add(target);
+                }
+            } else if (TransactionUtil.isTransactionExpired(target.previousTransactionId)) {
+                LogUtil.info(getClassName(), "Transaction " + target.previousTransactionId + " for account " + target.accountId + " expired without reaching consensus. Submitting again.");
+                pendingTargets.add(target);
+            } else {
+                LogUtil.warn(getClassName(), "Skipping account " + target.accountId + ". Transaction " + target.previousTransactionId + " may still reach consensus.");
+            }
+        }
+        
+        return pendingTargets;
+    }
+    
+    /*
+        Reads the accounts to apply the operation to, without duplicates. Invalid account IDs are marked INVALID, 
+        and accounts already with status SUCCESS in the result form are left out. 
+        Accounts with an earlier outcome keep its status and transaction ID, to resolve UNKNOWN outcomes.
+    */
+    private List<BulkTarget> getBulkTargets(FormRow row) {
+        Set<String> accountIds = new LinkedHashSet<>();
+        
+        if ("datalist".equals(getPropertyString("bulkSource"))) {
+            DataListCollection datalistRows = getDatalistRows(getPropertyString("bulkDatalistId"));
+            if (datalistRows == null) {
+                LogUtil.warn(getClassName(), "Unable to read accounts. Datalist '" + getPropertyString("bulkDatalistId") + "' not found.");
+                return new ArrayList<>();
+            }
+            
+            final String accountColumn = getPropertyString("bulkDatalistAccountColumn");
+            for (Object datalistRow : datalistRows) {
+                Object value = DataListService.evaluateColumnValueFromRow(datalistRow, accountColumn);
+                if (value != null) {
+                    accountIds.add(value.toString().trim());
+                }
+            }
+        } else {
+            final String accounts = row.getProperty(getPropertyString("bulkAccountsField"));
+            if (accounts != null) {
+                for (String accountId : accounts.split(PluginUtil.MULTI_VALUE_DELIMITER)) {
+                    accountIds.add(accountId.trim());
+                }
+            }
+        }
+        
+        accountIds.remove("");
+        
+        final Map<String, FormRow> previousResults = getPreviousResults(row.getId());
+        final String statusField = getPropertyString("bulkResultStatusField");
+        final String txIdField = getPropertyString("bulkResultTxIdField");
+        
+        List<BulkTarget> targets = new ArrayList<>(accountIds.size());
+        for (String accountId : accountIds) {
+            final FormRow previousResult = previousResults.get(accountId);
+            final String previousStatus = previousResult != null ? previousResult.getProperty(statusField) : null;
+            final String previousTransactionId = (previousResult != null && !txIdField.isEmpty()) ? previousResult.getProperty(txIdField) : null;
+            
+            if (STATUS_SUCCESS.equals(previousStatus)) {
+                continue;
+            }
+            
+            BulkTarget target = new BulkTarget(
+                    accountId, 
+                    previousStatus, 
+                    (previousTransactionId != null && !previousTransactionId.isBlank()) ? previousTransactionId : null
             );
+            
+            try {
+                AccountId.fromString(accountId);
+            } catch (RuntimeException ex) {
+                LogUtil.warn(getClassName(), "Skipping invalid account ID '" + accountId + "'.");
+                target.setStatus("INVALID", "");
+            }
+            
+            targets.add(target);
+        }
+        
+        return targets;
+    }
+    
+    private Map<String, FormRow> getPreviousResults(String recordId) {
+        final String resultFormDefId = getPropertyString("bulkResultFormDefId");
+        final String recordField = getPropertyString("bulkResultRecordField");
+        final String accountField = getPropertyString("bulkResultAccountField");
+        final String statusField = getPropertyString("bulkResultStatusField");
+        
+        Map<String, FormRow> previousResults = new HashMap<>();
+        if (resultFormDefId.isEmpty() || recordField.isEmpty() || accountField.isEmpty() || statusField.isEmpty()) {
+            return previousResults;
+        }
+        
+        FormRowSet resultRows = getGridRows(resultFormDefId, recordField, recordId);
+        if (resultRows != null) {
+            for (FormRow resultRow : resultRows) {
+                final String accountId = resultRow.getProperty(accountField);
+                if (accountId != null) {
+                    previousResults.put(accountId.trim(), resultRow);
+                }
+            }
+        }
+        
+        return previousResults;
+    }
+    
+    //One result row per record and account, so that results of a re-run overwrite those of earlier runs
+    private void storeBulkResults(String recordId, List<BulkTarget> targets) {
+        final String resultFormDefId = getPropertyString("bulkResultFormDefId");
+        if (resultFormDefId.isEmpty()) {
+            return;
+        }
+        
+        final String recordField = getPropertyString("bulkResultRecordField");
+        final String accountField = getPropertyString("bulkResultAccountField");
+        final String statusField = getPropertyString("bulkResultStatusField");
+        final String txIdField = getPropertyString("bulkResultTxIdField");
+        
+        FormRowSet resultRows = new FormRowSet();
+        for (BulkTarget target : targets) {
+            if (target.status == null) {
+                continue;
+            }
+            
+            FormRow resultRow = new FormRow();
+            resultRow.setId(recordId + "_" + target.accountId);
+            
+            if (!recordField.isEmpty()) {
+                resultRow.setProperty(recordField, recordId);
+            }
+            if (!accountField.isEmpty()) {
+                resultRow.setProperty(accountField, target.accountId);
+            }
+            if (!statusField.isEmpty()) {
+                resultRow.setProperty(statusField, target.status);
+            }
+            if (!txIdField.isEmpty()) {
+                resultRow.setProperty(txIdField, target.transactionId);
+            }
+            resultRows.add(resultRow);
+        }
+        
+        if (!resultRows.isEmpty()) {
+            storeFormRows(resultFormDefId, resultRows);
+        }
+    }
+    
+    private int getIntProperty(String property, int defaultValue, int minValue) {
+        try {
+            return Math.max(minValue, Integer.parseInt(getPropertyString(property)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+    
+    private PrivateKey getPrivateKey(String mnemonicString) {
+        try {
+            return AccountUtil.deriveKeyPairFromEncryptedMnemonic(
+                    WorkflowUtil.processVariable(mnemonicString, "", wfAssignment)
+            ).privateKey();
         } catch (Exception ex) {
             LogUtil.warn(getClassName(), "Unable to derive private key from mnemonic...");
             return null;
@@ -319,4 +726,30 @@ public class HederaTokenManagementTool extends HederaProcessTool {
             return null;
         }
     }
+    
+    private static final class BulkTarget {
+        
+        private final String accountId;
+        private final String previousStatus;
+        private final String previousTransactionId;
+        
+        private String status;
+        private String transactionId;
+        
+        private BulkTarget(String accountId, String previousStatus, String previousTransactionId) {
+            this.accountId = accountId;
+            this.previousStatus = previousStatus;
+            this.previousTransactionId = previousTransactionId;
+        }
+        
+        private void setStatus(String status, String transactionId) {
+            this.status = status;
+            this.transactionId = transactionId;
+        }
+    }
+    
+    /**
+     * @param transactionId ID of the submitted transaction, or null if it could not be submitted
+     */
+    private record BulkRequest(BulkTarget target, String transactionId, CompletableFuture<TransactionResult> request) {}
 }
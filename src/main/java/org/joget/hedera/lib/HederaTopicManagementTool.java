@@ -1,6 +1,5 @@
 package org.joget.hedera.lib;
 
-import com.hedera.hashgraph.sdk.Mnemonic;
 import com.hedera.hashgraph.sdk.PrecheckStatusException;
 import com.hedera.hashgraph.sdk.PrivateKey;
 import com.hedera.hashgraph.sdk.PublicKey;
@@ -10,19 +9,36 @@ import com.hedera.hashgraph.sdk.TopicDeleteTransaction;
 import com.hedera.hashgraph.sdk.TopicId;
 import com.hedera.hashgraph.sdk.TopicMessageSubmitTransaction;
 import com.hedera.hashgraph.sdk.TopicUpdateTransaction;
-import com.hedera.hashgraph.sdk.TransactionRecord;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.bouncycastle.util.encoders.Hex;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.commons.util.LogUtil;
 import org.joget.hedera.model.HederaProcessTool;
+import org.joget.hedera.model.TopicSubscription;
+import org.joget.hedera.model.TransactionResult;
 import org.joget.hedera.service.AccountUtil;
+import org.joget.hedera.service.BackendUtil;
+import org.joget.hedera.service.MerkleAnchorService;
+import org.joget.hedera.service.MerkleAnchorService.AnchorTarget;
+import org.joget.hedera.service.MerkleAnchorService.ProofFields;
+import org.joget.hedera.service.MirrorRestService;
 import org.joget.hedera.service.PluginUtil;
+import org.joget.hedera.service.TopicMessagePublisher;
+import org.joget.hedera.service.TopicSubscriptionService;
+import org.joget.workflow.model.service.WorkflowUserManager;
 import org.joget.workflow.util.WorkflowUtil;
 
 public class HederaTopicManagementTool extends HederaProcessTool {
     
+    private static final long CONFIRMATION_TIMEOUT_SECONDS = 120;
+    
     @Override
     public String getName() {
         return "Hedera Topic Management Tool";
@@ -45,15 +61,14 @@ public class HederaTopicManagementTool extends HederaProcessTool {
             throws TimeoutException, RuntimeException {
         
         try {
-            TransactionRecord transactionRecord;
+            TransactionResult transactionResult;
             
             switch (OperationType.fromString(getPropertyString("operationType"))) {
                 case SUBMIT_MESSAGE -> {
                     final TopicId topicId = TopicId.fromString(getPropertyString("topicId"));
                     final String message = getPropertyString("message");
-                    TopicMessageSubmitTransaction topicMessageSubmitTransaction = new TopicMessageSubmitTransaction()
-                            .setTopicId(topicId)
-                            .setMessage(message)
+                    TopicMessageSubmitTransaction topicMessageSubmitTransaction = TopicMessagePublisher
+                            .newTransaction(topicId, message.getBytes(StandardCharsets.UTF_8))
                             .freezeWith(client);
                     
                     if ("true".equalsIgnoreCase(getPropertyString("requireSubmitKey"))) {
@@ -64,20 +79,30 @@ public class HederaTopicManagementTool extends HederaProcessTool {
                         );
                     }
                     
-                    transactionRecord = topicMessageSubmitTransaction
-                            .execute(client)
-                            .getRecord(client);
-                    
-                    storeValuetoActivityVar(
-                            wfAssignment.getActivityId(), 
-                            getPropertyString("wfTopicCurrentSequence"), 
-                            transactionRecord.receipt.topicSequenceNumber.toString()
-                    );
-                    storeValuetoActivityVar(
-                            wfAssignment.getActivityId(), 
-                            getPropertyString("wfTopicCurrentHash"), 
-                            new String(Hex.encode(transactionRecord.receipt.topicRunningHash.toByteArray()))
+                    //Many activities may submit at once, so messages are pipelined through a shared window of unconfirmed submissions
+                    final CompletableFuture<TransactionResult> confirmation = TopicMessagePublisher.submit(
+                            client, 
+                            topicMessageSubmitTransaction, 
+                            getCompletionMode() == CompletionMode.RECORD
                     );
+                    
+                    if (getCompletionMode() == CompletionMode.ASYNC) {
+                        //Sequence number and running hash are stored once confirmed, see storeConfirmedDataToWorkflowVariable()
+                        transactionResult = TransactionResult.pending(topicMessageSubmitTransaction.getTransactionId(), confirmation);
+                    } else {
+                        transactionResult = awaitConfirmation(confirmation);
+                        
+                        storeValuetoActivityVar(
+                                wfAssignment.getActivityId(), 
+                                getPropertyString("wfTopicCurrentSequence"), 
+                                transactionResult.getReceipt().topicSequenceNumber.toString()
+                        );
+                        storeValuetoActivityVar(
+                                wfAssignment.getActivityId(), 
+                                getPropertyString("wfTopicCurrentHash"), 
+                                new String(Hex.encode(transactionResult.getReceipt().topicRunningHash.toByteArray()))
+                        );
+                    }
                 }
                 case CREATE_TOPIC -> {
                     TopicCreateTransaction topicCreateTransaction = new TopicCreateTransaction();
@@ -109,14 +134,12 @@ public class HederaTopicManagementTool extends HederaProcessTool {
                         topicCreateTransaction = topicCreateTransaction.sign(getPrivateKey(getPropertyString("adminAccountMnemonic")));
                     }
                             
-                    transactionRecord = topicCreateTransaction
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = executeTransaction(topicCreateTransaction);
                     
                     storeValuetoActivityVar(
                             wfAssignment.getActivityId(), 
                             getPropertyString("wfTopicId"), 
-                            transactionRecord.receipt.topicId.toString()
+                            transactionResult.getReceipt().topicId.toString()
                     );
                     storeValuetoActivityVar(
                             wfAssignment.getActivityId(), 
@@ -173,9 +196,7 @@ public class HederaTopicManagementTool extends HederaProcessTool {
                         topicUpdateTransaction = topicUpdateTransaction.sign(getPrivateKey(getPropertyString("newAdminAccountMnemonic")));
                     }
                     
-                    transactionRecord = topicUpdateTransaction
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(topicUpdateTransaction);
                     
                     storeValuetoActivityVar(
                             wfAssignment.getActivityId(), 
@@ -193,9 +214,81 @@ public class HederaTopicManagementTool extends HederaProcessTool {
                         topicDeleteTransaction = topicDeleteTransaction.sign(getPrivateKey(getPropertyString("adminAccountMnemonic")));
                     }
                     
-                    transactionRecord = topicDeleteTransaction
-                            .execute(client)
-                            .getRecord(client);
+                    transactionResult = submitTransaction(topicDeleteTransaction);
+                }
+                case SUBSCRIBE_TOPIC -> {
+                    final TopicId topicId = TopicId.fromString(getPropertyString("topicId"));
+                    final String username = ((WorkflowUserManager) AppUtil.getApplicationContext().getBean("workflowUserManager")).getCurrentUsername();
+                    final String backendService = (String) BackendUtil.getBackendDefaultConfig(getProperties()).get("backendService");
+                    
+                    TopicSubscriptionService.subscribe(new TopicSubscription(
+                            appDef.getAppId(), 
+                            appDef.getVersion().toString(), 
+                            topicId.toString(), 
+                            getPropertyString("subscriptionProcessDefId"), 
+                            username, 
+                            (backendService == null || backendService.isEmpty()) ? MirrorRestService.DEFAULT_REST_SERVICE : backendService, 
+                            client.getLedgerId().toString(), 
+                            "perBatch".equalsIgnoreCase(getPropertyString("subscriptionDispatchMode")), 
+                            "beginning".equalsIgnoreCase(getPropertyString("subscriptionStartFrom")), 
+                            getPropertyString("wfSubscriptionMessage"), 
+                            getPropertyString("wfSubscriptionSequenceNumber"), 
+                            getPropertyString("wfSubscriptionConsensusTimestamp")
+                    ));
+                    
+                    //No transaction is sent to subscribe
+                    return null;
+                }
+                case UNSUBSCRIBE_TOPIC -> {
+                    final TopicId topicId = TopicId.fromString(getPropertyString("topicId"));
+                    
+                    TopicSubscriptionService.unsubscribe(appDef.getAppId(), topicId.toString());
+                    
+                    return null;
+                }
+                case ANCHOR_RECORD -> {
+                    final TopicId topicId = TopicId.fromString(getPropertyString("topicId"));
+                    final String recordId = getPropertyString("anchorRecordId");
+                    final String recordHash = PluginUtil.getTextHashSha256(getPropertyString("anchorData"));
+                    
+                    PrivateKey submitKey = null;
+                    if ("true".equalsIgnoreCase(getPropertyString("requireSubmitKey"))) {
+                        submitKey = PrivateKey.fromStringDER(PluginUtil.decrypt(
+                                WorkflowUtil.processVariable(getPropertyString("submitKey"), "", wfAssignment)
+                        ));
+                    }
+                    
+                    MerkleAnchorService.add(
+                            new AnchorTarget(
+                                    appDef.getAppId(), 
+                                    appDef.getVersion().toString(), 
+                                    topicId.toString(), 
+                                    getPropertyString("anchorProofFormDefId"), 
+                                    new ProofFields(
+                                            getPropertyString("anchorHashField"), 
+                                            getPropertyString("anchorRootField"), 
+                                            getPropertyString("anchorProofField"), 
+                                            getPropertyString("anchorSequenceNumberField"), 
+                                            getPropertyString("anchorTransactionIdField"), 
+                                            getPropertyString("anchorStatusField")
+                                    ), 
+                                    new HashMap(props), 
+                                    submitKey, 
+                                    Integer.parseInt(getPropertyString("anchorBatchSize")), 
+                                    Long.parseLong(getPropertyString("anchorWindowSeconds"))
+                            ), 
+                            (recordId == null || recordId.isBlank()) ? getOriginProcessId() : recordId, 
+                            recordHash
+                    );
+                    
+                    storeValuetoActivityVar(
+                            wfAssignment.getActivityId(), 
+                            getPropertyString("wfAnchorHash"), 
+                            recordHash
+                    );
+                    
+                    //The root is submitted once the batch is full or its window ends, and the proof is stored to the form then
+                    return null;
                 }
                 default -> {
                     LogUtil.warn(getClassName(), "Unknown topic management operation type!");
@@ -203,25 +296,44 @@ public class HederaTopicManagementTool extends HederaProcessTool {
                 }
             }
             
-            storeGenericTxDataToWorkflowVariable(transactionRecord);
+            storeGenericTxDataToWorkflowVariable(transactionResult);
             
-            return transactionRecord;
-        } catch (PrecheckStatusException | ReceiptStatusException e) {
+            return transactionResult;
+        } catch (PrecheckStatusException | ReceiptStatusException | IOException e) {
             throw new RuntimeException(e.getClass().getName() + " : " + e.getMessage());
         }
     }
     
     
     
+    @Override
+    protected void storeConfirmedDataToWorkflowVariable(String processId, TransactionResult transactionResult) {
+        storeValuetoProcessVar(processId, getPropertyString("wfTopicCurrentSequence"), transactionResult.getReceipt().topicSequenceNumber.toString());
+        storeValuetoProcessVar(processId, getPropertyString("wfTopicCurrentHash"), new String(Hex.encode(transactionResult.getReceipt().topicRunningHash.toByteArray())));
+    }
+    
+    private TransactionResult awaitConfirmation(CompletableFuture<TransactionResult> confirmation) 
+            throws TimeoutException {
+        
+        try {
+            return confirmation.get(CONFIRMATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for topic message confirmation");
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof TimeoutException timeoutException) {
+                throw timeoutException;
+            }
+            throw new RuntimeException(cause.getClass().getName() + " : " + cause.getMessage());
+        }
+    }
+    
     private PublicKey getPublicKey(String mnemonicString) {
         try {
-            return AccountUtil.derivePublicKeyFromMnemonic(
-                    Mnemonic.fromString(
-                            PluginUtil.decrypt(
-                                    WorkflowUtil.processVariable(mnemonicString, "", wfAssignment)
-                            )
-                    )
-            );
+            return AccountUtil.deriveKeyPairFromEncryptedMnemonic(
+                    WorkflowUtil.processVariable(mnemonicString, "", wfAssignment)
+            ).publicKey();
         } catch (Exception ex) {
             LogUtil.warn(getClassName(), "Unable to derive private key from mnemonic...");
             return null;
@@ -230,13 +342,9 @@ public class HederaTopicManagementTool extends HederaProcessTool {
     
     private PrivateKey getPrivateKey(String mnemonicString) {
         try {
-            return AccountUtil.derivePrivateKeyFromMnemonic(
-                    Mnemonic.fromString(
-                            PluginUtil.decrypt(
-                                    WorkflowUtil.processVariable(mnemonicString, "", wfAssignment)
-                            )
-                    )
-            );
+            return AccountUtil.deriveKeyPairFromEncryptedMnemonic(
+                    WorkflowUtil.processVariable(mnemonicString, "", wfAssignment)
+            ).privateKey();
         } catch (Exception ex) {
             LogUtil.warn(getClassName(), "Unable to derive private key from mnemonic...");
             return null;
@@ -247,7 +355,10 @@ public class HederaTopicManagementTool extends HederaProcessTool {
         SUBMIT_MESSAGE("submitMessage"),
         CREATE_TOPIC("createTopic"),
         UPDATE_TOPIC("updateTopic"),
-        DELETE_TOPIC("deleteTopic");
+        DELETE_TOPIC("deleteTopic"),
+        SUBSCRIBE_TOPIC("subscribeTopic"),
+        UNSUBSCRIBE_TOPIC("unsubscribeTopic"),
+        ANCHOR_RECORD("anchorRecord");
         
         private final String value;
         
@@ -6,101 +6,87 @@ import java.util.ArrayList;
 import java.util.Collection;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.commons.util.LogUtil;
+import org.joget.hedera.model.HashVariableAttribute;
+import org.joget.hedera.model.HashVariableKey;
+import org.joget.hedera.model.HashVariableKeyParser;
 import org.joget.hedera.model.HederaHashVariable;
-import org.joget.hedera.service.MirrorRestService;
 import org.joget.hedera.service.PluginUtil;
 import org.json.JSONObject;
-import com.hedera.hashgraph.sdk.Client;
 import com.hedera.hashgraph.sdk.Hbar;
 import com.hedera.hashgraph.sdk.HbarUnit;
-import java.text.SimpleDateFormat;
-import javax.servlet.http.HttpServletRequest;
-import org.joget.workflow.util.WorkflowUtil;
+import com.hedera.hashgraph.sdk.LedgerId;
 import org.json.JSONArray;
 
 public class HederaAccountHashVariable extends HederaHashVariable {
 
+    private static final HashVariableKeyParser<Attribute> KEY_PARSER = new HashVariableKeyParser<>(Attribute.class, "account", AccountId::fromString, true);
+    
     @Override
-    protected String processHashVariable(Client client, String variableKey) {
-        if (!variableKey.contains("[") || !variableKey.contains("]")) {
+    protected String processHashVariable(LedgerId ledgerId, String variableKey) {
+        final HashVariableKey<Attribute> key = KEY_PARSER.parse(variableKey);
+        if (key == null) {
             return null;
         }
         
-        // Retrieve Account ID from variableKey
-        final String accountID = variableKey.substring(variableKey.indexOf("[") + 1, variableKey.indexOf("]"));
+        final String accountID = key.entityId();
+        final Attribute attribute = key.attribute();
         
-        // Check for valid Account ID before proceeding
-        try {
-            AccountId.fromString(accountID);
-        } catch (Exception e) {
-            LogUtil.debug(getClassName(), "Invalid account ID of --> " + accountID);
+        // Token balance requires a token ID (e.g. tokenBalance[0.0.456])
+        final String tokenID = key.subId();
+        if (attribute == Attribute.TOKEN_BALANCE && !key.hasSubId()) {
             return null;
         }
         
-        variableKey = variableKey.replace("[" + accountID + "]", "");
-
-        // Retrieve Token ID if exist in variableKey
-        String tokenID = "";
-        if (variableKey.toLowerCase().contains("tokenbalance")) {
-            if (!variableKey.contains("[") || !variableKey.contains("]")) {
-                return null;
-            }
-            tokenID = variableKey.substring(variableKey.lastIndexOf("[") + 1, variableKey.lastIndexOf("]"));
-            variableKey = variableKey.replace("[" + tokenID + "]", "");
-        }
-        
-        final String attribute = variableKey.replace(".", "");
-
-        final JSONObject jsonResponse = getData(client, accountID);
+        final JSONObject jsonResponse = getData(ledgerId, accountID);
         
         if (jsonResponse.has("_status") && jsonResponse.getJSONObject("_status").getJSONArray("messages").getJSONObject(0).getString("message").equals("Not found")) {
             return "Account ID does not exist";
         }
 
         try {
-            return switch (attribute.toLowerCase()) {
-                case "evmaddress" -> jsonResponse.getString("evm_address");
-                case "accountmemo" -> jsonResponse.getString("memo");
-                case "isaccountdeleted" -> String.valueOf(jsonResponse.getBoolean("deleted"));
-                case "receiversignaturerequired" -> String.valueOf(jsonResponse.getBoolean("receiver_sig_required"));
-                case "maxautotokenassociations" -> String.valueOf(jsonResponse.getInt("max_automatic_token_associations"));
-                case "declinereward" -> String.valueOf(jsonResponse.getBoolean("decline_reward"));
-                case "ethereumnonce" -> String.valueOf(jsonResponse.getInt("ethereum_nonce"));
-                case "autorenewperiod" -> epochRenewPeriod(String.valueOf(jsonResponse.getInt("auto_renew_period")));
-                case "createdtimestamp" -> epochTimetoDate(jsonResponse.getString("created_timestamp"));
-                case "expirytimestamp" -> epochTimetoDate(jsonResponse.getString("expiry_timestamp"));
-                case "publickeytype" -> jsonResponse.getJSONObject("key").getString("_type");
-                case "publickey" -> jsonResponse.getJSONObject("key").getString("key");
-                case "pendingreward" -> String.valueOf(jsonResponse.getInt("pending_reward"));
-                case "alltokens" -> String.valueOf(jsonResponse.getJSONObject("balance").getJSONArray("tokens"));
-                case "hbarbalance" ->
+            return switch (attribute) {
+                case EVM_ADDRESS -> jsonResponse.getString("evm_address");
+                case ACCOUNT_MEMO -> jsonResponse.getString("memo");
+                case IS_ACCOUNT_DELETED -> String.valueOf(jsonResponse.getBoolean("deleted"));
+                case RECEIVER_SIGNATURE_REQUIRED -> String.valueOf(jsonResponse.getBoolean("receiver_sig_required"));
+                case MAX_AUTO_TOKEN_ASSOCIATIONS -> String.valueOf(jsonResponse.getInt("max_automatic_token_associations"));
+                case DECLINE_REWARD -> String.valueOf(jsonResponse.getBoolean("decline_reward"));
+                case ETHEREUM_NONCE -> String.valueOf(jsonResponse.getInt("ethereum_nonce"));
+                case AUTO_RENEW_PERIOD -> epochRenewPeriod(String.valueOf(jsonResponse.getInt("auto_renew_period")));
+                case CREATED_TIMESTAMP -> formatMirrorTimestamp(jsonResponse.getString("created_timestamp"));
+                case EXPIRY_TIMESTAMP -> formatMirrorTimestamp(jsonResponse.getString("expiry_timestamp"));
+                case PUBLIC_KEY_TYPE -> jsonResponse.getJSONObject("key").getString("_type");
+                case PUBLIC_KEY -> jsonResponse.getJSONObject("key").getString("key");
+                case PENDING_REWARD -> String.valueOf(jsonResponse.getInt("pending_reward"));
+                case ALL_TOKENS -> String.valueOf(jsonResponse.getJSONObject("balance").getJSONArray("tokens"));
+                case HBAR_BALANCE ->
                     Hbar.from(jsonResponse.getJSONObject("balance").getBigDecimal("balance"), HbarUnit.TINYBAR)
                             .toString(HbarUnit.HBAR);
-                case "allowances" -> 
+                case ALLOWANCES -> 
                     jsonResponse.has("allowances") && !jsonResponse.isNull("allowances")
                             ? jsonResponse.getString("allowances")
                             : "Does Not Exist";
-                case "alias" -> 
+                case ALIAS -> 
                     jsonResponse.has("alias") && !jsonResponse.isNull("alias")
                             ? jsonResponse.getString("alias")
                             : "Does Not Exist";
-                case "rewards" -> 
+                case REWARDS -> 
                     jsonResponse.has("rewards") && !jsonResponse.isNull("rewards")
                             ? jsonResponse.getString("rewards")
                             : "Does Not Exist";
-                case "stakedaccountid" ->
+                case STAKED_ACCOUNT_ID ->
                     jsonResponse.has("staked_account_id") && !jsonResponse.isNull("staked_account_id")
                             ? jsonResponse.getString("staked_account_id")
                             : "Does Not Exist";
-                case "stakednodeid" -> 
+                case STAKED_NODE_ID -> 
                     jsonResponse.has("staked_node_id") && !jsonResponse.isNull("staked_node_id")
                             ? jsonResponse.getString("staked_node_id")
                             : "Does Not Exist";
-                case "stakeperiodstart" ->
+                case STAKE_PERIOD_START ->
                     jsonResponse.has("staked_period_start") && !jsonResponse.isNull("staked_period_start")
                             ? jsonResponse.getString("staked_period_start")
                             : "Does Not Exist";
-                case "tokenbalance" -> {
+                case TOKEN_BALANCE -> {
                     JSONArray accountTokens = jsonResponse.getJSONObject("balance").getJSONArray("tokens");
 
                     for (int i = 0; i < accountTokens.length(); i++) {
@@ -112,10 +98,9 @@ public class HederaAccountHashVariable extends HederaHashVariable {
 
                     yield "Does Not Exist";
                 }
-                default -> null;
             };
         } catch (Exception e) {
-            LogUtil.error(getClassName(), e, "Error retrieving account attribute " + attribute);
+            LogUtil.error(getClassName(), e, "Error retrieving account attribute " + attribute.getKey());
         }
 
         return null;
@@ -137,33 +122,44 @@ public class HederaAccountHashVariable extends HederaHashVariable {
         return null;
     }
 
-    private String epochTimetoDate(String epochTime) {
-        try {
-            if (epochTime.contains(".")) {
-                return new SimpleDateFormat("dd-MM-yyyy hh:mm:ss a z")
-                        .format(new java.util.Date((long) Double.parseDouble(epochTime) * 1000))
-                        .toUpperCase();
-            }
-        } catch (Exception e) {
-            LogUtil.error(getClassName(), e, "Epoch Time Error " + epochTime);
-        }
-
-        return null;
+    private JSONObject getData(LedgerId ledgerId, String accountId) {
+        return getMirrorData(ledgerId, accountId + "-accountHashVar", "accounts/" + accountId);
     }
-
-    //If same value already loaded on the existing context, read from cached request instead
-    private JSONObject getData(Client client, String accountId) {
-        final HttpServletRequest request = WorkflowUtil.getHttpServletRequest();
-        final String attrKey = accountId + "-accountHashVar";
+    
+    private enum Attribute implements HashVariableAttribute {
+        EVM_ADDRESS("evmAddress"),
+        ACCOUNT_MEMO("accountMemo"),
+        IS_ACCOUNT_DELETED("isAccountDeleted"),
+        RECEIVER_SIGNATURE_REQUIRED("receiverSignatureRequired"),
+        MAX_AUTO_TOKEN_ASSOCIATIONS("maxAutoTokenAssociations"),
+        DECLINE_REWARD("declineReward"),
+        ETHEREUM_NONCE("ethereumNonce"),
+        AUTO_RENEW_PERIOD("autoRenewPeriod"),
+        CREATED_TIMESTAMP("createdTimestamp"),
+        EXPIRY_TIMESTAMP("expiryTimestamp"),
+        PUBLIC_KEY_TYPE("publicKeyType"),
+        PUBLIC_KEY("publicKey"),
+        PENDING_REWARD("pendingReward"),
+        ALL_TOKENS("allTokens"),
+        HBAR_BALANCE("hbarBalance"),
+        ALLOWANCES("allowances"),
+        ALIAS("alias"),
+        REWARDS("rewards"),
+        STAKED_ACCOUNT_ID("stakedAccountID"),
+        STAKED_NODE_ID("stakedNodeID"),
+        STAKE_PERIOD_START("stakePeriodStart"),
+        TOKEN_BALANCE("tokenBalance");
         
-        if (request.getAttribute(attrKey) != null) {
-            return (JSONObject) request.getAttribute(attrKey);
-        }
+        private final String key;
         
-        JSONObject jsonResponse = new MirrorRestService(getProperties(), client.getLedgerId()).getAccountData(accountId);
-        request.setAttribute(attrKey, jsonResponse);
+        Attribute(String key) {
+            this.key = key;
+        }
         
-        return jsonResponse;
+        @Override
+        public String getKey() {
+            return key;
+        }
     }
     
     @Override
@@ -1,42 +1,33 @@
 package org.joget.hedera.lib.hashvariable;
 
-import com.hedera.hashgraph.sdk.Client;
+import com.hedera.hashgraph.sdk.LedgerId;
 import com.hedera.hashgraph.sdk.ScheduleId;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Date;
-import javax.servlet.http.HttpServletRequest;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.commons.util.LogUtil;
+import org.joget.hedera.model.HashVariableAttribute;
+import org.joget.hedera.model.HashVariableKey;
+import org.joget.hedera.model.HashVariableKeyParser;
 import org.joget.hedera.model.HederaHashVariable;
-import org.joget.hedera.service.MirrorRestService;
 import org.joget.hedera.service.PluginUtil;
-import org.joget.workflow.util.WorkflowUtil;
 import org.json.JSONObject;
 
 public class HederaScheduleHashVariable extends HederaHashVariable {
     
+    private static final HashVariableKeyParser<Attribute> KEY_PARSER = new HashVariableKeyParser<>(Attribute.class, "schedule", ScheduleId::fromString, false);
+    
     @Override
-    protected String processHashVariable(Client client, String variableKey) {
-        if (!variableKey.contains("[") || !variableKey.contains("]")) {
-            return null;
-        }
-        
-        // Retrieve Schedule ID from variableKey
-        final String scheduleId = variableKey.substring(variableKey.indexOf("[") + 1, variableKey.indexOf("]"));
-        
-        // Check for valid Schedule ID before proceeding
-        try {
-            ScheduleId.fromString(scheduleId);
-        } catch (Exception e) {
-            LogUtil.debug(getClassName(), "Invalid schedule ID of --> " + scheduleId);
+    protected String processHashVariable(LedgerId ledgerId, String variableKey) {
+        final HashVariableKey<Attribute> key = KEY_PARSER.parse(variableKey);
+        if (key == null) {
             return null;
         }
         
-        final String attribute = variableKey.replace("[" + scheduleId + "]", "").replace(".", "");
+        final String scheduleId = key.entityId();
+        final Attribute attribute = key.attribute();
         
-        final JSONObject jsonResponse = getData(client, scheduleId);
+        final JSONObject jsonResponse = getData(ledgerId, scheduleId);
         
         if (jsonResponse.has("_status") && jsonResponse.getJSONObject("_status").getJSONArray("messages").getJSONObject(0).getString("message").equals("Not found")) {
             return "Scheduled transaction does not exist";
@@ -44,60 +35,61 @@ public class HederaScheduleHashVariable extends HederaHashVariable {
         
         try {
             return switch (attribute) {
-                case "adminKey" -> 
+                case ADMIN_KEY -> 
                     !jsonResponse.isNull("admin_key")
                             ? String.valueOf(jsonResponse.getJSONObject("admin_key"))
                             : "none";
-                case "consensusTimestamp" -> epochTimeToDate(jsonResponse.getString("consensus_timestamp"));
-                case "creatorAccountId" -> jsonResponse.getString("creator_account_id");
-                case "isDeleted" -> String.valueOf(jsonResponse.getBoolean("deleted"));
-                case "executedTimestamp" -> 
+                case CONSENSUS_TIMESTAMP -> formatMirrorTimestamp(jsonResponse.getString("consensus_timestamp"));
+                case CREATOR_ACCOUNT_ID -> jsonResponse.getString("creator_account_id");
+                case IS_DELETED -> String.valueOf(jsonResponse.getBoolean("deleted"));
+                case EXECUTED_TIMESTAMP -> 
                     !jsonResponse.isNull("executed_timestamp")
-                            ? epochTimeToDate(jsonResponse.getString("executed_timestamp"))
+                            ? formatMirrorTimestamp(jsonResponse.getString("executed_timestamp"))
                             : "none";
-                case "expirationTime" -> 
+                case EXPIRATION_TIME -> 
                     !jsonResponse.isNull("expiration_time")
-                            ? epochTimeToDate(jsonResponse.getString("expiration_time"))
+                            ? formatMirrorTimestamp(jsonResponse.getString("expiration_time"))
                             : "none";
-                case "memo" -> jsonResponse.getString("memo");
-                case "payerAccountId" -> jsonResponse.getString("payer_account_id");
-                case "signatures" -> String.valueOf(jsonResponse.getJSONArray("signatures"));
-                case "transactionBody" -> jsonResponse.getString("transaction_body");
-                case "waitForExpiry" -> String.valueOf(jsonResponse.getBoolean("wait_for_expiry"));
-                default -> null;
+                case MEMO -> jsonResponse.getString("memo");
+                case PAYER_ACCOUNT_ID -> jsonResponse.getString("payer_account_id");
+                case SIGNATURES -> String.valueOf(jsonResponse.getJSONArray("signatures"));
+                case TRANSACTION_BODY -> jsonResponse.getString("transaction_body");
+                case WAIT_FOR_EXPIRY -> String.valueOf(jsonResponse.getBoolean("wait_for_expiry"));
             };
         } catch (Exception e) {
-            LogUtil.error(getClassName(), e, "Error retrieving schedule attribute " + attribute);
+            LogUtil.error(getClassName(), e, "Error retrieving schedule attribute " + attribute.getKey());
         }
         
         return null;
     }
     
-    private String epochTimeToDate(String epochTime) {
-        try {
-            return new SimpleDateFormat("dd-MM-yyyy hh:mm:ss a z")
-                    .format(new Date((long) Double.parseDouble(epochTime) * 1000))
-                    .toUpperCase();
-        } catch (Exception e) {
-            LogUtil.error(getClassName(), e, "Epoch Time Error " + epochTime);
-        }
-
-        return null;
+    private JSONObject getData(LedgerId ledgerId, String scheduleId) {
+        return getMirrorData(ledgerId, scheduleId + "-scheduleHashVar", "schedules/" + scheduleId);
     }
     
-    //If same value already loaded on the existing context, read from cached request instead
-    private JSONObject getData(Client client, String scheduleId) {
-        final HttpServletRequest request = WorkflowUtil.getHttpServletRequest();
-        final String attrKey = scheduleId + "-scheduleHashVar";
+    private enum Attribute implements HashVariableAttribute {
+        ADMIN_KEY("adminKey"),
+        CONSENSUS_TIMESTAMP("consensusTimestamp"),
+        CREATOR_ACCOUNT_ID("creatorAccountId"),
+        IS_DELETED("isDeleted"),
+        EXECUTED_TIMESTAMP("executedTimestamp"),
+        EXPIRATION_TIME("expirationTime"),
+        MEMO("memo"),
+        PAYER_ACCOUNT_ID("payerAccountId"),
+        SIGNATURES("signatures"),
+        TRANSACTION_BODY("transactionBody"),
+        WAIT_FOR_EXPIRY("waitForExpiry");
         
-        if (request.getAttribute(attrKey) != null) {
-            return (JSONObject) request.getAttribute(attrKey);
-        }
+        private final String key;
         
-        JSONObject jsonResponse = new MirrorRestService(getProperties(), client.getLedgerId()).getScheduleData(scheduleId);
-        request.setAttribute(attrKey, jsonResponse);
+        Attribute(String key) {
+            this.key = key;
+        }
         
-        return jsonResponse;
+        @Override
+        public String getKey() {
+            return key;
+        }
     }
     
     @Override
@@ -1,70 +1,51 @@
 package org.joget.hedera.lib.hashvariable;
 
-import com.hedera.hashgraph.sdk.Client;
+import com.hedera.hashgraph.sdk.LedgerId;
 import com.hedera.hashgraph.sdk.TokenId;
-import java.text.SimpleDateFormat;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
-import java.util.Date;
-import java.util.concurrent.TimeUnit;
-import javax.servlet.http.HttpServletRequest;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.commons.util.LogUtil;
+import org.joget.hedera.model.HashVariableAttribute;
+import org.joget.hedera.model.HashVariableKey;
+import org.joget.hedera.model.HashVariableKeyParser;
 import org.joget.hedera.model.HederaHashVariable;
-import org.joget.hedera.service.MirrorRestService;
 import org.joget.hedera.service.PluginUtil;
 import org.joget.hedera.service.TransactionUtil;
-import org.joget.workflow.util.WorkflowUtil;
 import org.json.JSONObject;
 
 public class HederaTokenHashVariable extends HederaHashVariable {
     
+    private static final HashVariableKeyParser<Attribute> KEY_PARSER = new HashVariableKeyParser<>(Attribute.class, "token", TokenId::fromString, false);
+    
     @Override
-    protected String processHashVariable(Client client, String variableKey) {
-        if (!variableKey.contains("[") || !variableKey.contains("]")) {
+    protected String processHashVariable(LedgerId ledgerId, String variableKey) {
+        final HashVariableKey<Attribute> key = KEY_PARSER.parse(variableKey);
+        if (key == null) {
             return null;
         }
         
-        // Retrieve Token ID from variableKey
-        final String tokenId = variableKey.substring(variableKey.indexOf("[") + 1, variableKey.indexOf("]"));
+        final String tokenId = key.entityId();
+        final Attribute attribute = key.attribute();
         
-        // Check for valid Token ID before proceeding
-        try {
-            TokenId.fromString(tokenId);
-        } catch (Exception e) {
-            LogUtil.debug(getClassName(), "Invalid token ID of --> " + tokenId);
-            return null;
-        }
-        
-        variableKey = variableKey.replace("[" + tokenId + "].", "");
-        
-        // Retrieve Sequence Number if exist in variableKey
-        String nftSerialNumber = "";
-        if (variableKey.startsWith("nft")) {
-            if (!variableKey.contains("[") || !variableKey.contains("]")) {
-                return null;
-            }
-            nftSerialNumber = variableKey.substring(variableKey.lastIndexOf("[") + 1, variableKey.lastIndexOf("]"));
-            if (nftSerialNumber.isBlank() || !nftSerialNumber.chars().allMatch(Character::isDigit)) {
+        JSONObject jsonResponse;
+        if (attribute.isNftAttribute()) {
+            // NFT attributes require a serial number (e.g. nft[1].metadata)
+            final String nftSerialNumber = key.subId();
+            if (!key.hasSubId() || !nftSerialNumber.chars().allMatch(Character::isDigit)) {
                 return null;
             }
             
-            variableKey = variableKey.replace("[" + nftSerialNumber + "]", "");
-        }
-        
-        final String attribute = variableKey;
-        
-        JSONObject jsonResponse;
-        if (attribute.startsWith("nft")) {
-            jsonResponse = getNftData(client, tokenId, nftSerialNumber);
+            jsonResponse = getNftData(ledgerId, tokenId, nftSerialNumber);
             
             if (jsonResponse.has("_status") && jsonResponse.getJSONObject("_status").getJSONArray("messages").getJSONObject(0).getString("message").equals("Not found")) {
                 return "NFT does not exist";
             }
         } else {
-            jsonResponse = getTokenData(client, tokenId);
+            jsonResponse = getTokenData(ledgerId, tokenId);
             
             if (jsonResponse.has("_status") && jsonResponse.getJSONObject("_status").getJSONArray("messages").getJSONObject(0).getString("message").equals("Not found")) {
                 return "Token ID does not exist";
@@ -73,94 +54,93 @@ public class HederaTokenHashVariable extends HederaHashVariable {
         
         try {
             return switch (attribute) {
-                case "adminKey" -> 
+                case ADMIN_KEY -> 
                     !jsonResponse.isNull("admin_key")
                             ? String.valueOf(jsonResponse.getJSONObject("admin_key"))
                             : "none";
-                case "autoRenewAccount" -> jsonResponse.getString("auto_renew_account");
-                case "autoRenewPeriod" -> epochTimeToDays(jsonResponse.getInt("auto_renew_period"));
-                case "createdTimestamp" -> epochTimeToDate(jsonResponse.getString("created_timestamp"));
-                case "isDeleted" -> String.valueOf(jsonResponse.getBoolean("deleted"));
-                case "decimals" -> jsonResponse.getString("decimals");
-                case "expiryTimestamp" -> epochNanosecondsToDate(String.valueOf(jsonResponse.getLong("expiry_timestamp")));
-                case "feeScheduleKey" -> 
+                case AUTO_RENEW_ACCOUNT -> jsonResponse.getString("auto_renew_account");
+                case AUTO_RENEW_PERIOD -> epochTimeToDays(jsonResponse.getInt("auto_renew_period"));
+                case CREATED_TIMESTAMP -> formatMirrorTimestamp(jsonResponse.getString("created_timestamp"));
+                case IS_DELETED -> String.valueOf(jsonResponse.getBoolean("deleted"));
+                case DECIMALS -> jsonResponse.getString("decimals");
+                case EXPIRY_TIMESTAMP -> formatTimestamp(Instant.ofEpochSecond(0, jsonResponse.getLong("expiry_timestamp")));
+                case FEE_SCHEDULE_KEY -> 
                     !jsonResponse.isNull("fee_schedule_key")
                             ? String.valueOf(jsonResponse.getJSONObject("fee_schedule_key"))
                             : "none";
-                case "isFreezeByDefault" -> String.valueOf(jsonResponse.getBoolean("freeze_default"));
-                case "freezeKey" -> 
+                case IS_FREEZE_BY_DEFAULT -> String.valueOf(jsonResponse.getBoolean("freeze_default"));
+                case FREEZE_KEY -> 
                     !jsonResponse.isNull("freeze_key")
                             ? String.valueOf(jsonResponse.getJSONObject("freeze_key"))
                             : "none";
-                case "initialSupply" -> 
+                case INITIAL_SUPPLY -> 
                     String.valueOf(
                             TransactionUtil.deriveTokenAmountBasedOnDecimals(
                                     Long.parseLong(jsonResponse.getString("initial_supply")), 
                                     Integer.parseInt(jsonResponse.getString("decimals"))
                             )
                     );
-                case "kycKey" -> 
+                case KYC_KEY -> 
                     !jsonResponse.isNull("kyc_key")
                             ? String.valueOf(jsonResponse.getJSONObject("kyc_key"))
                             : "none";
-                case "maxSupply" -> 
+                case MAX_SUPPLY -> 
                     !(jsonResponse.getString("supply_type")).equalsIgnoreCase("INFINITE")
                             ? jsonResponse.getString("max_supply")
                             : "no limit";
-                case "memo" -> jsonResponse.getString("memo");
-                case "modifiedTimestamp" -> epochTimeToDate(jsonResponse.getString("modified_timestamp"));
-                case "name" -> jsonResponse.getString("name");
-                case "pauseKey" -> 
+                case MEMO -> jsonResponse.getString("memo");
+                case MODIFIED_TIMESTAMP -> formatMirrorTimestamp(jsonResponse.getString("modified_timestamp"));
+                case NAME -> jsonResponse.getString("name");
+                case PAUSE_KEY -> 
                     !jsonResponse.isNull("pause_key")
                             ? String.valueOf(jsonResponse.getJSONObject("pause_key"))
                             : "none";
-                case "pauseStatus" -> jsonResponse.getString("pause_status");
-                case "supplyKey" -> 
+                case PAUSE_STATUS -> jsonResponse.getString("pause_status");
+                case SUPPLY_KEY -> 
                     !jsonResponse.isNull("supply_key")
                             ? String.valueOf(jsonResponse.getJSONObject("supply_key"))
                             : "none";
-                case "supplyType" -> jsonResponse.getString("supply_type");
-                case "symbol" -> jsonResponse.getString("symbol");
-                case "totalSupply" -> 
+                case SUPPLY_TYPE -> jsonResponse.getString("supply_type");
+                case SYMBOL -> jsonResponse.getString("symbol");
+                case TOTAL_SUPPLY -> 
                     String.valueOf(
                             TransactionUtil.deriveTokenAmountBasedOnDecimals(
                                     Long.parseLong(jsonResponse.getString("total_supply")), 
                                     Integer.parseInt(jsonResponse.getString("decimals"))
                             )
                     );
-                case "treasuryAccountId" -> jsonResponse.getString("treasury_account_id");
-                case "type" -> jsonResponse.getString("type");
-                case "wipeKey" -> 
+                case TREASURY_ACCOUNT_ID -> jsonResponse.getString("treasury_account_id");
+                case TYPE -> jsonResponse.getString("type");
+                case WIPE_KEY -> 
                     !jsonResponse.isNull("wipe_key")
                             ? String.valueOf(jsonResponse.getJSONObject("wipe_key"))
                             : "none";
-                case "customFees.createdTimestamp" -> epochTimeToDate(jsonResponse.getJSONObject("custom_fees").getString("created_timestamp"));
-                case "customFees.fixedFees" -> String.valueOf(jsonResponse.getJSONObject("custom_fees").getJSONArray("fixed_fees"));
-                case "customFees.fractionalFees" -> 
+                case CUSTOM_FEES_CREATED_TIMESTAMP -> formatMirrorTimestamp(jsonResponse.getJSONObject("custom_fees").getString("created_timestamp"));
+                case CUSTOM_FEES_FIXED_FEES -> String.valueOf(jsonResponse.getJSONObject("custom_fees").getJSONArray("fixed_fees"));
+                case CUSTOM_FEES_FRACTIONAL_FEES -> 
                     jsonResponse.getJSONObject("custom_fees").has("fractional_fees")
                             ? String.valueOf(jsonResponse.getJSONObject("custom_fees").getJSONArray("fractional_fees"))
                             : "not applicable";
-                case "customFees.royaltyFees" -> 
+                case CUSTOM_FEES_ROYALTY_FEES -> 
                     jsonResponse.getJSONObject("custom_fees").has("royalty_fees")
                             ? String.valueOf(jsonResponse.getJSONObject("custom_fees").getJSONArray("royalty_fees"))
                             : "not applicable";
-                case "nft.accountId" -> jsonResponse.getString("account_id");
-                case "nft.createdTimestamp" -> epochTimeToDate(jsonResponse.getString("created_timestamp"));
-                case "nft.delegatingSpender" -> 
+                case NFT_ACCOUNT_ID -> jsonResponse.getString("account_id");
+                case NFT_CREATED_TIMESTAMP -> formatMirrorTimestamp(jsonResponse.getString("created_timestamp"));
+                case NFT_DELEGATING_SPENDER -> 
                     !jsonResponse.isNull("delegating_spender")
                             ? jsonResponse.getString("delegating_spender")
                             : "none";
-                case "nft.isDeleted" -> String.valueOf(jsonResponse.getBoolean("deleted"));
-                case "nft.metadata" -> new String(Base64.getDecoder().decode(jsonResponse.getString("metadata")));
-                case "nft.modifiedTimestamp" -> epochTimeToDate(jsonResponse.getString("modified_timestamp"));
-                case "nft.spender" -> 
+                case NFT_IS_DELETED -> String.valueOf(jsonResponse.getBoolean("deleted"));
+                case NFT_METADATA -> new String(Base64.getDecoder().decode(jsonResponse.getString("metadata")));
+                case NFT_MODIFIED_TIMESTAMP -> formatMirrorTimestamp(jsonResponse.getString("modified_timestamp"));
+                case NFT_SPENDER -> 
                     !jsonResponse.isNull("spender")
                             ? jsonResponse.getString("spender")
                             : "none";
-                default -> null;
             };
         } catch (Exception e) {
-            LogUtil.error(getClassName(), e, "Error retrieving token attribute " + attribute);
+            LogUtil.error(getClassName(), e, "Error retrieving token attribute " + attribute.getKey());
         }
         
         return null;
@@ -176,58 +156,66 @@ public class HederaTokenHashVariable extends HederaHashVariable {
         return null;
     }
     
-    private String epochTimeToDate(String epochTime) {
-        try {
-            return new SimpleDateFormat("dd-MM-yyyy hh:mm:ss a z")
-                    .format(new Date((long) Double.parseDouble(epochTime) * 1000))
-                    .toUpperCase();
-        } catch (Exception e) {
-            LogUtil.error(getClassName(), e, "Epoch Time Error " + epochTime);
-        }
-
-        return null;
+    private JSONObject getTokenData(LedgerId ledgerId, String tokenId) {
+        return getMirrorData(ledgerId, tokenId + "-tokenHashVar", "tokens/" + tokenId);
     }
     
-    private String epochNanosecondsToDate(String epochTime) {
-        try {
-            return new SimpleDateFormat("dd-MM-yyyy hh:mm:ss a z")
-                    .format(new Date(TimeUnit.NANOSECONDS.toMillis(Long.parseLong(epochTime))))
-                    .toUpperCase();
-        } catch (Exception e) {
-            LogUtil.error(getClassName(), e, "Epoch Time Error " + epochTime);
-        }
-
-        return null;
+    private JSONObject getNftData(LedgerId ledgerId, String tokenId, String nftSerialNumber) {
+        return getMirrorData(ledgerId, tokenId + "-" + nftSerialNumber + "-tokenNftHashVar", "tokens/" + tokenId + "/nfts/" + nftSerialNumber);
     }
     
-    //If same value already loaded on the existing context, read from cached request instead
-    private JSONObject getTokenData(Client client, String tokenId) {
-        final HttpServletRequest request = WorkflowUtil.getHttpServletRequest();
-        final String attrKey = tokenId + "-tokenHashVar";
-        
-        if (request.getAttribute(attrKey) != null) {
-            return (JSONObject) request.getAttribute(attrKey);
-        }
-        
-        JSONObject jsonResponse = new MirrorRestService(getProperties(), client.getLedgerId()).getTokenData(tokenId);
-        request.setAttribute(attrKey, jsonResponse);
+    private enum Attribute implements HashVariableAttribute {
+        ADMIN_KEY("adminKey"),
+        AUTO_RENEW_ACCOUNT("autoRenewAccount"),
+        AUTO_RENEW_PERIOD("autoRenewPeriod"),
+        CREATED_TIMESTAMP("createdTimestamp"),
+        IS_DELETED("isDeleted"),
+        DECIMALS("decimals"),
+        EXPIRY_TIMESTAMP("expiryTimestamp"),
+        FEE_SCHEDULE_KEY("feeScheduleKey"),
+        IS_FREEZE_BY_DEFAULT("isFreezeByDefault"),
+        FREEZE_KEY("freezeKey"),
+        INITIAL_SUPPLY("initialSupply"),
+        KYC_KEY("kycKey"),
+        MAX_SUPPLY("maxSupply"),
+        MEMO("memo"),
+        MODIFIED_TIMESTAMP("modifiedTimestamp"),
+        NAME("name"),
+        PAUSE_KEY("pauseKey"),
+        PAUSE_STATUS("pauseStatus"),
+        SUPPLY_KEY("supplyKey"),
+        SUPPLY_TYPE("supplyType"),
+        SYMBOL("symbol"),
+        TOTAL_SUPPLY("totalSupply"),
+        TREASURY_ACCOUNT_ID("treasuryAccountId"),
+        TYPE("type"),
+        WIPE_KEY("wipeKey"),
+        CUSTOM_FEES_CREATED_TIMESTAMP("customFees.createdTimestamp"),
+        CUSTOM_FEES_FIXED_FEES("customFees.fixedFees"),
+        CUSTOM_FEES_FRACTIONAL_FEES("customFees.fractionalFees"),
+        CUSTOM_FEES_ROYALTY_FEES("customFees.royaltyFees"),
+        NFT_ACCOUNT_ID("nft.accountId"),
+        NFT_CREATED_TIMESTAMP("nft.createdTimestamp"),
+        NFT_DELEGATING_SPENDER("nft.delegatingSpender"),
+        NFT_IS_DELETED("nft.isDeleted"),
+        NFT_METADATA("nft.metadata"),
+        NFT_MODIFIED_TIMESTAMP("nft.modifiedTimestamp"),
+        NFT_SPENDER("nft.spender");
         
-        return jsonResponse;
-    }
-    
-    //If same value already loaded on the existing context, read from cached request instead
-    private JSONObject getNftData(Client client, String tokenId, String nftSerialNumber) {
-        final HttpServletRequest request = WorkflowUtil.getHttpServletRequest();
-        final String attrKey = tokenId + "-" + nftSerialNumber + "-tokenNftHashVar";
+        private final String key;
         
-        if (request.getAttribute(attrKey) != null) {
-            return (JSONObject) request.getAttribute(attrKey);
+        Attribute(String key) {
+            this.key = key;
         }
         
-        JSONObject jsonResponse = new MirrorRestService(getProperties(), client.getLedgerId()).getNftData(tokenId, nftSerialNumber);
-        request.setAttribute(attrKey, jsonResponse);
+        @Override
+        public String getKey() {
+            return key;
+        }
         
-        return jsonResponse;
+        private boolean isNftAttribute() {
+            return key.startsWith("nft.");
+        }
     }
     
     @Override
@@ -1,127 +1,175 @@
 package org.joget.hedera.lib.hashvariable;
 
-import com.hedera.hashgraph.sdk.Client;
+import com.hedera.hashgraph.sdk.LedgerId;
 import com.hedera.hashgraph.sdk.TopicId;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
 import javax.servlet.http.HttpServletRequest;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.commons.util.LogUtil;
+import org.joget.hedera.model.HashVariableAttribute;
+import org.joget.hedera.model.HashVariableKey;
+import org.joget.hedera.model.HashVariableKeyParser;
 import org.joget.hedera.model.HederaHashVariable;
 import org.joget.hedera.service.MirrorRestService;
 import org.joget.hedera.service.PluginUtil;
+import org.joget.hedera.service.TopicMessageReader;
 import org.joget.workflow.util.WorkflowUtil;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 public class HederaTopicHashVariable extends HederaHashVariable {
     
+    private static final HashVariableKeyParser<Attribute> KEY_PARSER = new HashVariableKeyParser<>(Attribute.class, "topic", TopicId::fromString, false);
+    
     @Override
-    protected String processHashVariable(Client client, String variableKey) {
-        if (!variableKey.contains("[") || !variableKey.contains("]")) {
+    protected String processHashVariable(LedgerId ledgerId, String variableKey) {
+        final HashVariableKey<Attribute> key = KEY_PARSER.parse(variableKey);
+        if (key == null) {
             return null;
         }
         
-        // Retrieve Topic ID from variableKey
-        final String topicId = variableKey.substring(variableKey.indexOf("[") + 1, variableKey.indexOf("]"));
+        final String topicId = key.entityId();
+        final Attribute attribute = key.attribute();
         
-        // Check for valid Topic ID before proceeding
-        try {
-            TopicId.fromString(topicId);
-        } catch (Exception e) {
-            LogUtil.debug(getClassName(), "Invalid topic ID of --> " + topicId);
+        // Message attributes require a sequence number (e.g. message[1].messageContent)
+        final String sequenceNumber = key.subId();
+        if (attribute != Attribute.ALL_MESSAGES && !key.hasSubId()) {
             return null;
         }
         
-        variableKey = variableKey.replace("[" + topicId + "]", "");
-        
-        // Retrieve Sequence Number if exist in variableKey
-        String sequenceNumber = "";
-        if (variableKey.startsWith(".message")) {
-            if (!variableKey.contains("[") || !variableKey.contains("]")) {
-                return null;
-            }
-            sequenceNumber = variableKey.substring(variableKey.lastIndexOf("[") + 1, variableKey.lastIndexOf("]"));
-            variableKey = variableKey.replace("message[" + sequenceNumber + "]", "");
+        // All messages may be bounded by a range (e.g. allMessages[1-100] or allMessages[1700000000.000000000-1700086400.000000000])
+        // Reads stop at hedera.topicMessages.maxMessages and hedera.topicMessages.maxBytes either way, so a topic is never read whole
+        if (attribute == Attribute.ALL_MESSAGES) {
+            return getAllMessages(ledgerId, topicId, key.subId());
         }
         
-        final String attribute = variableKey.replace(".", "");
+        final JSONObject jsonResponse = getMessageData(ledgerId, topicId, sequenceNumber);
         
-        JSONObject jsonResponse;
-        if (attribute.equals("allMessages")) {
-            jsonResponse = getAllMessages(client, topicId);
-            
-            if (jsonResponse.has("_status") && jsonResponse.getJSONObject("_status").getJSONArray("messages").getJSONObject(0).getString("message").equals("Not found")) {
-                return "Topic ID does not exist";
-            }
-        } else {
-            jsonResponse = getMessageData(client, topicId, sequenceNumber);
-            
-            if (jsonResponse.has("_status") && jsonResponse.getJSONObject("_status").getJSONArray("messages").getJSONObject(0).getString("message").equals("Not found")) {
-                return "Topic message does not exist";
-            }
+        if (jsonResponse.has("_status") && jsonResponse.getJSONObject("_status").getJSONArray("messages").getJSONObject(0).getString("message").equals("Not found")) {
+            return "Topic message does not exist";
         }
         
         try {
             return switch (attribute) {
-                case "allMessages" -> String.valueOf(jsonResponse.getJSONArray("messages"));
-                case "consensusTimestamp" -> epochTimetoDate(jsonResponse.getString("consensus_timestamp"));
-                case "messageContent" -> new String(Base64.getDecoder().decode(jsonResponse.getString("message")));
-                case "payerAccountId" -> jsonResponse.getString("payer_account_id");
-                case "runningHash" -> jsonResponse.getString("running_hash");
-                case "runningHashVersion" -> String.valueOf(jsonResponse.getInt("running_hash_version"));
-                default -> null;
+                case ALL_MESSAGES -> null; //Read by getAllMessages() above
+                case MESSAGE_CONSENSUS_TIMESTAMP -> formatMirrorTimestamp(jsonResponse.getString("consensus_timestamp"));
+                case MESSAGE_MESSAGE_CONTENT -> new String(Base64.getDecoder().decode(jsonResponse.getString("message")));
+                case MESSAGE_PAYER_ACCOUNT_ID -> jsonResponse.getString("payer_account_id");
+                case MESSAGE_RUNNING_HASH -> jsonResponse.getString("running_hash");
+                case MESSAGE_RUNNING_HASH_VERSION -> String.valueOf(jsonResponse.getInt("running_hash_version"));
             };
         } catch (Exception e) {
-            LogUtil.error(getClassName(), e, "Error retrieving topic attribute " + attribute);
+            LogUtil.error(getClassName(), e, "Error retrieving topic attribute " + attribute.getKey());
         }
         
         return null;
     }
     
-    private String epochTimetoDate(String epochTime) {
-        try {
-            if (epochTime.contains(".")) {
-                return new SimpleDateFormat("dd-MM-yyyy hh:mm:ss a z")
-                        .format(new java.util.Date((long) Double.parseDouble(epochTime) * 1000))
-                        .toUpperCase();
-            }
-        } catch (Exception e) {
-            LogUtil.error(getClassName(), e, "Epoch Time Error " + epochTime);
+    /*
+        Returns the messages as a JSON array. When the read was cut short by the message or size limit, returns 
+        { "messages": [...], "truncated": true, "nextSequenceNumber": N } instead, so that the rest can be read with allMessages[N-].
+    */
+    private String getAllMessages(LedgerId ledgerId, String topicId, String range) {
+        final String attrKey = topicId + "-" + range + "-topicAllMsgHashVar";
+        
+        final HttpServletRequest request = WorkflowUtil.getHttpServletRequest();
+        if (request != null && request.getAttribute(attrKey) != null) {
+            return (String) request.getAttribute(attrKey);
         }
-
-        return null;
+        
+        final TopicMessageReader reader = new MirrorRestService(getProperties(), ledgerId).getTopicMessageReader(topicId);
+        if (range != null && !setRange(reader, range)) {
+            LogUtil.warn(getClassName(), "Invalid topic message range of --> " + range);
+            return null;
+        }
+        
+        String messages = reader.readAsJsonArray();
+        
+        if ("Not found".equals(reader.getErrorMessage())) {
+            return "Topic ID does not exist";
+        }
+        if (reader.getErrorMessage() != null) {
+            return null;
+        }
+        if (reader.isTruncated()) {
+            LogUtil.warn(getClassName(), "Messages of topic " + topicId + " exceed " + TopicMessageReader.DEFAULT_MAX_MESSAGES + " messages or " + TopicMessageReader.DEFAULT_MAX_BYTES + " bytes and were cut short. Narrow the range or raise hedera.topicMessages.maxMessages or hedera.topicMessages.maxBytes.");
+            
+            messages = new JSONObject()
+                    .put("messages", new JSONArray(messages))
+                    .put("truncated", true)
+                    .put("nextSequenceNumber", reader.getNextSequenceNumber())
+                    .toString();
+        }
+        
+        if (request != null) {
+            request.setAttribute(attrKey, messages);
+        }
+        
+        return messages;
     }
     
-    //If same value already loaded on the existing context, read from cached request instead
-    private JSONObject getAllMessages(Client client, String topicId) {
-        final HttpServletRequest request = WorkflowUtil.getHttpServletRequest();
-        final String attrKey = topicId + "-topicHashVar";
+    /*
+        Range is given as FROM-TO, where either end may be left empty.
+        Ends with a '.' are consensus timestamps in "seconds.nanoseconds" format, others are sequence numbers.
+    */
+    private static boolean setRange(TopicMessageReader reader, String range) {
+        final int separatorIndex = range.indexOf('-');
+        if (separatorIndex < 0) {
+            return false;
+        }
         
-        if (request.getAttribute(attrKey) != null) {
-            return (JSONObject) request.getAttribute(attrKey);
+        final String from = range.substring(0, separatorIndex).trim();
+        final String to = range.substring(separatorIndex + 1).trim();
+        if ((!from.isEmpty() && !isRangeEnd(from)) || (!to.isEmpty() && !isRangeEnd(to))) {
+            return false;
         }
         
-        JSONObject jsonResponse = new MirrorRestService(getProperties(), client.getLedgerId()).getAllTopicMessages(topicId);
-        request.setAttribute(attrKey, jsonResponse);
+        if (!from.isEmpty()) {
+            if (from.contains(".")) {
+                reader.fromTimestamp(from);
+            } else {
+                reader.fromSequenceNumber(Long.parseLong(from));
+            }
+        }
+        if (!to.isEmpty()) {
+            if (to.contains(".")) {
+                reader.toTimestamp(to);
+            } else {
+                reader.toSequenceNumber(Long.parseLong(to));
+            }
+        }
         
-        return jsonResponse;
+        return true;
     }
     
-    //If same value already loaded on the existing context, read from cached request instead
-    private JSONObject getMessageData(Client client, String topicId, String sequenceNumber) {
-        final HttpServletRequest request = WorkflowUtil.getHttpServletRequest();
-        final String attrKey = topicId + "-" + sequenceNumber + "-topicMsgSeqNumHashVar";
+    private static boolean isRangeEnd(String value) {
+        return value.matches("\\d{1,18}(\\.\\d{1,9})?");
+    }
+    
+    private JSONObject getMessageData(LedgerId ledgerId, String topicId, String sequenceNumber) {
+        return getMirrorData(ledgerId, topicId + "-" + sequenceNumber + "-topicMsgSeqNumHashVar", "topics/" + topicId + "/messages/" + sequenceNumber);
+    }
+    
+    private enum Attribute implements HashVariableAttribute {
+        ALL_MESSAGES("allMessages"),
+        MESSAGE_CONSENSUS_TIMESTAMP("message.consensusTimestamp"),
+        MESSAGE_MESSAGE_CONTENT("message.messageContent"),
+        MESSAGE_PAYER_ACCOUNT_ID("message.payerAccountId"),
+        MESSAGE_RUNNING_HASH("message.runningHash"),
+        MESSAGE_RUNNING_HASH_VERSION("message.runningHashVersion");
         
-        if (request.getAttribute(attrKey) != null) {
-            return (JSONObject) request.getAttribute(attrKey);
-        }
+        private final String key;
         
-        JSONObject jsonResponse = new MirrorRestService(getProperties(), client.getLedgerId()).getTopicMessage(topicId, sequenceNumber);
-        request.setAttribute(attrKey, jsonResponse);
+        Attribute(String key) {
+            this.key = key;
+        }
         
-        return jsonResponse;
+        @Override
+        public String getKey() {
+            return key;
+        }
     }
     
     @Override
@@ -135,6 +183,8 @@ public class HederaTopicHashVariable extends HederaHashVariable {
         
         Collection<String> syntax = new ArrayList<String>();
         syntax.add(syntaxPrefix + "allMessages");
+        syntax.add(syntaxPrefix + "allMessages[FROM_SEQUENCE_NUMBER-TO_SEQUENCE_NUMBER]");
+        syntax.add(syntaxPrefix + "allMessages[FROM_TIMESTAMP-TO_TIMESTAMP]");
         syntax.add(syntaxPrefix + "message[SEQUENCE_NUMBER].consensusTimestamp");
         syntax.add(syntaxPrefix + "message[SEQUENCE_NUMBER].messageContent");
         syntax.add(syntaxPrefix + "message[SEQUENCE_NUMBER].payerAccountId");
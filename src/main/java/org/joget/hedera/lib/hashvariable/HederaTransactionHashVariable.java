@@ -1,44 +1,37 @@
 package org.joget.hedera.lib.hashvariable;
 
-import com.hedera.hashgraph.sdk.Client;
 import com.hedera.hashgraph.sdk.Hbar;
 import com.hedera.hashgraph.sdk.HbarUnit;
+import com.hedera.hashgraph.sdk.LedgerId;
 import com.hedera.hashgraph.sdk.TransactionId;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
-import javax.servlet.http.HttpServletRequest;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.commons.util.LogUtil;
+import org.joget.hedera.model.HashVariableAttribute;
+import org.joget.hedera.model.HashVariableKey;
+import org.joget.hedera.model.HashVariableKeyParser;
 import org.joget.hedera.model.HederaHashVariable;
-import org.joget.hedera.service.MirrorRestService;
 import org.joget.hedera.service.PluginUtil;
-import org.joget.workflow.util.WorkflowUtil;
+import org.joget.hedera.service.TransactionUtil;
 import org.json.JSONObject;
 
 public class HederaTransactionHashVariable extends HederaHashVariable {
     
+    private static final HashVariableKeyParser<Attribute> KEY_PARSER = new HashVariableKeyParser<>(Attribute.class, "transaction", TransactionId::fromString, false);
+    
     @Override
-    protected String processHashVariable(Client client, String variableKey) {
-        if (!variableKey.contains("[") || !variableKey.contains("]")) {
-            return null;
-        }
-        
-        // Retrieve Tx ID from variableKey
-        final String transactionId = variableKey.substring(variableKey.indexOf("[") + 1, variableKey.indexOf("]"));
-        
-        // Check for valid Tx ID before proceeding
-        try {
-            TransactionId.fromString(transactionId);
-        } catch (Exception e) {
-            LogUtil.debug(getClassName(), "Invalid transaction ID of --> " + transactionId);
+    protected String processHashVariable(LedgerId ledgerId, String variableKey) {
+        final HashVariableKey<Attribute> key = KEY_PARSER.parse(variableKey);
+        if (key == null) {
             return null;
         }
         
-        final String attribute = variableKey.replace("[" + transactionId + "]", "").replace(".", "");
+        final String transactionId = key.entityId();
+        final Attribute attribute = key.attribute();
         
-        JSONObject jsonResponse = getData(client, transactionId);
+        JSONObject jsonResponse = getData(ledgerId, transactionId);
         
         if (jsonResponse.has("_status") && jsonResponse.getJSONObject("_status").getJSONArray("messages").getJSONObject(0).getString("message").equals("Not found")) {
             return "Transaction ID does not exist";
@@ -48,83 +41,86 @@ public class HederaTransactionHashVariable extends HederaHashVariable {
         
         try {
             return switch (attribute) {
-                case "assessedCustomFees" -> 
+                case ASSESSED_CUSTOM_FEES -> 
                     jsonResponse.has("assessed_custom_fees") && !jsonResponse.isNull("assessed_custom_fees")
                             ? String.valueOf(jsonResponse.getJSONArray("assessed_custom_fees"))
                             : "none";
-                case "chargedTxFee" -> 
+                case CHARGED_TX_FEE -> 
                     Hbar.from(jsonResponse.getBigDecimal("charged_tx_fee"), HbarUnit.TINYBAR)
                             .toString(HbarUnit.HBAR);
-                case "consensusTimestamp" -> epochTimetoDate(jsonResponse.getString("consensus_timestamp"));
-                case "entityId" -> 
+                case CONSENSUS_TIMESTAMP -> formatMirrorTimestamp(jsonResponse.getString("consensus_timestamp"));
+                case ENTITY_ID -> 
                     jsonResponse.has("entity_id") && !jsonResponse.isNull("entity_id")
                             ? jsonResponse.getString("entity_id")
                             : "none";
-                case "maxFee" ->
+                case MAX_FEE ->
                     Hbar.fromString(jsonResponse.getString("max_fee"), HbarUnit.TINYBAR)
                             .toString(HbarUnit.HBAR);
-                case "memo" -> 
+                case MEMO -> 
                     jsonResponse.has("memo_base64") && !jsonResponse.isNull("memo_base64")
                             ? new String(Base64.getDecoder().decode(jsonResponse.getString("memo_base64")))
                             : "";
-                case "txType" -> jsonResponse.getString("name");
-                case "nftTransfers" -> String.valueOf(jsonResponse.getJSONArray("nft_transfers"));
-                case "node" -> jsonResponse.getString("node");
-                case "nonce" -> String.valueOf(jsonResponse.getInt("nonce"));
-                case "parentConsensusTimestamp" -> 
+                case TX_TYPE -> jsonResponse.getString("name");
+                case NFT_TRANSFERS -> String.valueOf(jsonResponse.getJSONArray("nft_transfers"));
+                case NODE -> jsonResponse.getString("node");
+                case NONCE -> String.valueOf(jsonResponse.getInt("nonce"));
+                case PARENT_CONSENSUS_TIMESTAMP -> 
                     jsonResponse.has("parent_consensus_timestamp") && !jsonResponse.isNull("parent_consensus_timestamp")
-                            ? epochTimetoDate(jsonResponse.getString("parent_consensus_timestamp"))
+                            ? formatMirrorTimestamp(jsonResponse.getString("parent_consensus_timestamp"))
                             : "none";
-                case "result" -> jsonResponse.getString("result");
-                case "isScheduled" -> String.valueOf(jsonResponse.getBoolean("scheduled"));
-                case "stakingRewardTransfers" -> String.valueOf(jsonResponse.getJSONArray("staking_reward_transfers"));
-                case "txHash" -> jsonResponse.getString("transaction_hash");
-                case "tokenTransfers" -> String.valueOf(jsonResponse.getJSONArray("token_transfers"));
-                case "transfers" -> String.valueOf(jsonResponse.getJSONArray("transfers"));
-                case "validDurationSeconds" -> jsonResponse.getString("valid_duration_seconds");
-                case "validStartTimestamp" -> epochTimetoDate(jsonResponse.getString("valid_start_timestamp"));
-                default -> null;
+                case RESULT -> jsonResponse.getString("result");
+                case IS_SCHEDULED -> String.valueOf(jsonResponse.getBoolean("scheduled"));
+                case STAKING_REWARD_TRANSFERS -> String.valueOf(jsonResponse.getJSONArray("staking_reward_transfers"));
+                case TX_HASH -> jsonResponse.getString("transaction_hash");
+                case TOKEN_TRANSFERS -> String.valueOf(jsonResponse.getJSONArray("token_transfers"));
+                case TRANSFERS -> String.valueOf(jsonResponse.getJSONArray("transfers"));
+                case VALID_DURATION_SECONDS -> jsonResponse.getString("valid_duration_seconds");
+                case VALID_START_TIMESTAMP -> formatMirrorTimestamp(jsonResponse.getString("valid_start_timestamp"));
             };
         } catch (Exception e) {
-            LogUtil.error(getClassName(), e, "Error retrieving transaction attribute " + attribute);
+            LogUtil.error(getClassName(), e, "Error retrieving transaction attribute " + attribute.getKey());
         }
         
         return null;
     }
     
-    private String epochTimetoDate(String epochTime) {
-        try {
-            if (epochTime.contains(".")) {
-                return new SimpleDateFormat("dd-MM-yyyy hh:mm:ss a z")
-                        .format(new java.util.Date((long) Double.parseDouble(epochTime) * 1000))
-                        .toUpperCase();
-            }
-        } catch (Exception e) {
-            LogUtil.error(getClassName(), e, "Epoch Time Error " + epochTime);
-        }
-
-        return null;
+    private JSONObject getData(LedgerId ledgerId, String transactionId) {
+        final String formattedTxId = TransactionUtil.formatTransactionIdForMirror(transactionId);
+        
+        return getMirrorData(ledgerId, transactionId + "-txHashVar", "transactions/" + formattedTxId);
     }
     
-    //If same value already loaded on the existing context, read from cached request instead
-    private JSONObject getData(Client client, String transactionId) {
-        final HttpServletRequest request = WorkflowUtil.getHttpServletRequest();
-        final String attrKey = transactionId + "-txHashVar";
+    private enum Attribute implements HashVariableAttribute {
+        ASSESSED_CUSTOM_FEES("assessedCustomFees"),
+        CHARGED_TX_FEE("chargedTxFee"),
+        CONSENSUS_TIMESTAMP("consensusTimestamp"),
+        ENTITY_ID("entityId"),
+        MAX_FEE("maxFee"),
+        MEMO("memo"),
+        TX_TYPE("txType"),
+        NFT_TRANSFERS("nftTransfers"),
+        NODE("node"),
+        NONCE("nonce"),
+        PARENT_CONSENSUS_TIMESTAMP("parentConsensusTimestamp"),
+        RESULT("result"),
+        IS_SCHEDULED("isScheduled"),
+        STAKING_REWARD_TRANSFERS("stakingRewardTransfers"),
+        TX_HASH("txHash"),
+        TOKEN_TRANSFERS("tokenTransfers"),
+        TRANSFERS("transfers"),
+        VALID_DURATION_SECONDS("validDurationSeconds"),
+        VALID_START_TIMESTAMP("validStartTimestamp");
         
-        if (request.getAttribute(attrKey) != null) {
-            return (JSONObject) request.getAttribute(attrKey);
-        }
+        private final String key;
         
-        JSONObject jsonResponse = new MirrorRestService(getProperties(), client.getLedgerId()).getTxData(
-                (
-                    transactionId.substring(0, transactionId.lastIndexOf("."))
-                    + "-"
-                    + transactionId.substring(transactionId.lastIndexOf(".") + 1)
-                ).replace("@", "-")
-        );
-        request.setAttribute(attrKey, jsonResponse);
+        Attribute(String key) {
+            this.key = key;
+        }
         
-        return jsonResponse;
+        @Override
+        public String getKey() {
+            return key;
+        }
     }
     
     @Override
@@ -1,7 +1,9 @@
 package org.joget.hedera.lib.plugindefaultproperties;
 
 import java.util.Map;
+import org.joget.apps.app.model.AuditTrail;
 import org.joget.apps.app.service.AppUtil;
+import org.joget.hedera.service.BackendUtil;
 import org.joget.hedera.service.PluginUtil;
 import org.joget.plugin.base.DefaultAuditTrailPlugin;
 
@@ -27,7 +29,23 @@ public class HederaDefaultBackendConfigurator extends DefaultAuditTrailPlugin {
     }
     
     @Override
-    public Object execute(Map props) { return null; } //Do nothing
+    public Object execute(Map props) {
+        //Invoked on audit trail events. Once plugin default properties are saved, cached backend configs of the app are stale.
+        final AuditTrail auditTrail = (AuditTrail) props.get("auditTrail");
+        if (auditTrail != null && isPluginDefaultPropertiesChange(auditTrail)) {
+            BackendUtil.invalidateBackendDefaultConfig(auditTrail.getAppId());
+        }
+        
+        return null;
+    }
+    
+    private boolean isPluginDefaultPropertiesChange(AuditTrail auditTrail) {
+        final String clazz = auditTrail.getClazz();
+        final String method = auditTrail.getMethod();
+        
+        return (clazz != null && clazz.contains("PluginDefaultProperties"))
+                || (method != null && method.contains("PluginDefault"));
+    }
     
     @Override
     public String getVersion() {
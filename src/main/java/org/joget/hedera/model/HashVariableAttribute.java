@@ -0,0 +1,12 @@
+package org.joget.hedera.model;
+
+/**
+ * An attribute of a Hedera hash variable, implemented by the attribute enum of each hash variable.
+ */
+public interface HashVariableAttribute {
+    
+    /**
+     * @return The attribute as written in the hash variable key, with any sub-ID removed (e.g. "tokenBalance", "nft.metadata")
+     */
+    String getKey();
+}
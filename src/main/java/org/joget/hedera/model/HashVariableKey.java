@@ -0,0 +1,14 @@
+package org.joget.hedera.model;
+
+/**
+ * A parsed hash variable key, e.g. [0.0.123].tokenBalance[0.0.456] is parsed to entity ID 0.0.123, sub-ID 0.0.456 and the tokenBalance attribute.
+ * @param entityId The ID of the entity to look up, e.g. an account ID
+ * @param subId The ID within the attribute, e.g. a token ID or serial number. Null if the key has none.
+ * @param attribute The requested attribute
+ */
+public record HashVariableKey<A extends Enum<A> & HashVariableAttribute>(String entityId, String subId, A attribute) {
+    
+    public boolean hasSubId() {
+        return subId != null && !subId.isBlank();
+    }
+}
@@ -0,0 +1,124 @@
+package org.joget.hedera.model;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import org.joget.commons.util.LogUtil;
+
+/**
+ * Parses hash variable keys of the form [ENTITY_ID].attribute, where the attribute may hold one sub-ID (e.g. tokenBalance[TOKEN_ID], nft[SERIAL_NUMBER].metadata).
+ *
+ * Each hash variable holds one parser for its attribute enum. Parsed keys are cached by the raw key string,
+ * so pages that evaluate the same keys over and over only parse and validate each key once.
+ * The cache size can be tuned through the hedera.hashVariable.keyCacheMaxEntries system property.
+ */
+public class HashVariableKeyParser<A extends Enum<A> & HashVariableAttribute> {
+    
+    private static final int CACHE_MAX_ENTRIES = Integer.getInteger("hedera.hashVariable.keyCacheMaxEntries", 5000);
+    
+    private final String entityType;
+    private final Function<String, ?> entityIdValidator;
+    private final boolean ignoreCase;
+    
+    private final Map<String, A> attributes = new HashMap<>();
+    
+    private final Map<String, HashVariableKey<A>> parsedKeys = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, HashVariableKey<A>> eldest) {
+            return size() > CACHE_MAX_ENTRIES;
+        }
+    };
+    
+    /**
+     * @param attributeType The attribute enum of the hash variable
+     * @param entityType Type of entity for log messages, e.g. "token"
+     * @param entityIdValidator Parses the entity ID, and throws an exception if it is invalid (e.g. TokenId::fromString)
+     * @param ignoreCase Whether attributes are matched regardless of case
+     */
+    public HashVariableKeyParser(Class<A> attributeType, String entityType, Function<String, ?> entityIdValidator, boolean ignoreCase) {
+        this.entityType = entityType;
+        this.entityIdValidator = entityIdValidator;
+        this.ignoreCase = ignoreCase;
+        
+        for (A attribute : attributeType.getEnumConstants()) {
+            attributes.put(normalize(attribute.getKey()), attribute);
+        }
+    }
+    
+    /**
+     * @param variableKey The hash variable key, without the plugin prefix
+     * @return The parsed key, or null if the key is malformed, has an invalid entity ID or an unknown attribute
+     */
+    public HashVariableKey<A> parse(String variableKey) {
+        synchronized (parsedKeys) {
+            HashVariableKey<A> parsedKey = parsedKeys.get(variableKey);
+            if (parsedKey != null) {
+                return parsedKey;
+            }
+        }
+        
+        final HashVariableKey<A> parsedKey = doParse(variableKey);
+        
+        //Invalid keys are not cached, as they are rare and would only crowd out valid ones
+        if (parsedKey != null) {
+            synchronized (parsedKeys) {
+                parsedKeys.put(variableKey, parsedKey);
+            }
+        }
+        
+        return parsedKey;
+    }
+    
+    private HashVariableKey<A> doParse(String variableKey) {
+        final int entityStart = variableKey.indexOf('[');
+        final int entityEnd = variableKey.indexOf(']', entityStart + 1);
+        if (entityStart < 0 || entityEnd < 0) {
+            return null;
+        }
+        
+        final String entityId = variableKey.substring(entityStart + 1, entityEnd);
+        
+        // Check for valid entity ID before proceeding
+        try {
+            entityIdValidator.apply(entityId);
+        } catch (Exception e) {
+            LogUtil.debug(getClassName(), "Invalid " + entityType + " ID of --> " + entityId);
+            return null;
+        }
+        
+        String attributeKey = variableKey.substring(entityEnd + 1);
+        if (attributeKey.startsWith(".")) {
+            attributeKey = attributeKey.substring(1);
+        }
+        
+        // Retrieve sub-ID if exist in attribute (e.g. tokenBalance[0.0.456], nft[1].metadata)
+        String subId = null;
+        final int subIdStart = attributeKey.lastIndexOf('[');
+        final int subIdEnd = attributeKey.lastIndexOf(']');
+        if (subIdStart >= 0 || subIdEnd >= 0) {
+            if (subIdStart < 0 || subIdEnd < subIdStart) {
+                return null;
+            }
+            subId = attributeKey.substring(subIdStart + 1, subIdEnd);
+            attributeKey = attributeKey.substring(0, subIdStart) + attributeKey.substring(subIdEnd + 1);
+        }
+        
+        final A attribute = attributes.get(normalize(attributeKey));
+        if (attribute == null) {
+            LogUtil.debug(getClassName(), "Unknown " + entityType + " attribute of --> " + attributeKey);
+            return null;
+        }
+        
+        return new HashVariableKey<>(entityId, subId, attribute);
+    }
+    
+    private String normalize(String attributeKey) {
+        return ignoreCase ? attributeKey.toLowerCase(Locale.ROOT) : attributeKey;
+    }
+    
+    private static String getClassName() {
+        return HashVariableKeyParser.class.getName();
+    }
+}
@@ -8,7 +8,8 @@ import org.joget.apps.form.model.FormData;
 import org.joget.apps.form.model.FormLoadBinder;
 import org.joget.apps.form.model.FormRowSet;
 import org.joget.commons.util.LogUtil;
-import org.joget.hedera.service.BackendUtil;
+import org.joget.hedera.service.HederaClientRegistry;
+import org.joget.hedera.service.HederaClientRegistry.ClientLease;
 import org.joget.hedera.service.PluginUtil;
 
 public abstract class HederaFormBinder extends FormBinder implements FormLoadBinder {
@@ -42,12 +43,12 @@ public abstract class HederaFormBinder extends FormBinder implements FormLoadBin
         ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
         Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
         
-        try (final Client client = BackendUtil.getHederaClient(getProperties())) {
-            if (client == null) {
+        try (final ClientLease clientLease = HederaClientRegistry.acquire(getProperties())) {
+            if (clientLease == null) {
                 LogUtil.warn(getClassName(), "Unable to initialize backend client.");
                 return null;
             }
-            return loadData(client, element, primaryKey, formData);
+            return loadData(clientLease.getClient(), element, primaryKey, formData);
         } catch (TimeoutException ex) {
             LogUtil.error(getClassName(), ex, "Error executing form binder plugin due to timeout.");
         } catch (RuntimeException ex) { // Compatibility workaround for MultiTenantPluginManager - avoid using SDK's custom exceptions
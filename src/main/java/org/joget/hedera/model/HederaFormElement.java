@@ -8,7 +8,8 @@ import org.joget.apps.form.model.FormBuilderPaletteElement;
 import org.joget.apps.form.model.FormData;
 import org.joget.apps.form.service.FormUtil;
 import org.joget.commons.util.LogUtil;
-import org.joget.hedera.service.BackendUtil;
+import org.joget.hedera.service.HederaClientRegistry;
+import org.joget.hedera.service.HederaClientRegistry.ClientLease;
 import org.joget.hedera.service.PluginUtil;
 import org.joget.workflow.model.WorkflowAssignment;
 import org.joget.workflow.model.service.WorkflowManager;
@@ -56,17 +57,17 @@ public abstract class HederaFormElement extends Element implements FormBuilderPa
         ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
         Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
         
-        try (final Client tempClient = BackendUtil.getHederaClient(getProperties())) {
+        try (final ClientLease clientLease = HederaClientRegistry.acquire(getProperties())) {
             if (FormUtil.isFormBuilderActive()) {
                 return renderElement(formData, dataModel);
             }
             
-            if (tempClient == null) {
+            if (clientLease == null) {
                 LogUtil.warn(getClassName(), "Unable to initialize hedera client. Aborting plugin execution.");
                 return "";
             }
             
-            this.client = tempClient;
+            this.client = clientLease.getClient();
             
             return renderElement(formData, dataModel);
         } catch (Exception ex) {
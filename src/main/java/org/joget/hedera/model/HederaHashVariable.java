@@ -1,17 +1,28 @@
 package org.joget.hedera.model;
 
-import com.hedera.hashgraph.sdk.Client;
-import java.util.concurrent.TimeoutException;
+import com.hedera.hashgraph.sdk.LedgerId;
+import java.time.Instant;
+import javax.servlet.http.HttpServletRequest;
 import org.joget.apps.app.model.DefaultHashVariablePlugin;
 import org.joget.apps.form.service.FormUtil;
 import org.joget.commons.util.LogUtil;
 import org.joget.hedera.service.BackendUtil;
+import org.joget.hedera.service.HashVariablePrefetcher;
+import org.joget.hedera.service.MirrorRestService;
 import org.joget.hedera.service.PluginUtil;
+import org.joget.hedera.service.TransactionUtil;
+import org.joget.workflow.util.WorkflowUtil;
+import org.json.JSONObject;
 
 public abstract class HederaHashVariable extends DefaultHashVariablePlugin {
 
-    protected abstract String processHashVariable(Client client, String variableKey)
-            throws TimeoutException, RuntimeException;
+    /**
+     * Resolves a hash variable against the mirror node of the configured network. This method is wrapped by processHashVariable(String).
+     * @param ledgerId The ledger of the configured network, used to choose the mirror node endpoint
+     * @param variableKey The hash variable key, without the plugin prefix
+     */
+    protected abstract String processHashVariable(LedgerId ledgerId, String variableKey)
+            throws RuntimeException;
 
     @Override
     public String processHashVariable(String variableKey) {
@@ -22,14 +33,14 @@ public abstract class HederaHashVariable extends DefaultHashVariablePlugin {
         ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
         Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
         
-        try (final Client client = BackendUtil.getHederaClient(getProperties())) {
-            if (client == null) {
-                LogUtil.warn(getClassName(), "Unable to initialize backend client.");
+        try {
+            //Mirror REST lookups only need the network, so no client is built here
+            final LedgerId ledgerId = BackendUtil.getLedgerId(getProperties());
+            if (ledgerId == null) {
+                LogUtil.warn(getClassName(), "Unable to resolve backend network.");
                 return null;
             }
-            return processHashVariable(client, variableKey);
-        } catch (TimeoutException ex) {
-            LogUtil.error(getClassName(), ex, "Error executing hash variable plugin due to timeout.");
+            return processHashVariable(ledgerId, variableKey);
         } catch (RuntimeException ex) { // Compatibility workaround for MultiTenantPluginManager - avoid using SDK's custom exceptions
             if (ex.getMessage().contains("PrecheckStatusException")) {
                 LogUtil.error(getClassName(), ex, "Error executing hash variable plugin due to failed transaction prechecks.");
@@ -45,6 +56,49 @@ public abstract class HederaHashVariable extends DefaultHashVariablePlugin {
         return null;
     }
 
+    /**
+     * Retrieves data from the mirror node. If the same path was already loaded within the current request, the request's copy is returned instead.
+     * @param ledgerId The ledger of the configured network
+     * @param attrKey Request attribute key to hold the loaded data under
+     * @param path Mirror node path to query, relative to the API root
+     */
+    protected JSONObject getMirrorData(LedgerId ledgerId, String attrKey, String path) {
+        final HttpServletRequest request = WorkflowUtil.getHttpServletRequest();
+        
+        if (request != null && request.getAttribute(attrKey) != null) {
+            return (JSONObject) request.getAttribute(attrKey);
+        }
+        
+        final MirrorRestService restService = new MirrorRestService(getProperties(), ledgerId);
+        
+        HashVariablePrefetcher.prefetch(request, restService);
+        HashVariablePrefetcher.record(request, restService, path);
+        
+        JSONObject jsonResponse = HashVariablePrefetcher.getPrefetched(request, restService, path);
+        if (jsonResponse == null) {
+            jsonResponse = restService.get(path);
+        }
+        if (request != null) {
+            request.setAttribute(attrKey, jsonResponse);
+        }
+        
+        return jsonResponse;
+    }
+    
+    /**
+     * Formats a mirror node timestamp in "seconds.nanoseconds" format, in the timezone set in the backend configs.
+     */
+    protected String formatMirrorTimestamp(String timestamp) {
+        return TransactionUtil.formatMirrorTimestamp(timestamp, BackendUtil.getTimezone(getProperties()));
+    }
+    
+    /**
+     * Formats a timestamp in the timezone set in the backend configs.
+     */
+    protected String formatTimestamp(Instant timestamp) {
+        return TransactionUtil.formatDisplayTimestamp(timestamp, BackendUtil.getTimezone(getProperties()));
+    }
+    
     @Override
     public String getVersion() {
         return PluginUtil.getProjectVersion(this.getClass());
@@ -1,12 +1,26 @@
 package org.joget.hedera.model;
 
 import com.hedera.hashgraph.sdk.Client;
-import com.hedera.hashgraph.sdk.TransactionRecord;
+import com.hedera.hashgraph.sdk.PrecheckStatusException;
+import com.hedera.hashgraph.sdk.ReceiptStatusException;
+import com.hedera.hashgraph.sdk.Transaction;
+import com.hedera.hashgraph.sdk.TransactionId;
+import com.hedera.hashgraph.sdk.TransactionResponse;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeoutException;
+import org.joget.apps.app.dao.DatalistDefinitionDao;
 import org.joget.apps.app.model.AppDefinition;
+import org.joget.apps.app.model.DatalistDefinition;
 import org.joget.apps.app.service.AppService;
 import org.joget.apps.app.service.AppUtil;
+import org.joget.apps.datalist.model.DataList;
+import org.joget.apps.datalist.model.DataListBinder;
+import org.joget.apps.datalist.model.DataListCollection;
+import org.joget.apps.datalist.service.DataListService;
+import org.joget.apps.form.dao.FormDataDao;
 import org.joget.apps.form.model.FormRow;
 import org.joget.apps.form.model.FormRowSet;
 import org.joget.commons.util.LogUtil;
@@ -14,11 +28,17 @@ import org.joget.hedera.model.explorer.Explorer;
 import org.joget.hedera.model.explorer.ExplorerFactory;
 import static org.joget.hedera.model.explorer.ExplorerFactory.DEFAULT_EXPLORER;
 import org.joget.hedera.service.BackendUtil;
+import org.joget.hedera.service.HederaClientRegistry;
+import org.joget.hedera.service.HederaClientRegistry.ClientLease;
+import org.joget.hedera.service.MirrorRestService;
 import org.joget.hedera.service.PluginUtil;
+import org.joget.hedera.service.TransactionCompletionService;
 import org.joget.hedera.service.TransactionUtil;
 import org.joget.plugin.base.DefaultApplicationPlugin;
 import org.joget.workflow.model.WorkflowAssignment;
 import org.joget.workflow.model.service.WorkflowManager;
+import org.joget.workflow.model.service.WorkflowUserManager;
+import org.json.JSONObject;
 import org.springframework.context.ApplicationContext;
 
 public abstract class HederaProcessTool extends DefaultApplicationPlugin {
@@ -30,6 +50,8 @@ public abstract class HederaProcessTool extends DefaultApplicationPlugin {
     
     protected Client client;
     
+    private ExecutionContext executionContext;
+    
     private void initUtils(Map props) {
         ApplicationContext ac = AppUtil.getApplicationContext();
         
@@ -37,6 +59,8 @@ public abstract class HederaProcessTool extends DefaultApplicationPlugin {
         appDef = (AppDefinition) props.get("appDef");
         wfAssignment = (WorkflowAssignment) props.get("workflowAssignment");
         workflowManager = (WorkflowManager) ac.getBean("workflowManager");
+        
+        executionContext = new ExecutionContext();
     }
     
     /**
@@ -79,13 +103,13 @@ public abstract class HederaProcessTool extends DefaultApplicationPlugin {
         ClassLoader originalClassLoader = Thread.currentThread().getContextClassLoader();
         Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
         
-        try (final Client tempClient = BackendUtil.getHederaClient(props)) {
-            if (tempClient == null) {
+        try (final ClientLease clientLease = HederaClientRegistry.acquire(props)) {
+            if (clientLease == null) {
                 LogUtil.warn(getClassName(), "Unable to initialize hedera client. Aborting plugin execution.");
                 return null;
             }
             
-            this.client = tempClient;
+            this.client = clientLease.getClient();
             
             if (!isInputDataValidWithClient(props, client)) {
                 LogUtil.debug(getClassName(), "Invalid input(s) detected. Aborting plugin execution.");
@@ -116,52 +140,286 @@ public abstract class HederaProcessTool extends DefaultApplicationPlugin {
         return null;
     }
     
+    /**
+     * Loads a form record. Records are loaded once per plugin execution and shared across the validation and execution phases, 
+     * until the form is written to through storeFormRows().
+     * @param primaryKey Record ID. If not defined, the origin process ID of the current process instance is used.
+     */
     protected FormRowSet getFormRecord(String formDefId, String primaryKey) {        
         //If no primary key defined, attempt to retrieve from process instance context
         if (primaryKey == null || primaryKey.isBlank()) {
-            primaryKey = appService.getOriginProcessId(wfAssignment.getProcessId());
+            primaryKey = getOriginProcessId();
+        }
+        
+        final String recordId = primaryKey;
+        
+        return executionContext.formRecords.computeIfAbsent(
+                formDefId + ":" + recordId, 
+                k -> appService.loadFormData(appDef.getAppId(), appDef.getVersion().toString(), formDefId, recordId)
+        );
+    }
+    
+    /**
+     * The origin process ID of the current process instance, resolved once per plugin execution.
+     */
+    protected String getOriginProcessId() {
+        if (executionContext.originProcessId == null) {
+            executionContext.originProcessId = appService.getOriginProcessId(wfAssignment.getProcessId());
         }
         
-        return appService.loadFormData(appDef.getAppId(), appDef.getVersion().toString(), formDefId, primaryKey);
+        return executionContext.originProcessId;
+    }
+    
+    /**
+     * Loads the rows of a child form (e.g. a form grid) that reference a parent record through a foreign key field.
+     * @return Grid rows, or null if the foreign key field is not a valid field ID
+     */
+    protected FormRowSet getGridRows(String formDefId, String foreignKeyField, String foreignKeyValue) {
+        //The field name goes into the query as is, so only plain field IDs are accepted
+        if (foreignKeyField == null || !foreignKeyField.matches("[A-Za-z0-9_]+")) {
+            LogUtil.warn(getClassName(), "Unable to load grid rows of form '" + formDefId + "'. Encountered invalid foreign key field of '" + foreignKeyField + "'.");
+            return null;
+        }
+        
+        FormDataDao formDataDao = (FormDataDao) AppUtil.getApplicationContext().getBean("formDataDao");
+        final String tableName = appService.getFormTableName(appDef, formDefId);
+        
+        return formDataDao.find(
+                formDefId, 
+                tableName, 
+                "WHERE e.customProperties." + foreignKeyField + " = ?", 
+                new Object[]{ foreignKeyValue }, 
+                "dateCreated", 
+                false, 
+                null, 
+                null
+        );
+    }
+    
+    /**
+     * Loads all rows of a datalist with its configured filters applied, ignoring paging.
+     * @return Datalist rows, or null if the datalist cannot be found
+     */
+    protected DataListCollection getDatalistRows(String datalistId) {
+        ApplicationContext ac = AppUtil.getApplicationContext();
+        DatalistDefinitionDao datalistDefinitionDao = (DatalistDefinitionDao) ac.getBean("datalistDefinitionDao");
+        DataListService dataListService = (DataListService) ac.getBean("dataListService");
+        
+        DatalistDefinition datalistDefinition = datalistDefinitionDao.loadById(datalistId, appDef);
+        if (datalistDefinition == null) {
+            return null;
+        }
+        
+        DataList dataList = dataListService.fromJson(datalistDefinition.getJson());
+        if (dataList == null || dataList.getBinder() == null) {
+            return null;
+        }
+        
+        DataListBinder binder = dataList.getBinder();
+        
+        return binder.getData(dataList, binder.getProperties(), dataList.getFilterQueryObjects(), null, null, 0, null);
     }
     
     protected FormRowSet storeFormRow(String formDefId, FormRow formRow) {
         FormRowSet rowSet = new FormRowSet();
         rowSet.add(formRow);
         
+        return storeFormRows(formDefId, rowSet);
+    }
+    
+    protected FormRowSet storeFormRows(String formDefId, FormRowSet rowSet) {
+        executionContext.formRecords.keySet().removeIf(key -> key.startsWith(formDefId + ":"));
+        
         return appService.storeFormData(appDef.getId(), appDef.getVersion().toString(), formDefId, rowSet, null);
     }
     
-    protected void storeGenericTxDataToWorkflowVariable(TransactionRecord transactionRecord) {
+    /**
+     * Executes a frozen and signed transaction, and waits for its outcome according to the configured completion mode.
+     */
+    protected TransactionResult executeTransaction(Transaction<?> transaction) 
+            throws TimeoutException, PrecheckStatusException, ReceiptStatusException {
+        
+        final TransactionResponse response = transaction.execute(client);
+        
+        if (getCompletionMode() == CompletionMode.RECORD) {
+            return TransactionResult.fromRecord(response.getRecord(client));
+        }
+        
+        return TransactionResult.fromReceipt(response.transactionId, response.getReceipt(client));
+    }
+    
+    /**
+     * Executes the last transaction of a tool, for when the tool itself does not need the transaction's receipt.
+     * In ASYNC completion mode, returns a pending result right after submission, and the transaction is completed in the background.
+     */
+    protected TransactionResult submitTransaction(Transaction<?> transaction) 
+            throws TimeoutException, PrecheckStatusException, ReceiptStatusException {
+        
+        if (getCompletionMode() != CompletionMode.ASYNC) {
+            return executeTransaction(transaction);
+        }
+        
+        return TransactionResult.pending(transaction.execute(client).transactionId);
+    }
+    
+    /**
+     * Non-blocking variant of executeTransaction(). The returned future completes on the SDK's executor threads.
+     */
+    protected CompletableFuture<TransactionResult> executeTransactionAsync(Transaction<?> transaction) {
+        final boolean fetchRecord = getCompletionMode() == CompletionMode.RECORD;
+        
+        return transaction.executeAsync(client).thenCompose(response -> fetchRecord
+                ? response.getRecordAsync(client).thenApply(TransactionResult::fromRecord)
+                : response.getReceiptAsync(client).thenApply(receipt -> TransactionResult.fromReceipt(response.transactionId, receipt))
+        );
+    }
+    
+    /**
+     * Timezone to format timestamps in, as set in the backend configs. Empty if not set.
+     */
+    protected String getTimezone() {
+        if (executionContext.timezone == null) {
+            executionContext.timezone = BackendUtil.getTimezone(getProperties());
+        }
+        
+        return executionContext.timezone;
+    }
+    
+    protected CompletionMode getCompletionMode() {
+        final CompletionMode completionMode = CompletionMode.fromString(getPropertyString("completionMode"));
+        
+        return completionMode != null ? completionMode : CompletionMode.RECORD;
+    }
+    
+    protected void storeGenericTxDataToWorkflowVariable(TransactionResult transactionResult) {
         
         String wfTransactionValidated = getPropertyString("wfTransactionValidated");
         String wfConsensusTimestamp = getPropertyString("wfConsensusTimestamp");
         String wfTransactionId = getPropertyString("wfTransactionId");
         String wfTransactionExplorerUrl = getPropertyString("wfTransactionExplorerUrl");
         
-        storeValuetoActivityVar(
-                wfAssignment.getActivityId(), 
-                wfTransactionValidated, 
-                transactionRecord.receipt.status.toString()
-        );
+        if (transactionResult.isPending()) {
+            completeInBackground(transactionResult);
+        } else {
+            storeValuetoActivityVar(
+                    wfAssignment.getActivityId(), 
+                    wfTransactionValidated, 
+                    transactionResult.getReceipt().status.toString()
+            );
+        }
         
-        storeValuetoActivityVar(
-                wfAssignment.getActivityId(), 
-                wfConsensusTimestamp, 
-                TransactionUtil.convertInstantToZonedDateTimeString(transactionRecord.consensusTimestamp)
-        );
+        if (transactionResult.hasRecord()) {
+            storeValuetoActivityVar(
+                    wfAssignment.getActivityId(), 
+                    wfConsensusTimestamp, 
+                    TransactionUtil.convertInstantToZonedDateTimeString(transactionResult.getConsensusTimestamp(), getTimezone())
+            );
+        } else if (getCompletionMode() == CompletionMode.DEFERRED_RECORD && !wfConsensusTimestamp.isEmpty()) {
+            storeDeferredConsensusTimestamp(transactionResult.getTransactionId(), wfConsensusTimestamp);
+        }
         
         storeValuetoActivityVar(
                 wfAssignment.getActivityId(), 
                 wfTransactionId, 
-                transactionRecord.transactionId.toString()
+                transactionResult.getTransactionId().toString()
         );
         
         Explorer explorer = new ExplorerFactory(client.getLedgerId()).createExplorer(DEFAULT_EXPLORER);
         storeValuetoActivityVar(
                 wfAssignment.getActivityId(), 
                 wfTransactionExplorerUrl, 
-                transactionRecord.transactionId.toString() != null ? explorer.getTransactionUrl(transactionRecord.transactionId.toString()) : "Not available"
+                transactionResult.getTransactionId().toString() != null ? explorer.getTransactionUrl(transactionResult.getTransactionId().toString()) : "Not available"
+        );
+    }
+    
+    /*
+        The activity has usually completed by the time the mirror node has ingested the transaction, 
+        hence the value is stored as a process variable instead.
+    */
+    private void storeDeferredConsensusTimestamp(TransactionId transactionId, String variable) {
+        final String processId = wfAssignment.getProcessId();
+        final String timezone = getTimezone();
+        final MirrorRestService restService = new MirrorRestService(getProperties(), client.getLedgerId());
+        
+        TransactionCompletionService.whenMirrorTransactionAvailable(restService, transactionId, transaction -> {
+            if (transaction != null) {
+                storeValuetoProcessVar(processId, variable, getConsensusTimestamp(transaction, timezone));
+            }
+        });
+    }
+    
+    /*
+        Resolves the outcome of a submitted transaction from the mirror node, 
+        then releases the process from the activity configured in "asyncWaitActivityDefId", if any.
+        The completion is tracked by TransactionCompletionService, so it carries on after a restart.
+        
+        Pending results with a confirmation are only handed over once confirmed, so that data of the confirmation is stored 
+        before the activity is released. Failed prechecks never reach the mirror node, so their status is stored right away.
+    */
+    private void completeInBackground(TransactionResult transactionResult) {
+        final String username = ((WorkflowUserManager) AppUtil.getApplicationContext().getBean("workflowUserManager")).getCurrentUsername();
+        final String backendService = (String) BackendUtil.getBackendDefaultConfig(getProperties()).get("backendService");
+        
+        final PendingCompletion completion = new PendingCompletion(
+                transactionResult.getTransactionId().toString(), 
+                appDef.getAppId(), 
+                appDef.getVersion().toString(), 
+                (backendService == null || backendService.isEmpty()) ? MirrorRestService.DEFAULT_REST_SERVICE : backendService, 
+                client.getLedgerId().toString(), 
+                wfAssignment.getProcessDefId(), 
+                wfAssignment.getProcessId(), 
+                getPropertyString("asyncWaitActivityDefId"), 
+                username, 
+                getPropertyString("wfTransactionValidated"), 
+                getPropertyString("wfConsensusTimestamp"), 
+                getTimezone()
+        );
+        
+        final CompletableFuture<TransactionResult> confirmation = transactionResult.getConfirmation();
+        if (confirmation == null) {
+            TransactionCompletionService.complete(completion);
+            return;
+        }
+        
+        final AppDefinition processAppDef = appDef;
+        confirmation.whenComplete((result, ex) -> {
+            if (ex == null) {
+                AppUtil.setCurrentAppDefinition(processAppDef);
+                try {
+                    storeConfirmedDataToWorkflowVariable(completion.processId(), result);
+                } catch (Exception e) {
+                    LogUtil.error(getClassName(), e, "Error storing confirmation of transaction " + completion.transactionId());
+                } finally {
+                    AppUtil.setCurrentAppDefinition(null);
+                }
+                
+                TransactionCompletionService.complete(completion);
+                return;
+            }
+            
+            final Throwable cause = (ex instanceof CompletionException) ? ex.getCause() : ex;
+            LogUtil.error(getClassName(), cause, "Transaction " + completion.transactionId() + " was not confirmed");
+            
+            if (cause instanceof PrecheckStatusException precheckException) {
+                TransactionCompletionService.fail(completion, precheckException.status.toString());
+            } else {
+                //Failed receipts reached consensus, and other failures may have, so their outcome is resolved from the mirror node
+                TransactionCompletionService.complete(completion);
+            }
+        });
+    }
+    
+    /**
+     * Stores data of a pending transaction once confirmed, to the process. Runs in the background, with the app of the process set.
+     * Only called for pending results holding a confirmation.
+     */
+    protected void storeConfirmedDataToWorkflowVariable(String processId, TransactionResult transactionResult) {
+    }
+    
+    private String getConsensusTimestamp(JSONObject mirrorTransaction, String timezone) {
+        return TransactionUtil.convertInstantToZonedDateTimeString(
+                TransactionUtil.parseMirrorTimestamp(mirrorTransaction.getString("consensus_timestamp")), 
+                timezone
         );
     }
     
@@ -173,6 +431,14 @@ public abstract class HederaProcessTool extends DefaultApplicationPlugin {
         workflowManager.activityVariable(activityId, variable, value);
     }
     
+    protected void storeValuetoProcessVar(String processId, String variable, String value) {
+        if (processId == null || processId.isEmpty() || variable.isEmpty() || value == null) {
+            return;
+        }
+        
+        workflowManager.processVariable(processId, variable, value);
+    }
+    
     @Override
     public String getVersion() {
         return PluginUtil.getProjectVersion(this.getClass());
@@ -187,4 +453,50 @@ public abstract class HederaProcessTool extends DefaultApplicationPlugin {
     public String getClassName() {
         return getClass().getName();
     }
+    
+    /*
+        State shared across isInputDataValid(), isInputDataValidWithClient() and runTool() of a single plugin execution.
+    */
+    private static final class ExecutionContext {
+        
+        private final Map<String, FormRowSet> formRecords = new HashMap<>();
+        private String originProcessId;
+        private String timezone;
+    }
+    
+    /**
+     * How long executeTransaction() waits for a transaction's outcome.
+     * RECEIPT - Status and IDs only, no record query. 
+     * RECORD - Full transaction record, at the cost of a paid record query. 
+     * DEFERRED_RECORD - Same as RECEIPT, with record details (i.e. consensus timestamp) fetched later from the mirror node. 
+     * ASYNC - Transactions passed to submitTransaction() are not waited for at all, and are completed in the background. 
+     * Other transactions are treated as RECEIPT.
+     */
+    public enum CompletionMode {
+        RECEIPT("receipt"),
+        RECORD("record"),
+        DEFERRED_RECORD("deferredRecord"),
+        ASYNC("async");
+        
+        private final String value;
+        
+        CompletionMode(final String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return value;
+        }
+
+        public static CompletionMode fromString(String text) {
+            for (CompletionMode mode : CompletionMode.values()) {
+                if ((mode.value).equalsIgnoreCase(text)) {
+                    return mode;
+                }
+            }
+
+            return null;
+        }
+    }
 }
@@ -0,0 +1,146 @@
+package org.joget.hedera.model;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.bouncycastle.util.encoders.Hex;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Binary SHA-256 Merkle tree over leaf hashes, used to anchor many records with a single root.
+ *
+ * Each parent is SHA-256(0x01 || left || right) of its children's raw hash bytes. The prefix keeps parent hashes apart from leaf hashes.
+ * An unpaired node at the end of a level is carried up to the next level as is, rather than paired with itself.
+ */
+public final class MerkleTree {
+    
+    private static final byte NODE_PREFIX = 0x01;
+    
+    //levels.get(0) holds the leaves, and the last level holds the root alone
+    private final List<List<byte[]>> levels;
+    
+    private MerkleTree(List<List<byte[]>> levels) {
+        this.levels = levels;
+    }
+    
+    /**
+     * @param leafHashes Hex-encoded SHA-256 hashes of the records, in anchoring order. Must not be empty.
+     */
+    public static MerkleTree build(List<String> leafHashes) {
+        if (leafHashes == null || leafHashes.isEmpty()) {
+            throw new IllegalArgumentException("A Merkle tree needs at least one leaf");
+        }
+        
+        List<byte[]> level = new ArrayList<>(leafHashes.size());
+        for (String leafHash : leafHashes) {
+            level.add(Hex.decode(leafHash));
+        }
+        
+        List<List<byte[]>> levels = new ArrayList<>();
+        levels.add(level);
+        
+        while (level.size() > 1) {
+            List<byte[]> parents = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                parents.add(i + 1 < level.size() ? hashNode(level.get(i), level.get(i + 1)) : level.get(i));
+            }
+            levels.add(parents);
+            level = parents;
+        }
+        
+        return new MerkleTree(levels);
+    }
+    
+    public String getRoot() {
+        return Hex.toHexString(levels.get(levels.size() - 1).get(0));
+    }
+    
+    public int getLeafCount() {
+        return levels.get(0).size();
+    }
+    
+    /**
+     * @return The sibling hashes from the leaf up to the root. Levels where the node was carried up unpaired have no step.
+     */
+    public List<ProofStep> getProof(int leafIndex) {
+        if (leafIndex < 0 || leafIndex >= getLeafCount()) {
+            throw new IndexOutOfBoundsException("No leaf at index " + leafIndex);
+        }
+        
+        List<ProofStep> proof = new ArrayList<>();
+        
+        int index = leafIndex;
+        for (int depth = 0; depth < levels.size() - 1; depth++) {
+            final List<byte[]> level = levels.get(depth);
+            final int siblingIndex = (index % 2 == 0) ? index + 1 : index - 1;
+            
+            if (siblingIndex < level.size()) {
+                proof.add(new ProofStep(siblingIndex < index, Hex.toHexString(level.get(siblingIndex))));
+            }
+            index /= 2;
+        }
+        
+        return Collections.unmodifiableList(proof);
+    }
+    
+    /**
+     * Recomputes the root from a leaf hash and its proof, to check that the leaf is part of the tree of the given root.
+     */
+    public static boolean verify(String leafHash, List<ProofStep> proof, String root) {
+        byte[] hash = Hex.decode(leafHash);
+        for (ProofStep step : proof) {
+            final byte[] sibling = Hex.decode(step.hash());
+            hash = step.left() ? hashNode(sibling, hash) : hashNode(hash, sibling);
+        }
+        
+        return Hex.toHexString(hash).equalsIgnoreCase(root);
+    }
+    
+    /**
+     * Serializes a proof for storage, e.g. [{"position":"left","hash":"..."}, ...]
+     */
+    public static String toJson(List<ProofStep> proof) {
+        JSONArray steps = new JSONArray();
+        for (ProofStep step : proof) {
+            steps.put(new JSONObject()
+                    .put("position", step.left() ? "left" : "right")
+                    .put("hash", step.hash()));
+        }
+        
+        return steps.toString();
+    }
+    
+    public static List<ProofStep> fromJson(String json) {
+        final JSONArray steps = new JSONArray(json);
+        
+        List<ProofStep> proof = new ArrayList<>(steps.length());
+        for (int i = 0; i < steps.length(); i++) {
+            final JSONObject step = steps.getJSONObject(i);
+            proof.add(new ProofStep("left".equals(step.getString("position")), step.getString("hash")));
+        }
+        
+        return proof;
+    }
+    
+    private static byte[] hashNode(byte[] left, byte[] right) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(NODE_PREFIX);
+            digest.update(left);
+            digest.update(right);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+    
+    /**
+     * One step of an inclusion proof.
+     * @param left True if the sibling is on the left of the path, i.e. hashed before it
+     * @param hash Hex-encoded hash of the sibling
+     */
+    public record ProofStep(boolean left, String hash) {}
+}
@@ -0,0 +1,31 @@
+package org.joget.hedera.model;
+
+/**
+ * A submitted transaction whose outcome is resolved from the mirror node in the background, and stored to the process that submitted it.
+ * @param transactionId The submitted transaction (e.g. 0.0.1234@1700000000.123456789)
+ * @param appId App of the process
+ * @param appVersion Version of the app of the process
+ * @param backendService Backend service to look up the transaction through, as in the backend configs (e.g. publicHedera)
+ * @param networkType Network the transaction was submitted to (e.g. testnet)
+ * @param processDefId Definition ID of the process
+ * @param processId The process to store the outcome to
+ * @param waitActivityDefId Activity to complete once the outcome is stored, or empty if none
+ * @param username User to complete the activity as
+ * @param statusVariable Workflow variable for the transaction result (e.g. SUCCESS)
+ * @param timestampVariable Workflow variable for the consensus timestamp
+ * @param timezone Timezone to format the consensus timestamp in, or empty for the server's timezone
+ */
+public record PendingCompletion(
+        String transactionId,
+        String appId,
+        String appVersion,
+        String backendService,
+        String networkType,
+        String processDefId,
+        String processId,
+        String waitActivityDefId,
+        String username,
+        String statusVariable,
+        String timestampVariable,
+        String timezone) {
+}
@@ -0,0 +1,38 @@
+package org.joget.hedera.model;
+
+/**
+ * A standing subscription to the messages of a topic, which starts a workflow process for new messages as they reach consensus.
+ * @param appId App to start processes in
+ * @param appVersion Version of the app to start processes in
+ * @param topicId The topic to subscribe to
+ * @param processDefId Definition ID of the process to start, without the app prefix (e.g. process1)
+ * @param username User to start processes as
+ * @param backendService Backend service to subscribe through, as in the backend configs (e.g. publicHedera)
+ * @param networkType Network the topic is on (e.g. testnet)
+ * @param batchPerProcess True to start one process per batch of messages, false to start one process per message
+ * @param startFromBeginning True to receive all past messages of the topic on first subscription, false to receive only new messages
+ * @param messageVariable Workflow variable for the message content. For batches, a JSON array of all messages of the batch.
+ * @param sequenceNumberVariable Workflow variable for the sequence number of the (last) message
+ * @param consensusTimestampVariable Workflow variable for the consensus timestamp of the (last) message
+ */
+public record TopicSubscription(
+        String appId,
+        String appVersion,
+        String topicId,
+        String processDefId,
+        String username,
+        String backendService,
+        String networkType,
+        boolean batchPerProcess,
+        boolean startFromBeginning,
+        String messageVariable,
+        String sequenceNumberVariable,
+        String consensusTimestampVariable) {
+    
+    /**
+     * An app holds at most one subscription per topic.
+     */
+    public String getId() {
+        return appId + "_" + topicId;
+    }
+}
@@ -0,0 +1,75 @@
+package org.joget.hedera.model;
+
+import com.hedera.hashgraph.sdk.TransactionId;
+import com.hedera.hashgraph.sdk.TransactionReceipt;
+import com.hedera.hashgraph.sdk.TransactionRecord;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Outcome of an executed transaction. 
+ * Depending on the completion mode, only the receipt may be available, in which case record details such as the consensus timestamp are null.
+ * Transactions submitted without waiting for consensus are pending, and have neither.
+ * A pending result may hold the confirmation it will complete with, if the submitter awaits one anyway (e.g. pipelined topic messages).
+ */
+public class TransactionResult {
+    
+    private final TransactionId transactionId;
+    private final TransactionReceipt receipt;
+    private final TransactionRecord record;
+    private final CompletableFuture<TransactionResult> confirmation;
+    
+    private TransactionResult(TransactionId transactionId, TransactionReceipt receipt, TransactionRecord record, CompletableFuture<TransactionResult> confirmation) {
+        this.transactionId = transactionId;
+        this.receipt = receipt;
+        this.record = record;
+        this.confirmation = confirmation;
+    }
+    
+    public static TransactionResult fromRecord(TransactionRecord record) {
+        return new TransactionResult(record.transactionId, record.receipt, record, null);
+    }
+    
+    public static TransactionResult fromReceipt(TransactionId transactionId, TransactionReceipt receipt) {
+        return new TransactionResult(transactionId, receipt, null, null);
+    }
+    
+    public static TransactionResult pending(TransactionId transactionId) {
+        return new TransactionResult(transactionId, null, null, null);
+    }
+    
+    public static TransactionResult pending(TransactionId transactionId, CompletableFuture<TransactionResult> confirmation) {
+        return new TransactionResult(transactionId, null, null, confirmation);
+    }
+    
+    public TransactionId getTransactionId() {
+        return transactionId;
+    }
+    
+    public TransactionReceipt getReceipt() {
+        return receipt;
+    }
+    
+    public TransactionRecord getRecord() {
+        return record;
+    }
+    
+    public boolean isPending() {
+        return receipt == null;
+    }
+    
+    /**
+     * @return The confirmation of a pending result, or null if none is awaited
+     */
+    public CompletableFuture<TransactionResult> getConfirmation() {
+        return confirmation;
+    }
+    
+    public boolean hasRecord() {
+        return record != null;
+    }
+    
+    public Instant getConsensusTimestamp() {
+        return record != null ? record.consensusTimestamp : null;
+    }
+}
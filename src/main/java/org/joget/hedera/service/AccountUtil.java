@@ -1,9 +1,11 @@
 package org.joget.hedera.service;
 
 import com.hedera.hashgraph.sdk.AccountId;
+import com.hedera.hashgraph.sdk.BadMnemonicException;
 import com.hedera.hashgraph.sdk.Mnemonic;
 import com.hedera.hashgraph.sdk.PrivateKey;
 import com.hedera.hashgraph.sdk.PublicKey;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.joget.commons.util.LogUtil;
 
 public class AccountUtil {
@@ -19,6 +21,33 @@ public class AccountUtil {
         }
     }
     
+    /**
+     * Derives the key pair of a mnemonic phrase that is stored encrypted (see PluginUtil.encrypt()).
+     * Derived keys are briefly cached by a hash of the encrypted phrase, to skip repeating the costly BIP-39 derivation.
+     * @return The derived key pair, or null if the key cannot be derived
+     */
+    public static KeyPair deriveKeyPairFromEncryptedMnemonic(String encryptedMnemonic) throws BadMnemonicException {
+        final String cacheKey = DigestUtils.sha256Hex(encryptedMnemonic);
+        
+        PrivateKey privateKey = MnemonicKeyCache.get(cacheKey);
+        if (privateKey == null) {
+            privateKey = derivePrivateKeyFromMnemonic(Mnemonic.fromString(PluginUtil.decrypt(encryptedMnemonic)));
+            if (privateKey == null) {
+                return null;
+            }
+            MnemonicKeyCache.put(cacheKey, privateKey);
+        }
+        
+        return new KeyPair(privateKey, privateKey.getPublicKey());
+    }
+    
+    /**
+     * Zeroes and drops all cached keys. Called when the plugin bundle is stopped.
+     */
+    public static void clearKeyCache() {
+        MnemonicKeyCache.clear();
+    }
+    
     public static AccountId getAccountIdFromMnemonic(Mnemonic mnemonic) {
         return derivePrivateKeyFromMnemonic(mnemonic).toAccountId(0, 0);
     }
@@ -30,4 +59,6 @@ public class AccountUtil {
     private static String getClassName() {
         return AccountUtil.class.getName();
     }
+    
+    public record KeyPair(PrivateKey privateKey, PublicKey publicKey) {}
 }
@@ -2,11 +2,16 @@ package org.joget.hedera.service;
 
 import com.hedera.hashgraph.sdk.AccountId;
 import com.hedera.hashgraph.sdk.Client;
+import com.hedera.hashgraph.sdk.LedgerId;
 import com.hedera.hashgraph.sdk.PrivateKey;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import org.joget.apps.app.dao.PluginDefaultPropertiesDao;
+import org.joget.apps.app.model.AppDefinition;
 import org.joget.apps.app.model.PluginDefaultProperties;
 import org.joget.apps.app.service.AppUtil;
 import org.joget.commons.util.LogUtil;
@@ -16,11 +21,20 @@ import org.joget.plugin.property.service.PropertyUtil;
 
 public class BackendUtil {
     
+    public static final String TIMEZONE_PROPERTY = "timezone";
+    
+    private static final long DEFAULT_CONFIG_TTL_MINUTES = 5;
+    
+    private static final Map<String, CachedConfig> defaultConfigs = new ConcurrentHashMap<>();
+    
     private BackendUtil() {}
     
     public static Client getHederaClient(Map properties) {
-        properties = getBackendDefaultConfig(properties);
-        
+        return createHederaClient(getBackendDefaultConfig(properties));
+    }
+    
+    //Builds a new client from properties that already have backend default configs merged in
+    static Client createHederaClient(Map properties) {
         final AccountId operatorAccountId = AccountId.fromString((String) properties.get("operatorId"));
         final PrivateKey operatorPrivateKey = PrivateKey.fromString((String) properties.get("operatorKey"));
         
@@ -31,7 +45,7 @@ public class BackendUtil {
                 return Client
                         .forName(networkType)
                         .setOperator(operatorAccountId, operatorPrivateKey)
-                        .setMirrorNetwork(List.of("grpc." + networkType + ".arkhia.io:443"))
+                        .setMirrorNetwork(List.of(getArkhiaMirrorEndpoint(networkType)))
                         .setMaxAttempts(20)
                         .setMaxBackoff(Duration.ofSeconds(2L));
             } catch (Exception ex) {
@@ -47,6 +61,61 @@ public class BackendUtil {
         }
     }
     
+    /**
+     * Builds a client without an operator, for mirror node gRPC queries (e.g. topic subscriptions) that need no signing or payment.
+     * @param backendService Backend service as in the backend configs, e.g. publicHedera
+     * @param networkType Network name, e.g. testnet
+     */
+    public static Client createMirrorClient(String backendService, String networkType) {
+        try {
+            final Client client = Client.forName(networkType);
+            
+            if ("arkhia".equalsIgnoreCase(backendService)) {
+                client.setMirrorNetwork(List.of(getArkhiaMirrorEndpoint(networkType)));
+            }
+            
+            return client;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LogUtil.error(getClassName(), ex, "Interrupted while initializing mirror network");
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Unable to initialize backend service");
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Resolves the ledger of the configured network without creating a client, for callers that only query the mirror node REST API.
+     */
+    public static LedgerId getLedgerId(Map properties) {
+        properties = getBackendDefaultConfig(properties);
+        
+        final String networkType = "arkhia".equalsIgnoreCase((String) properties.get("backendService"))
+                ? (String) properties.get("arkhiaNetworkType")
+                : (String) properties.get("networkType");
+        
+        try {
+            return LedgerId.fromString(networkType);
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Unknown network type of --> " + networkType);
+            return null;
+        }
+    }
+    
+    /**
+     * @return Timezone ID to display timestamps in, as set in the backend configs. Empty if not set.
+     */
+    public static String getTimezone(Map properties) {
+        final String timezone = (String) getBackendDefaultConfig(properties).get(TIMEZONE_PROPERTY);
+        
+        return timezone != null ? timezone : "";
+    }
+    
+    public static String getArkhiaMirrorEndpoint(String networkType) {
+        return "grpc." + networkType + ".arkhia.io:443";
+    }
+    
     public static Map getBackendDefaultConfig(Map properties) {
         Map defaultProps = getBackendDefaultConfig();
         if (defaultProps != null) {
@@ -56,11 +125,50 @@ public class BackendUtil {
         return properties;
     }
     
+    /**
+     * Returns the backend configs of the current app version stored in HederaDefaultBackendConfigurator, or null if not configured.
+     * Resolved configs are cached per app version, and refreshed when the configurator is saved or after DEFAULT_CONFIG_TTL_MINUTES.
+     */
     public static Map getBackendDefaultConfig() {
+        final AppDefinition appDef = AppUtil.getCurrentAppDefinition();
+        if (appDef == null) {
+            return loadBackendDefaultConfig(null);
+        }
+        
+        final String cacheKey = getDefaultConfigCacheKey(appDef.getAppId(), String.valueOf(appDef.getVersion()));
+        
+        CachedConfig cachedConfig = defaultConfigs.get(cacheKey);
+        if (cachedConfig != null && !cachedConfig.isExpired()) {
+            return cachedConfig.config();
+        }
+        
+        Map config = loadBackendDefaultConfig(appDef);
+        if (config != null) {
+            config = Collections.unmodifiableMap(config);
+        }
+        defaultConfigs.put(cacheKey, new CachedConfig(config, System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(DEFAULT_CONFIG_TTL_MINUTES)));
+        
+        return config;
+    }
+    
+    /**
+     * Drops cached backend configs of an app. Clears all cached configs if no app ID is given.
+     */
+    public static void invalidateBackendDefaultConfig(String appId) {
+        if (appId == null || appId.isEmpty()) {
+            defaultConfigs.clear();
+            return;
+        }
+        
+        final String keyPrefix = getDefaultConfigCacheKey(appId, "");
+        defaultConfigs.keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+    
+    private static Map loadBackendDefaultConfig(AppDefinition appDef) {
         PluginDefaultPropertiesDao pluginDefaultPropertiesDao = (PluginDefaultPropertiesDao) AppUtil.getApplicationContext().getBean("pluginDefaultPropertiesDao");
         PluginDefaultProperties prop = pluginDefaultPropertiesDao.loadById(
                 HederaDefaultBackendConfigurator.class.getCanonicalName(), 
-                AppUtil.getCurrentAppDefinition()
+                appDef
         );
         
         if (prop == null) {
@@ -72,7 +180,18 @@ public class BackendUtil {
         );
     }
     
+    private static String getDefaultConfigCacheKey(String appId, String appVersion) {
+        return appId + ":" + appVersion;
+    }
+    
     private static String getClassName() {
         return BackendUtil.class.getName();
     }
+    
+    private record CachedConfig(Map config, long expiry) {
+        
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiry;
+        }
+    }
 }
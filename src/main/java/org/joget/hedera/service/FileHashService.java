@@ -0,0 +1,170 @@
+package org.joget.hedera.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * SHA-256 hashing of uploaded files, e.g. for file integrity memos.
+ *
+ * Files are read through a file channel in large chunks, and several files are hashed in parallel on a small bounded pool.
+ * Digests are cached by file path, size and last modified time, so unchanged files are not hashed again when a record is re-submitted.
+ * Pool size and cache size can be tuned through the hedera.fileHash.threads and hedera.fileHash.cacheMaxEntries system properties.
+ */
+public class FileHashService {
+    
+    private static final int HASH_THREADS = Integer.getInteger("hedera.fileHash.threads", Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int CACHE_MAX_ENTRIES = Integer.getInteger("hedera.fileHash.cacheMaxEntries", 1000);
+    
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    
+    private static final Map<FileKey, String> digests = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FileKey, String> eldest) {
+            return size() > CACHE_MAX_ENTRIES;
+        }
+    };
+    
+    private static ThreadPoolExecutor executor;
+    
+    private FileHashService() {}
+    
+    /**
+     * @return Hex encoded SHA-256 digest of the file content
+     */
+    public static String sha256Hex(File file) throws IOException {
+        final FileKey key = FileKey.from(file);
+        
+        synchronized (digests) {
+            String digest = digests.get(key);
+            if (digest != null) {
+                return digest;
+            }
+        }
+        
+        final String digest = hashFile(file);
+        
+        synchronized (digests) {
+            digests.put(key, digest);
+        }
+        
+        return digest;
+    }
+    
+    /**
+     * Hashes all files in parallel.
+     * @return Hex encoded SHA-256 digests, in the same order as the given files
+     */
+    public static List<String> sha256Hex(List<File> files) throws IOException {
+        if (files.size() <= 1) {
+            List<String> fileDigests = new ArrayList<>(files.size());
+            for (File file : files) {
+                fileDigests.add(sha256Hex(file));
+            }
+            return fileDigests;
+        }
+        
+        List<Future<String>> futures = new ArrayList<>(files.size());
+        for (File file : files) {
+            futures.add(getExecutor().submit(() -> sha256Hex(file)));
+        }
+        
+        List<String> fileDigests = new ArrayList<>(files.size());
+        try {
+            for (Future<String> future : futures) {
+                fileDigests.add(future.get());
+            }
+        } catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while hashing files", ex);
+        } catch (ExecutionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException("Error hashing files", ex.getCause());
+        }
+        
+        return fileDigests;
+    }
+    
+    public static void clear() {
+        synchronized (digests) {
+            digests.clear();
+        }
+    }
+    
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        clear();
+    }
+    
+    private static String hashFile(File file) throws IOException {
+        final MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+        
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(1, Math.min(READ_BUFFER_SIZE, channel.size())));
+            
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                messageDigest.update(buffer);
+                buffer.clear();
+            }
+        }
+        
+        return Hex.encodeHexString(messageDigest.digest());
+    }
+    
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            
+            executor = new ThreadPoolExecutor(
+                    HASH_THREADS,
+                    HASH_THREADS,
+                    30,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "hedera-file-hash-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+            );
+            executor.allowCoreThreadTimeOut(true);
+        }
+        
+        return executor;
+    }
+    
+    private record FileKey(String path, long size, long lastModified) {
+        
+        private static FileKey from(File file) throws IOException {
+            return new FileKey(file.getCanonicalPath(), file.length(), file.lastModified());
+        }
+    }
+}
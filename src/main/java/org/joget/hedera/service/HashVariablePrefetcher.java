@@ -0,0 +1,233 @@
+package org.joget.hedera.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import org.joget.commons.util.LogUtil;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Warms mirror node data for all Hedera hash variables of a render pass (e.g. a form or datalist page).
+ *
+ * Joget resolves each hash variable on its own, so the full set of keys of a page is not known upfront.
+ * Instead, the mirror paths looked up while rendering a page are remembered in the user's session, per page and mirror endpoint,
+ * and replace those of the previous render. The next time the page is rendered, as soon as its first Hedera hash variable is processed,
+ * the remembered paths are grouped by entity type and requested ahead of time:
+ * accounts are requested in batches through the accounts list query (e.g. accounts?account.id=0.0.1&account.id=0.0.2),
+ * while other entities, which have no list query that returns all of their attributes, are requested in parallel.
+ * Later hash variables of the page are then served from the prefetched responses.
+ *
+ * At most hedera.hashVariable.maxPrefetchPaths (system property) paths are remembered per page, keeping the most recently looked up ones.
+ */
+public class HashVariablePrefetcher {
+    
+    private static final int MAX_PREFETCH_PATHS = Integer.getInteger("hedera.hashVariable.maxPrefetchPaths", 100);
+    private static final int MAX_TRACKED_RENDERS = 20;
+    private static final int ACCOUNT_BATCH_SIZE = 25;
+    
+    private static final Pattern ACCOUNT_PATH_PATTERN = Pattern.compile("accounts/(\\d+\\.\\d+\\.\\d+)");
+    
+    private static final String PREFETCHED_ATTRIBUTE = "hedera-hashVarPrefetched";
+    private static final String RENDER_PATHS_ATTRIBUTE = "hedera-hashVarRenderPaths";
+    private static final String RENDER_HISTORY_ATTRIBUTE = "hedera-hashVarRenderHistory";
+    
+    private static final Object historyLock = new Object();
+    
+    private HashVariablePrefetcher() {}
+    
+    /**
+     * Requests all mirror paths seen in the last render of the current page against the given mirror endpoint.
+     * Only the first call per request and endpoint has any effect.
+     */
+    public static void prefetch(HttpServletRequest request, MirrorRestService restService) {
+        if (request == null) {
+            return;
+        }
+        
+        Map<String, Map<String, CompletableFuture<JSONObject>>> prefetched = (Map) request.getAttribute(PREFETCHED_ATTRIBUTE);
+        if (prefetched == null) {
+            prefetched = new HashMap<>();
+            request.setAttribute(PREFETCHED_ATTRIBUTE, prefetched);
+        }
+        
+        final String endpointUrl = restService.getEndpointUrl();
+        if (prefetched.containsKey(endpointUrl)) {
+            return;
+        }
+        
+        final Map<String, CompletableFuture<JSONObject>> responses = new HashMap<>();
+        prefetched.put(endpointUrl, responses);
+        
+        final List<String> paths = getLastRenderPaths(request, endpointUrl);
+        if (paths.isEmpty()) {
+            return;
+        }
+        
+        final List<String> accountIds = new ArrayList<>();
+        for (String path : paths) {
+            Matcher accountPath = ACCOUNT_PATH_PATTERN.matcher(path);
+            if (accountPath.matches()) {
+                accountIds.add(accountPath.group(1));
+            } else {
+                responses.put(path, restService.getAsync(path));
+            }
+        }
+        
+        for (int i = 0; i < accountIds.size(); i += ACCOUNT_BATCH_SIZE) {
+            final List<String> batch = accountIds.subList(i, Math.min(i + ACCOUNT_BATCH_SIZE, accountIds.size()));
+            final CompletableFuture<JSONObject> batchResponse = restService.getAsync(
+                    "accounts?account.id=" + String.join("&account.id=", batch) + "&limit=" + batch.size());
+            
+            for (String accountId : batch) {
+                responses.put("accounts/" + accountId, batchResponse.thenApply(response -> findAccount(response, accountId)));
+            }
+        }
+        
+        LogUtil.debug(getClassName(), "Prefetching " + paths.size() + " mirror paths for " + request.getRequestURI());
+    }
+    
+    /**
+     * Retrieves the prefetched response of a mirror path, waiting for it if still in flight.
+     * @return The response, or null if the path was not prefetched or its request failed
+     */
+    public static JSONObject getPrefetched(HttpServletRequest request, MirrorRestService restService, String path) {
+        if (request == null) {
+            return null;
+        }
+        
+        final Map<String, Map<String, CompletableFuture<JSONObject>>> prefetched = (Map) request.getAttribute(PREFETCHED_ATTRIBUTE);
+        if (prefetched == null || !prefetched.containsKey(restService.getEndpointUrl())) {
+            return null;
+        }
+        
+        final CompletableFuture<JSONObject> response = prefetched.get(restService.getEndpointUrl()).get(path);
+        if (response == null) {
+            return null;
+        }
+        
+        try {
+            return response.join();
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Error waiting for prefetched mirror node response...");
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Remembers a mirror path looked up while rendering the current page against the given mirror endpoint.
+     * The first path of a render replaces the paths remembered from the previous render of the page.
+     */
+    public static void record(HttpServletRequest request, MirrorRestService restService, String path) {
+        if (request == null) {
+            return;
+        }
+        
+        final HttpSession session = request.getSession(false);
+        if (session == null) {
+            return;
+        }
+        
+        Map<String, LinkedHashSet<String>> renderPaths = (Map) request.getAttribute(RENDER_PATHS_ATTRIBUTE);
+        if (renderPaths == null) {
+            renderPaths = new HashMap<>();
+            request.setAttribute(RENDER_PATHS_ATTRIBUTE, renderPaths);
+        }
+        
+        synchronized (historyLock) {
+            LinkedHashSet<String> paths = renderPaths.get(restService.getEndpointUrl());
+            if (paths == null) {
+                paths = new LinkedHashSet<>();
+                renderPaths.put(restService.getEndpointUrl(), paths);
+                putRenderHistory(session, getRenderKey(request, restService.getEndpointUrl()), paths);
+            }
+            
+            //Most recently looked up paths are kept, with repeated paths moved to the end
+            paths.remove(path);
+            paths.add(path);
+            
+            if (paths.size() > MAX_PREFETCH_PATHS) {
+                Iterator<String> iterator = paths.iterator();
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+    
+    private static List<String> getLastRenderPaths(HttpServletRequest request, String endpointUrl) {
+        final HttpSession session = request.getSession(false);
+        if (session == null) {
+            return List.of();
+        }
+        
+        synchronized (historyLock) {
+            Map<String, LinkedHashSet<String>> history = (Map) session.getAttribute(RENDER_HISTORY_ATTRIBUTE);
+            if (history == null) {
+                return List.of();
+            }
+            
+            LinkedHashSet<String> paths = history.get(getRenderKey(request, endpointUrl));
+            return paths != null ? new ArrayList<>(paths) : List.of();
+        }
+    }
+    
+    /*
+        Only JDK types are stored in the session, so that it can still be restored or replicated without this bundle's classes.
+    */
+    private static void putRenderHistory(HttpSession session, String renderKey, LinkedHashSet<String> paths) {
+        LinkedHashMap<String, LinkedHashSet<String>> history = (LinkedHashMap) session.getAttribute(RENDER_HISTORY_ATTRIBUTE);
+        if (history == null) {
+            history = new LinkedHashMap<>(16, 0.75f, true);
+        }
+        
+        history.put(renderKey, paths);
+        
+        if (history.size() > MAX_TRACKED_RENDERS) {
+            Iterator<String> iterator = history.keySet().iterator();
+            iterator.next();
+            iterator.remove();
+        }
+        
+        session.setAttribute(RENDER_HISTORY_ATTRIBUTE, history);
+    }
+    
+    private static JSONObject findAccount(JSONObject response, String accountId) {
+        if (response == null) {
+            return null;
+        }
+        
+        final JSONArray accounts = response.optJSONArray("accounts");
+        if (accounts == null) {
+            return null;
+        }
+        
+        for (int i = 0; i < accounts.length(); i++) {
+            JSONObject account = accounts.getJSONObject(i);
+            if (accountId.equals(account.optString("account"))) {
+                return account;
+            }
+        }
+        
+        return null;
+    }
+    
+    private static String getRenderKey(HttpServletRequest request, String endpointUrl) {
+        final String queryString = request.getQueryString();
+        final String pageUrl = queryString != null ? request.getRequestURI() + "?" + queryString : request.getRequestURI();
+        return endpointUrl + " " + pageUrl;
+    }
+    
+    private static String getClassName() {
+        return HashVariablePrefetcher.class.getName();
+    }
+}
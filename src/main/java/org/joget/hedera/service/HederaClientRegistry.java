@@ -0,0 +1,213 @@
+package org.joget.hedera.service;
+
+import com.hedera.hashgraph.sdk.Client;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.joget.commons.util.LogUtil;
+
+/**
+ * Keeps long-lived Hedera clients so that plugin invocations reuse warm gRPC channels
+ * instead of rebuilding the network address book on every call.
+ *
+ * Clients are keyed by backend service, network type, operator and mirror endpoint.
+ * Each borrower holds a reference through a ClientLease, and clients with no active
+ * lease are closed once they have been idle for longer than IDLE_TIMEOUT_MINUTES.
+ */
+public class HederaClientRegistry {
+    
+    private static final long IDLE_TIMEOUT_MINUTES = 5;
+    private static final long EVICTION_INTERVAL_MINUTES = 1;
+    
+    private static final Map<ClientKey, ClientEntry> clients = new ConcurrentHashMap<>();
+    
+    private static ScheduledExecutorService evictionExecutor;
+    
+    private HederaClientRegistry() {}
+    
+    /**
+     * Borrows a shared client for the given plugin properties. Backend default configs are merged into the properties.
+     * @param properties Plugin properties containing the backend configurations
+     * @return A lease to be closed once the client is no longer needed, or null if the client cannot be initialized
+     */
+    public static ClientLease acquire(Map properties) {
+        properties = BackendUtil.getBackendDefaultConfig(properties);
+        
+        final ClientKey key = ClientKey.from(properties);
+        final Map resolvedProperties = properties;
+        
+        final ClientEntry entry = clients.compute(key, (k, existing) -> {
+            ClientEntry current = existing;
+            if (current == null) {
+                Client client = BackendUtil.createHederaClient(resolvedProperties);
+                if (client == null) {
+                    return null;
+                }
+                current = new ClientEntry(client);
+            }
+            current.refCount++;
+            current.lastUsed = System.currentTimeMillis();
+            return current;
+        });
+        
+        if (entry == null) {
+            return null;
+        }
+        
+        startEvictionIfRequired();
+        
+        return new ClientLease(key, entry);
+    }
+    
+    /**
+     * Closes all cached clients regardless of active leases. Called when the plugin bundle is stopped.
+     */
+    public static synchronized void shutdown() {
+        if (evictionExecutor != null) {
+            evictionExecutor.shutdownNow();
+            evictionExecutor = null;
+        }
+        
+        List<ClientEntry> entries = new ArrayList<>(clients.values());
+        clients.clear();
+        
+        for (ClientEntry entry : entries) {
+            closeClient(entry.client);
+        }
+    }
+    
+    private static void release(ClientKey key, ClientEntry entry) {
+        clients.computeIfPresent(key, (k, current) -> {
+            if (current == entry) {
+                current.refCount--;
+                current.lastUsed = System.currentTimeMillis();
+            }
+            return current;
+        });
+    }
+    
+    private static void evictIdleClients() {
+        final long idleThreshold = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(IDLE_TIMEOUT_MINUTES);
+        
+        for (ClientKey key : new ArrayList<>(clients.keySet())) {
+            final List<ClientEntry> evicted = new ArrayList<>(1);
+            
+            clients.computeIfPresent(key, (k, current) -> {
+                if (current.refCount <= 0 && current.lastUsed < idleThreshold) {
+                    evicted.add(current);
+                    return null;
+                }
+                return current;
+            });
+            
+            for (ClientEntry entry : evicted) {
+                LogUtil.debug(getClassName(), "Evicting idle hedera client for operator " + key.operatorId() + " on " + key.networkType());
+                closeClient(entry.client);
+            }
+        }
+    }
+    
+    private static synchronized void startEvictionIfRequired() {
+        if (evictionExecutor != null) {
+            return;
+        }
+        
+        evictionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hedera-client-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        evictionExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                evictIdleClients();
+            } catch (Exception ex) {
+                LogUtil.error(getClassName(), ex, "Error evicting idle hedera clients");
+            }
+        }, EVICTION_INTERVAL_MINUTES, EVICTION_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+    
+    private static void closeClient(Client client) {
+        try {
+            client.close();
+        } catch (TimeoutException ex) {
+            LogUtil.error(getClassName(), ex, "Timeout while closing hedera client");
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Error closing hedera client");
+        }
+    }
+    
+    private static String getClassName() {
+        return HederaClientRegistry.class.getName();
+    }
+    
+    /**
+     * A borrowed reference to a shared client. Closing the lease only releases the reference, the client itself stays open.
+     */
+    public static final class ClientLease implements AutoCloseable {
+        
+        private final ClientKey key;
+        private final ClientEntry entry;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        
+        private ClientLease(ClientKey key, ClientEntry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+        
+        public Client getClient() {
+            return entry.client;
+        }
+        
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(key, entry);
+            }
+        }
+    }
+    
+    private static final class ClientEntry {
+        
+        private final Client client;
+        private int refCount;
+        private long lastUsed;
+        
+        private ClientEntry(Client client) {
+            this.client = client;
+        }
+    }
+    
+    private record ClientKey(String backendService, String networkType, String operatorId, String operatorKeyHash, String mirrorEndpoint) {
+        
+        private static ClientKey from(Map properties) {
+            final String backendService = (String) properties.get("backendService");
+            final String operatorKey = (String) properties.get("operatorKey");
+            
+            final String networkType;
+            final String mirrorEndpoint;
+            if ("arkhia".equalsIgnoreCase(backendService)) {
+                networkType = (String) properties.get("arkhiaNetworkType");
+                mirrorEndpoint = BackendUtil.getArkhiaMirrorEndpoint(networkType);
+            } else {
+                networkType = (String) properties.get("networkType");
+                mirrorEndpoint = "";
+            }
+            
+            return new ClientKey(
+                    backendService != null ? backendService : "",
+                    networkType,
+                    (String) properties.get("operatorId"),
+                    operatorKey != null ? DigestUtils.sha256Hex(operatorKey) : "",
+                    mirrorEndpoint
+            );
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package org.joget.hedera.service;
+
+import com.hedera.hashgraph.sdk.PrivateKey;
+import com.hedera.hashgraph.sdk.TopicId;
+import com.hedera.hashgraph.sdk.TopicMessageSubmitTransaction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.util.encoders.Hex;
+import org.joget.apps.app.service.AppService;
+import org.joget.apps.app.service.AppUtil;
+import org.joget.apps.form.model.FormRow;
+import org.joget.apps.form.model.FormRowSet;
+import org.joget.commons.util.LogUtil;
+import org.joget.hedera.model.MerkleTree;
+import org.joget.hedera.model.TransactionResult;
+import org.joget.hedera.service.HederaClientRegistry.ClientLease;
+import org.json.JSONObject;
+
+/**
+ * Anchors record hashes to a topic in batches, by submitting only the Merkle root of each batch.
+ *
+ * Hashes are collected per app, topic and proof form, until the batch reaches its record limit or its time window ends,
+ * whichever comes first. The root is then submitted through TopicMessagePublisher, and once confirmed,
+ * each record's inclusion proof is stored to the proof form, keyed by the record ID.
+ *
+ * Each record is stored to the proof form as pending when added, and its row is overwritten with the proof once anchored.
+ * Batches themselves are only held in memory. Open batches are anchored when the plugin bundle is stopped,
+ * but are lost if the server stops abruptly, in which case the affected records are left pending and can be anchored again.
+ */
+public class MerkleAnchorService {
+    
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_ANCHORED = "ANCHORED";
+    public static final String STATUS_FAILED = "FAILED";
+    
+    private static final int SCHEDULER_THREADS = 1;
+    private static final long SHUTDOWN_WAIT_SECONDS = 30;
+    
+    private static final Map<AnchorTarget, Batch> batches = new ConcurrentHashMap<>();
+    
+    private static ScheduledThreadPoolExecutor scheduler;
+    
+    private MerkleAnchorService() {}
+    
+    /**
+     * Adds a record hash to the open batch of the target, starting a new batch if there is none.
+     * @param recordHash Hex-encoded SHA-256 hash of the record, e.g. from PluginUtil.getTextHashSha256()
+     */
+    public static void add(AnchorTarget target, String recordId, String recordHash) {
+        //Validates the hash upfront, so that a malformed hash cannot fail the whole batch later
+        Hex.decode(recordHash);
+        
+        storePending(target, recordId, recordHash);
+        
+        final List<Batch> fullBatches = new ArrayList<>(1);
+        
+        batches.compute(target, (key, batch) -> {
+            if (batch == null) {
+                batch = new Batch(target);
+                scheduleFlush(target, batch);
+            }
+            batch.add(recordId, recordHash);
+            
+            if (batch.size() >= target.maxRecords()) {
+                fullBatches.add(batch);
+                return null;
+            }
+            return batch;
+        });
+        
+        for (Batch batch : fullBatches) {
+            execute(() -> flush(batch));
+        }
+    }
+    
+    /**
+     * Anchors all open batches, and waits a while for their proofs to be stored. Called when the plugin bundle is stopped.
+     */
+    public static void shutdown() {
+        List<CompletableFuture<?>> anchors = new ArrayList<>();
+        for (AnchorTarget target : new ArrayList<>(batches.keySet())) {
+            final Batch batch = batches.remove(target);
+            if (batch != null) {
+                anchors.add(flush(batch));
+            }
+        }
+        
+        try {
+            CompletableFuture.allOf(anchors.toArray(new CompletableFuture[0])).get(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception ex) {
+            LogUtil.warn(getClassName(), "Not all open anchor batches were confirmed before shutdown.");
+        }
+        
+        synchronized (MerkleAnchorService.class) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+        }
+    }
+    
+    private static void scheduleFlush(AnchorTarget target, Batch batch) {
+        try {
+            getScheduler().schedule(() -> {
+                if (batches.remove(target, batch)) {
+                    flush(batch);
+                }
+            }, target.maxWaitSeconds(), TimeUnit.SECONDS);
+        } catch (RejectedExecutionException ex) {
+            LogUtil.warn(getClassName(), "Merkle anchor service is shut down. Batch for topic " + target.topicId() + " is anchored once full.");
+        }
+    }
+    
+    private static void execute(Runnable task) {
+        try {
+            getScheduler().execute(task);
+        } catch (RejectedExecutionException ex) {
+            task.run();
+        }
+    }
+    
+    private static CompletableFuture<Void> flush(Batch batch) {
+        final AnchorTarget target = batch.target;
+        final MerkleTree tree = MerkleTree.build(batch.recordHashes);
+        
+        final String anchorMessage = new JSONObject()
+                .put("type", "merkleRoot")
+                .put("algorithm", "sha256")
+                .put("root", tree.getRoot())
+                .put("leaves", tree.getLeafCount())
+                .toString();
+        
+        final ClientLease clientLease = HederaClientRegistry.acquire(new HashMap(target.properties()));
+        if (clientLease == null) {
+            LogUtil.warn(getClassName(), "Unable to initialize hedera client. Batch of " + batch.size() + " records for topic " + target.topicId() + " is not anchored.");
+            storeProofs(batch, tree, null);
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        CompletableFuture<TransactionResult> confirmation;
+        try {
+            TopicMessageSubmitTransaction transaction = TopicMessagePublisher
+                    .newTransaction(TopicId.fromString(target.topicId()), anchorMessage.getBytes(StandardCharsets.UTF_8))
+                    .freezeWith(clientLease.getClient());
+            
+            if (target.submitKey() != null) {
+                transaction.sign(target.submitKey());
+            }
+            
+            confirmation = TopicMessagePublisher.submit(clientLease.getClient(), transaction, false);
+        } catch (Exception ex) {
+            confirmation = CompletableFuture.failedFuture(ex);
+        }
+        
+        return confirmation.handle((result, ex) -> {
+            clientLease.close();
+            
+            if (ex != null) {
+                LogUtil.error(getClassName(), ex, "Error anchoring batch of " + batch.size() + " records to topic " + target.topicId());
+            }
+            storeProofs(batch, tree, ex == null ? result : null);
+            return null;
+        });
+    }
+    
+    /*
+        Records of a failed batch are stored too, with a failed status, so that they can be told apart from records still waiting in a batch.
+    */
+    private static void storeProofs(Batch batch, MerkleTree tree, TransactionResult result) {
+        final AnchorTarget target = batch.target;
+        final String root = tree.getRoot();
+        
+        final String sequenceNumber = result != null ? String.valueOf(result.getReceipt().topicSequenceNumber) : "";
+        final String transactionId = result != null ? result.getTransactionId().toString() : "";
+        
+        FormRowSet rowSet = new FormRowSet();
+        rowSet.setMultiRow(true);
+        
+        for (int i = 0; i < batch.size(); i++) {
+            FormRow row = new FormRow();
+            row.setId(batch.recordIds.get(i));
+            putField(row, target.fields().hashField(), batch.recordHashes.get(i));
+            putField(row, target.fields().rootField(), root);
+            putField(row, target.fields().proofField(), MerkleTree.toJson(tree.getProof(i)));
+            putField(row, target.fields().sequenceNumberField(), sequenceNumber);
+            putField(row, target.fields().transactionIdField(), transactionId);
+            putField(row, target.fields().statusField(), result != null ? STATUS_ANCHORED : STATUS_FAILED);
+            
+            rowSet.add(row);
+        }
+        
+        try {
+            storeRows(target, rowSet);
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Error storing anchor proofs for Merkle root " + root);
+        }
+    }
+    
+    /*
+        Persists the record before it is batched, so that records of a batch lost on abrupt shutdown remain detectable.
+        The row is overwritten once the batch is anchored, see storeProofs().
+    */
+    private static void storePending(AnchorTarget target, String recordId, String recordHash) {
+        FormRow row = new FormRow();
+        row.setId(recordId);
+        putField(row, target.fields().hashField(), recordHash);
+        putField(row, target.fields().statusField(), STATUS_PENDING);
+        
+        FormRowSet rowSet = new FormRowSet();
+        rowSet.add(row);
+        
+        try {
+            storeRows(target, rowSet);
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Error storing pending anchor of record " + recordId);
+        }
+    }
+    
+    private static void storeRows(AnchorTarget target, FormRowSet rowSet) {
+        AppService appService = (AppService) AppUtil.getApplicationContext().getBean("appService");
+        if (appService.storeFormData(target.appId(), target.appVersion(), target.proofFormDefId(), rowSet, null) == null) {
+            LogUtil.warn(getClassName(), "Unable to store anchor proofs to form. Encountered invalid form ID of '" + target.proofFormDefId() + "'.");
+        }
+    }
+    
+    private static void putField(FormRow row, String field, String value) {
+        if (field != null && !field.isEmpty()) {
+            row.setProperty(field, value);
+        }
+    }
+    
+    private static synchronized ScheduledThreadPoolExecutor getScheduler() {
+        if (scheduler == null) {
+            scheduler = new ScheduledThreadPoolExecutor(SCHEDULER_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "hedera-merkle-anchor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+        }
+        
+        return scheduler;
+    }
+    
+    private static String getClassName() {
+        return MerkleAnchorService.class.getName();
+    }
+    
+    /**
+     * Where and how records are anchored. Records of equal targets share batches, so a target is identified by its app, topic and proof form only.
+     * @param properties Plugin properties with the backend configs merged in, to submit the root with
+     * @param submitKey Submit key of a private topic, or null
+     * @param maxRecords Records per batch, after which the batch is anchored right away
+     * @param maxWaitSeconds Time after the first record of a batch, after which the batch is anchored regardless of its size
+     */
+    public record AnchorTarget(
+            String appId,
+            String appVersion,
+            String topicId,
+            String proofFormDefId,
+            ProofFields fields,
+            Map properties,
+            PrivateKey submitKey,
+            int maxRecords,
+            long maxWaitSeconds) {
+        
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof AnchorTarget other
+                    && appId.equals(other.appId)
+                    && appVersion.equals(other.appVersion)
+                    && topicId.equals(other.topicId)
+                    && proofFormDefId.equals(other.proofFormDefId);
+        }
+        
+        @Override
+        public int hashCode() {
+            return java.util.Objects.hash(appId, appVersion, topicId, proofFormDefId);
+        }
+    }
+    
+    /**
+     * Field IDs of the proof form to store each record's anchor details to. Empty fields are not stored.
+     */
+    public record ProofFields(String hashField, String rootField, String proofField, String sequenceNumberField, String transactionIdField, String statusField) {}
+    
+    private static final class Batch {
+        
+        private final AnchorTarget target;
+        private final List<String> recordIds = new ArrayList<>();
+        private final List<String> recordHashes = new ArrayList<>();
+        
+        private Batch(AnchorTarget target) {
+            this.target = target;
+        }
+        
+        private void add(String recordId, String recordHash) {
+            recordIds.add(recordId);
+            recordHashes.add(recordHash);
+        }
+        
+        private int size() {
+            return recordIds.size();
+        }
+    }
+}
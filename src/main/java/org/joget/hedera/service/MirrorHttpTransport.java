@@ -0,0 +1,156 @@
+package org.joget.hedera.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.joget.commons.util.LogUtil;
+
+/**
+ * Bundle-wide HTTP transport for mirror node REST calls.
+ *
+ * Connections are pooled and kept alive across requests, and HTTP/2 is negotiated with endpoints that support it.
+ * Timeouts and pool limits can be tuned through the following system properties:
+ * hedera.mirror.connectTimeout, hedera.mirror.socketTimeout (milliseconds),
+ * hedera.mirror.maxConnPerRoute and hedera.mirror.maxConnTotal.
+ */
+public class MirrorHttpTransport {
+    
+    private static final int CONNECT_TIMEOUT_MILLIS = Integer.getInteger("hedera.mirror.connectTimeout", 5000);
+    private static final int SOCKET_TIMEOUT_MILLIS = Integer.getInteger("hedera.mirror.socketTimeout", 15000);
+    private static final int MAX_CONN_PER_ROUTE = Integer.getInteger("hedera.mirror.maxConnPerRoute", 20);
+    private static final int MAX_CONN_TOTAL = Integer.getInteger("hedera.mirror.maxConnTotal", 100);
+    
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final long CONNECTION_TTL_MINUTES = 5;
+    
+    private static volatile CloseableHttpAsyncClient httpClient;
+    
+    private MirrorHttpTransport() {}
+    
+    /**
+     * Executes a GET request and returns the response body regardless of the response status code,
+     * as the mirror node describes errors (e.g. "Not found") in the response body.
+     */
+    public static String get(String url, Map<String, String> headers) throws IOException {
+        try {
+            return getAsync(url, headers).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for response from " + url, ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Error executing GET request to " + url, ex.getCause());
+        }
+    }
+    
+    /**
+     * Non-blocking variant of get(). The returned future completes on the transport's I/O threads,
+     * so dependent stages doing any real work should be run on a separate executor.
+     */
+    public static CompletableFuture<String> getAsync(String url, Map<String, String> headers) {
+        final SimpleRequestBuilder requestBuilder = SimpleRequestBuilder.get(url);
+        headers.forEach(requestBuilder::setHeader);
+        
+        final CompletableFuture<String> responseFuture = new CompletableFuture<>();
+        
+        getHttpClient().execute(requestBuilder.build(), new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                responseFuture.complete(readBody(response));
+            }
+            
+            @Override
+            public void failed(Exception ex) {
+                responseFuture.completeExceptionally(ex);
+            }
+            
+            @Override
+            public void cancelled() {
+                responseFuture.cancel(false);
+            }
+        });
+        
+        return responseFuture;
+    }
+    
+    public static synchronized void shutdown() {
+        if (httpClient == null) {
+            return;
+        }
+        
+        try {
+            httpClient.close(CloseMode.GRACEFUL);
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Error closing mirror HTTP transport");
+        }
+        httpClient = null;
+    }
+    
+    private static String readBody(SimpleHttpResponse response) {
+        final byte[] body = response.getBodyBytes();
+        if (body == null) {
+            return null;
+        }
+        
+        return new String(body, StandardCharsets.UTF_8);
+    }
+    
+    private static CloseableHttpAsyncClient getHttpClient() {
+        CloseableHttpAsyncClient client = httpClient;
+        if (client != null) {
+            return client;
+        }
+        
+        synchronized (MirrorHttpTransport.class) {
+            if (httpClient == null) {
+                httpClient = createHttpClient();
+                httpClient.start();
+            }
+            return httpClient;
+        }
+    }
+    
+    private static CloseableHttpAsyncClient createHttpClient() {
+        final PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(MAX_CONN_PER_ROUTE)
+                .setMaxConnTotal(MAX_CONN_TOTAL)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(CONNECT_TIMEOUT_MILLIS))
+                        .setSocketTimeout(Timeout.ofMilliseconds(SOCKET_TIMEOUT_MILLIS))
+                        .setTimeToLive(TimeValue.ofMinutes(CONNECTION_TTL_MINUTES))
+                        .build())
+                .setDefaultTlsConfig(TlsConfig.custom()
+                        .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                        .build())
+                .build();
+        
+        return HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.ofMilliseconds(SOCKET_TIMEOUT_MILLIS))
+                        .setConnectionKeepAlive(TimeValue.ofSeconds(KEEP_ALIVE_SECONDS))
+                        .build())
+                .evictIdleConnections(TimeValue.ofSeconds(KEEP_ALIVE_SECONDS))
+                .evictExpiredConnections()
+                .build();
+    }
+    
+    private static String getClassName() {
+        return MirrorHttpTransport.class.getName();
+    }
+}
@@ -0,0 +1,228 @@
+package org.joget.hedera.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Bounded cache of mirror node responses shared by all plugins in the bundle.
+ *
+ * Each response is kept for as long as its entity allows: finalized transactions (except schedule creates awaiting execution), executed schedules
+ * and topic messages never change, token metadata changes rarely, while balances and list queries go stale within seconds.
+ * Entries are weighed by the size of their response body and the least recently used entries are evicted once
+ * the total weight exceeds hedera.mirror.cacheMaxChars (system property).
+ *
+ * Cached JSONObjects are shared between callers and must be treated as read-only.
+ */
+public class MirrorResponseCache {
+    
+    private static final long MAX_WEIGHT = Long.getLong("hedera.mirror.cacheMaxChars", 16L * 1024 * 1024);
+    
+    private static final long FOREVER = Long.MAX_VALUE;
+    //Kept below the poll interval of TransactionCompletionService, so that every poll for a not yet ingested transaction queries the mirror node
+    private static final long NOT_FOUND_TTL = TimeUnit.SECONDS.toMillis(1);
+    private static final long BALANCE_TTL = TimeUnit.SECONDS.toMillis(10);
+    private static final long LIST_TTL = TimeUnit.SECONDS.toMillis(5);
+    private static final long PENDING_SCHEDULE_TTL = TimeUnit.SECONDS.toMillis(10);
+    private static final long NFT_TTL = TimeUnit.SECONDS.toMillis(30);
+    private static final long TOKEN_TTL = TimeUnit.MINUTES.toMillis(5);
+    private static final long DEFAULT_TTL = TimeUnit.SECONDS.toMillis(10);
+    
+    private static final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private static long totalWeight = 0;
+    
+    private static final AtomicLong hitCount = new AtomicLong();
+    private static final AtomicLong missCount = new AtomicLong();
+    private static final AtomicLong evictionCount = new AtomicLong();
+    
+    private MirrorResponseCache() {}
+    
+    public static JSONObject get(String key) {
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            
+            if (entry != null && entry.isExpired()) {
+                removeEntry(key);
+                entry = null;
+            }
+            
+            if (entry == null) {
+                missCount.incrementAndGet();
+                return null;
+            }
+            
+            hitCount.incrementAndGet();
+            return entry.response;
+        }
+    }
+    
+    /**
+     * Caches a mirror response, using a freshness period based on the queried path and the response content.
+     * @param key Unique key of the request, i.e. the full request URL
+     * @param path Request path relative to the mirror node API root, e.g. accounts/0.0.1234
+     * @param response Parsed response to cache
+     * @param weight Size of the raw response body
+     */
+    public static void put(String key, String path, JSONObject response, long weight) {
+        if (response == null || weight > MAX_WEIGHT) {
+            return;
+        }
+        
+        final long ttl = getTtl(path, response);
+        final long expiry = (ttl == FOREVER) ? FOREVER : System.currentTimeMillis() + ttl;
+        
+        synchronized (entries) {
+            removeEntry(key);
+            
+            entries.put(key, new CacheEntry(response, weight, expiry));
+            totalWeight += weight;
+            
+            evictIfRequired();
+        }
+    }
+    
+    public static void invalidate(String key) {
+        synchronized (entries) {
+            removeEntry(key);
+        }
+    }
+    
+    public static void clear() {
+        synchronized (entries) {
+            entries.clear();
+            totalWeight = 0;
+        }
+    }
+    
+    public static long getHitCount() {
+        return hitCount.get();
+    }
+    
+    public static long getMissCount() {
+        return missCount.get();
+    }
+    
+    public static long getEvictionCount() {
+        return evictionCount.get();
+    }
+    
+    public static int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    public static long getWeight() {
+        synchronized (entries) {
+            return totalWeight;
+        }
+    }
+    
+    public static String getStats() {
+        return "hits=" + getHitCount()
+                + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount()
+                + ", size=" + getSize()
+                + ", weight=" + getWeight();
+    }
+    
+    private static long getTtl(String path, JSONObject response) {
+        if (response.has("_status")) {
+            //Entity may not be ingested by the mirror node yet
+            return NOT_FOUND_TTL;
+        }
+        
+        if (path.contains("?")) {
+            return LIST_TTL;
+        }
+        
+        if (path.startsWith("transactions/")) {
+            return isAwaitingScheduledExecution(response) ? PENDING_SCHEDULE_TTL : FOREVER;
+        }
+        
+        if (path.startsWith("schedules/")) {
+            final boolean isFinalized = !response.isNull("executed_timestamp") || response.optBoolean("deleted", false);
+            return isFinalized ? FOREVER : PENDING_SCHEDULE_TTL;
+        }
+        
+        if (path.startsWith("topics/")) {
+            return path.matches("topics/[^/]+/messages/\\d+") ? FOREVER : LIST_TTL;
+        }
+        
+        if (path.startsWith("tokens/")) {
+            return path.contains("/nfts/") ? NFT_TTL : TOKEN_TTL;
+        }
+        
+        if (path.startsWith("accounts/") || path.startsWith("balances")) {
+            return BALANCE_TTL;
+        }
+        
+        return DEFAULT_TTL;
+    }
+    
+    /*
+        The execution of a scheduled transaction shares the transaction ID of its schedule create, and is added to the same response once executed.
+        Only a response of a successful schedule create without its execution may still grow.
+    */
+    private static boolean isAwaitingScheduledExecution(JSONObject response) {
+        final JSONArray transactions = response.optJSONArray("transactions");
+        if (transactions == null) {
+            return false;
+        }
+        
+        boolean isScheduleCreated = false;
+        for (int i = 0; i < transactions.length(); i++) {
+            final JSONObject transaction = transactions.optJSONObject(i);
+            if (transaction == null) {
+                continue;
+            }
+            if (transaction.optBoolean("scheduled", false)) {
+                return false;
+            }
+            if ("SCHEDULECREATE".equals(transaction.optString("name")) && "SUCCESS".equals(transaction.optString("result"))) {
+                isScheduleCreated = true;
+            }
+        }
+        
+        return isScheduleCreated;
+    }
+    
+    private static void removeEntry(String key) {
+        CacheEntry removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+    
+    private static void evictIfRequired() {
+        Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+        
+        while (totalWeight > MAX_WEIGHT && iterator.hasNext()) {
+            CacheEntry eldest = iterator.next().getValue();
+            iterator.remove();
+            totalWeight -= eldest.weight;
+            evictionCount.incrementAndGet();
+        }
+    }
+    
+    private static final class CacheEntry {
+        
+        private final JSONObject response;
+        private final long weight;
+        private final long expiry;
+        
+        private CacheEntry(JSONObject response, long weight, long expiry) {
+            this.response = response;
+            this.weight = weight;
+            this.expiry = expiry;
+        }
+        
+        private boolean isExpired() {
+            return expiry != FOREVER && System.currentTimeMillis() > expiry;
+        }
+    }
+}
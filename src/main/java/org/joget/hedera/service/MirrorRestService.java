@@ -1,12 +1,14 @@
 package org.joget.hedera.service;
 
 import com.hedera.hashgraph.sdk.LedgerId;
+import java.util.HashMap;
 import java.util.Map;
-import org.apache.hc.client5.http.classic.methods.HttpGet;
-import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.joget.commons.util.LogUtil;
 import org.joget.hedera.model.api.ApiEndpoint;
 import org.joget.hedera.model.api.rest.Arkhia;
@@ -18,6 +20,21 @@ public class MirrorRestService {
     
     public static final String DEFAULT_REST_SERVICE = "publicHedera";
     
+    /*
+        Self-hosted mirror node at the REST endpoint in "mirrorRestEndpoint", e.g. the stand-in of the offline load test.
+        Not offered in the backend configs, and never sent the Arkhia API key.
+    */
+    public static final String CUSTOM_REST_SERVICE = "custom";
+    public static final String CUSTOM_ENDPOINT_PROPERTY = "mirrorRestEndpoint";
+    
+    private static final int EXECUTOR_THREADS = 4;
+    private static final int EXECUTOR_QUEUE_SIZE = 500;
+    
+    private static final Map<String, CompletableFuture<JSONObject>> inFlightRequests = new ConcurrentHashMap<>();
+    private static final Map<String, CompletableFuture<String>> inFlightBodies = new ConcurrentHashMap<>();
+    
+    private static volatile ExecutorService executor;
+    
     private final String endpointUrl;
     private final Map properties;
     
@@ -30,6 +47,7 @@ public class MirrorRestService {
         return switch (backendService) {
             case "", "publicHedera" -> new PublicHedera();
             case "arkhia" -> new Arkhia();
+            case CUSTOM_REST_SERVICE -> ledgerId -> (String) properties.get(CUSTOM_ENDPOINT_PROPERTY);
             default -> {
                 LogUtil.warn(getClassName(), "Unknown rest service type found!");
                 yield null;
@@ -37,60 +55,221 @@ public class MirrorRestService {
         };
     }
     
+    public String getEndpointUrl() {
+        return endpointUrl;
+    }
+    
     public JSONObject getAccountData(String accountId) {
         return get("accounts/" + accountId);
     }
     
+    public CompletableFuture<JSONObject> getAccountDataAsync(String accountId) {
+        return getAsync("accounts/" + accountId);
+    }
+    
     public JSONObject getTokenData(String tokenId) {
         return get("tokens/" + tokenId);
     }
     
+    public CompletableFuture<JSONObject> getTokenDataAsync(String tokenId) {
+        return getAsync("tokens/" + tokenId);
+    }
+    
     public JSONObject getNftData(String tokenId, String nftSerialNumber) {
         return get("tokens/" + tokenId + "/nfts/" + nftSerialNumber);
     }
     
+    public CompletableFuture<JSONObject> getNftDataAsync(String tokenId, String nftSerialNumber) {
+        return getAsync("tokens/" + tokenId + "/nfts/" + nftSerialNumber);
+    }
+    
     public JSONObject getTxData(String txId) {
         return get("transactions/" + txId);
     }
     
+    public CompletableFuture<JSONObject> getTxDataAsync(String txId) {
+        return getAsync("transactions/" + txId);
+    }
+    
     public JSONObject getScheduleData(String scheduleId) {
         return get("schedules/" + scheduleId);
     }
     
+    public CompletableFuture<JSONObject> getScheduleDataAsync(String scheduleId) {
+        return getAsync("schedules/" + scheduleId);
+    }
+    
     public JSONObject getAllTopicMessages(String topicId) {
         return get("topics/" + topicId + "/messages");
     }
     
+    public CompletableFuture<JSONObject> getAllTopicMessagesAsync(String topicId) {
+        return getAsync("topics/" + topicId + "/messages");
+    }
+    
+    /**
+     * Reads all messages of a topic across pages, rather than only the first page as getAllTopicMessages() does.
+     */
+    public TopicMessageReader getTopicMessageReader(String topicId) {
+        return new TopicMessageReader(this, topicId);
+    }
+    
     public JSONObject getTopicMessage(String topicId, String sequenceNumber) {
         return get("topics/" + topicId + "/messages/" + sequenceNumber);
     }
     
+    public CompletableFuture<JSONObject> getTopicMessageAsync(String topicId, String sequenceNumber) {
+        return getAsync("topics/" + topicId + "/messages/" + sequenceNumber);
+    }
+    
     public JSONObject get(String url) {
-        HttpGet getRequest = new HttpGet(endpointUrl + url);
-        if ("arkhia".equalsIgnoreCase((String) properties.get("backendService"))) {
-            getRequest.setHeader("x-api-key", (String) properties.get("arkhiaApiKey"));
+        try {
+            return getAsync(url).join();
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Error waiting for mirror node response...");
         }
-        return execute(getRequest);
+        
+        return null;
     }
     
-    private JSONObject execute(HttpUriRequestBase request) {
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            String jsonResponse = httpClient.execute(request, response -> EntityUtils.toString(response.getEntity(), "UTF-8"));
-            
-            if (jsonResponse == null || jsonResponse.isEmpty()) {
-                return null;
-            }
-
-            if (jsonResponse.startsWith("[") && jsonResponse.endsWith("]")) {
-                jsonResponse = "{ \"response\" : " + jsonResponse + " }";
-            }
-
-            return new JSONObject(jsonResponse);
+    /**
+     * Non-blocking variant of get(). Like get(), the returned future completes with null if the request fails.
+     */
+    public CompletableFuture<JSONObject> getAsync(String url) {
+        final String requestUrl = endpointUrl + url;
+        
+        JSONObject cachedResponse = MirrorResponseCache.get(requestUrl);
+        if (cachedResponse != null) {
+            return CompletableFuture.completedFuture(cachedResponse);
+        }
+        
+        //Concurrent callers for the same URL share a single outstanding HTTP call
+        final CompletableFuture<JSONObject> request = new CompletableFuture<>();
+        final CompletableFuture<JSONObject> inFlightRequest = inFlightRequests.putIfAbsent(requestUrl, request);
+        if (inFlightRequest != null) {
+            return inFlightRequest;
+        }
+        
+        //A request for the same URL may have completed and been cached between the cache lookup and claiming the in-flight slot
+        cachedResponse = MirrorResponseCache.get(requestUrl);
+        if (cachedResponse != null) {
+            inFlightRequests.remove(requestUrl, request);
+            request.complete(cachedResponse);
+            return request;
+        }
+        
+        try {
+            MirrorHttpTransport.getAsync(requestUrl, getHeaders())
+                    .thenApplyAsync(jsonResponse -> parse(requestUrl, url, jsonResponse), getExecutor())
+                    .whenComplete((response, ex) -> {
+                        inFlightRequests.remove(requestUrl, request);
+                        
+                        if (ex != null) {
+                            LogUtil.error(getClassName(), ex, "Error executing HTTP request...");
+                            request.complete(null);
+                        } else {
+                            request.complete(response);
+                        }
+                    });
         } catch (Exception ex) {
             LogUtil.error(getClassName(), ex, "Error executing HTTP request...");
+            inFlightRequests.remove(requestUrl, request);
+            request.complete(null);
         }
         
-        return null;
+        return request;
+    }
+    
+    /**
+     * Retrieves the response body as is, without parsing or caching it. Meant for large responses that are read as a stream, e.g. by TopicMessageReader.
+     * Like getAsync(), concurrent callers for the same URL share a single outstanding HTTP call, and the returned future completes with null if the request fails.
+     */
+    public CompletableFuture<String> getBodyAsync(String url) {
+        final String requestUrl = endpointUrl + url;
+        
+        final CompletableFuture<String> request = new CompletableFuture<>();
+        final CompletableFuture<String> inFlightRequest = inFlightBodies.putIfAbsent(requestUrl, request);
+        if (inFlightRequest != null) {
+            return inFlightRequest;
+        }
+        
+        try {
+            MirrorHttpTransport.getAsync(requestUrl, getHeaders())
+                    .whenComplete((body, ex) -> {
+                        inFlightBodies.remove(requestUrl, request);
+                        
+                        if (ex != null) {
+                            LogUtil.error(getClassName(), ex, "Error executing HTTP request...");
+                            request.complete(null);
+                        } else {
+                            request.complete(body);
+                        }
+                    });
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Error executing HTTP request...");
+            inFlightBodies.remove(requestUrl, request);
+            request.complete(null);
+        }
+        
+        return request;
+    }
+    
+    private Map<String, String> getHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        if ("arkhia".equalsIgnoreCase((String) properties.get("backendService"))) {
+            headers.put("x-api-key", (String) properties.get("arkhiaApiKey"));
+        }
+        return headers;
+    }
+    
+    private static JSONObject parse(String requestUrl, String url, String jsonResponse) {
+        if (jsonResponse == null || jsonResponse.isEmpty()) {
+            return null;
+        }
+        
+        if (jsonResponse.startsWith("[") && jsonResponse.endsWith("]")) {
+            jsonResponse = "{ \"response\" : " + jsonResponse + " }";
+        }
+        
+        JSONObject response = new JSONObject(jsonResponse);
+        MirrorResponseCache.put(requestUrl, url, response, jsonResponse.length());
+        
+        return response;
+    }
+    
+    private static ExecutorService getExecutor() {
+        ExecutorService currentExecutor = executor;
+        if (currentExecutor != null) {
+            return currentExecutor;
+        }
+        
+        synchronized (MirrorRestService.class) {
+            if (executor == null) {
+                //Bounded pool for response parsing. When saturated, the completing thread does the work itself.
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                        EXECUTOR_THREADS, 
+                        EXECUTOR_THREADS, 
+                        60L, TimeUnit.SECONDS, 
+                        new ArrayBlockingQueue<>(EXECUTOR_QUEUE_SIZE), 
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "hedera-mirror-rest");
+                            thread.setDaemon(true);
+                            return thread;
+                        },
+                        new ThreadPoolExecutor.CallerRunsPolicy()
+                );
+                pool.allowCoreThreadTimeOut(true);
+                executor = pool;
+            }
+            return executor;
+        }
+    }
+    
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
     }
     
     private static String getClassName() {
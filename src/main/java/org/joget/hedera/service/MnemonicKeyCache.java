@@ -0,0 +1,92 @@
+package org.joget.hedera.service;
+
+import com.hedera.hashgraph.sdk.PrivateKey;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived cache of keys derived from mnemonic phrases, see AccountUtil.deriveKeyPairFromEncryptedMnemonic().
+ *
+ * Only raw private key bytes are held, and they are zeroed as soon as an entry expires, is evicted or is replaced.
+ * Expiry and size can be tuned through the hedera.keyCache.ttlSeconds and hedera.keyCache.maxEntries system properties.
+ */
+class MnemonicKeyCache {
+    
+    private static final long TTL_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong("hedera.keyCache.ttlSeconds", 60));
+    private static final int MAX_ENTRIES = Integer.getInteger("hedera.keyCache.maxEntries", 100);
+    
+    private static final LinkedHashMap<String, CachedKey> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedKey> eldest) {
+            if (size() > MAX_ENTRIES) {
+                eldest.getValue().destroy();
+                return true;
+            }
+            return false;
+        }
+    };
+    
+    private MnemonicKeyCache() {}
+    
+    static PrivateKey get(String key) {
+        synchronized (entries) {
+            purgeExpired();
+            
+            CachedKey cachedKey = entries.get(key);
+            if (cachedKey == null) {
+                return null;
+            }
+            
+            return PrivateKey.fromBytesED25519(cachedKey.keyBytes);
+        }
+    }
+    
+    static void put(String key, PrivateKey privateKey) {
+        synchronized (entries) {
+            purgeExpired();
+            
+            CachedKey replaced = entries.put(key, new CachedKey(privateKey.toBytesRaw(), System.currentTimeMillis() + TTL_MILLIS));
+            if (replaced != null) {
+                replaced.destroy();
+            }
+        }
+    }
+    
+    static void clear() {
+        synchronized (entries) {
+            entries.values().forEach(CachedKey::destroy);
+            entries.clear();
+        }
+    }
+    
+    private static void purgeExpired() {
+        final long now = System.currentTimeMillis();
+        
+        Iterator<CachedKey> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            CachedKey cachedKey = iterator.next();
+            if (now > cachedKey.expiry) {
+                cachedKey.destroy();
+                iterator.remove();
+            }
+        }
+    }
+    
+    private static final class CachedKey {
+        
+        private final byte[] keyBytes;
+        private final long expiry;
+        
+        private CachedKey(byte[] keyBytes, long expiry) {
+            this.keyBytes = keyBytes;
+            this.expiry = expiry;
+        }
+        
+        private void destroy() {
+            Arrays.fill(keyBytes, (byte) 0);
+        }
+    }
+}
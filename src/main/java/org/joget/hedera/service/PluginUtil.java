@@ -1,7 +1,6 @@
 package org.joget.hedera.service;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Properties;
@@ -55,7 +54,7 @@ public class PluginUtil {
     }
     
     public static String getFileHashSha256(File file) throws FileNotFoundException, IOException {        
-        return DigestUtils.sha256Hex(new FileInputStream(file));
+        return FileHashService.sha256Hex(file);
     }
     
     public static String getTextHashSha256(String text) throws FileNotFoundException, IOException {        
@@ -0,0 +1,216 @@
+package org.joget.hedera.service;
+
+import com.hedera.hashgraph.sdk.AccountId;
+import com.hedera.hashgraph.sdk.Client;
+import com.hedera.hashgraph.sdk.LedgerId;
+import com.hedera.hashgraph.sdk.PrecheckStatusException;
+import com.hedera.hashgraph.sdk.PrivateKey;
+import com.hedera.hashgraph.sdk.ReceiptStatusException;
+import com.hedera.hashgraph.sdk.Status;
+import com.hedera.hashgraph.sdk.TokenAssociateTransaction;
+import com.hedera.hashgraph.sdk.TokenId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.json.JSONObject;
+
+/**
+ * Associates tokens with accounts only where not yet associated, e.g. for receivers of token transfers.
+ *
+ * Association status is checked per token through the account tokens mirror endpoint, and known associations are
+ * remembered per account for ASSOCIATION_TTL_MINUTES. All tokens still pending association are then associated
+ * in as few transactions as possible, instead of one transaction per token.
+ */
+public class TokenAssociationManager {
+    
+    private static final int MAX_TOKENS_PER_TRANSACTION = 50;
+    private static final int MAX_TRACKED_ACCOUNTS = 1000;
+    private static final long ASSOCIATION_TTL_MINUTES = 10;
+    
+    private static final Map<String, KnownAssociations> knownAssociations = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, KnownAssociations> eldest) {
+            return size() > MAX_TRACKED_ACCOUNTS;
+        }
+    };
+    
+    private TokenAssociationManager() {}
+    
+    /**
+     * Associates all given tokens that are not yet associated with the account.
+     * @param accountKey Private key of the account, to sign the association
+     * @return IDs of the tokens newly associated
+     */
+    public static List<String> associate(Client client, MirrorRestService restService, AccountId accountId, PrivateKey accountKey, Collection<String> tokenIds)
+            throws TimeoutException, PrecheckStatusException, ReceiptStatusException {
+        
+        final List<String> pendingTokenIds = getUnassociatedTokens(client.getLedgerId(), restService, accountId.toString(), tokenIds);
+        final List<String> associatedTokenIds = new ArrayList<>(pendingTokenIds.size());
+        
+        for (int i = 0; i < pendingTokenIds.size(); i += MAX_TOKENS_PER_TRANSACTION) {
+            final List<String> batch = pendingTokenIds.subList(i, Math.min(i + MAX_TOKENS_PER_TRANSACTION, pendingTokenIds.size()));
+            
+            associatedTokenIds.addAll(associateBatch(client, restService, accountId, accountKey, batch));
+        }
+        
+        return associatedTokenIds;
+    }
+    
+    /*
+        A failed or lagging lookup lets an already associated token into a batch, which fails the whole batch with TOKEN_ALREADY_ASSOCIATED_TO_ACCOUNT.
+        The tokens of the batch are then looked up again, and only the missing ones resubmitted.
+        If the lookup still reports all of them as missing, they are associated one at a time instead.
+    */
+    private static List<String> associateBatch(Client client, MirrorRestService restService, AccountId accountId, PrivateKey accountKey, List<String> batch)
+            throws TimeoutException, PrecheckStatusException, ReceiptStatusException {
+        
+        try {
+            List<TokenId> batchTokenIds = new ArrayList<>(batch.size());
+            for (String tokenId : batch) {
+                batchTokenIds.add(TokenId.fromString(tokenId));
+            }
+            
+            new TokenAssociateTransaction()
+                    .setAccountId(accountId)
+                    .setTokenIds(batchTokenIds)
+                    .freezeWith(client)
+                    .sign(accountKey)
+                    .execute(client)
+                    .getReceipt(client);
+            
+            remember(client.getLedgerId(), accountId.toString(), batch);
+            return batch;
+        } catch (PrecheckStatusException ex) {
+            if (ex.status != Status.TOKEN_ALREADY_ASSOCIATED_TO_ACCOUNT) {
+                throw ex;
+            }
+        } catch (ReceiptStatusException ex) {
+            if (ex.receipt.status != Status.TOKEN_ALREADY_ASSOCIATED_TO_ACCOUNT) {
+                throw ex;
+            }
+        }
+        
+        if (batch.size() == 1) {
+            remember(client.getLedgerId(), accountId.toString(), batch);
+            return Collections.emptyList();
+        }
+        
+        final List<String> missingTokenIds = getUnassociatedTokens(client.getLedgerId(), restService, accountId.toString(), batch);
+        if (missingTokenIds.isEmpty()) {
+            return missingTokenIds;
+        }
+        if (missingTokenIds.size() < batch.size()) {
+            return associateBatch(client, restService, accountId, accountKey, missingTokenIds);
+        }
+        
+        List<String> associatedTokenIds = new ArrayList<>(batch.size());
+        for (String tokenId : batch) {
+            associatedTokenIds.addAll(associateBatch(client, restService, accountId, accountKey, Collections.singletonList(tokenId)));
+        }
+        return associatedTokenIds;
+    }
+    
+    /**
+     * @return IDs of the given tokens that are not associated with the account, in their given order and without duplicates
+     */
+    public static List<String> getUnassociatedTokens(LedgerId ledgerId, MirrorRestService restService, String accountId, Collection<String> tokenIds) {
+        final String key = getKey(ledgerId, accountId);
+        
+        final Set<String> uncheckedTokenIds = new LinkedHashSet<>(tokenIds);
+        synchronized (knownAssociations) {
+            KnownAssociations associations = knownAssociations.get(key);
+            if (associations != null && !associations.isExpired()) {
+                uncheckedTokenIds.removeAll(associations.tokenIds);
+            }
+        }
+        
+        //Look up all tokens in parallel
+        Map<String, CompletableFuture<JSONObject>> requests = new LinkedHashMap<>();
+        for (String tokenId : uncheckedTokenIds) {
+            requests.put(tokenId, restService.getAsync("accounts/" + accountId + "/tokens?token.id=" + tokenId));
+        }
+        
+        List<String> associatedTokenIds = new ArrayList<>();
+        List<String> unassociatedTokenIds = new ArrayList<>();
+        requests.forEach((tokenId, request) -> {
+            if (isAssociated(request.join())) {
+                associatedTokenIds.add(tokenId);
+            } else {
+                unassociatedTokenIds.add(tokenId);
+            }
+        });
+        
+        remember(ledgerId, accountId, associatedTokenIds);
+        
+        return unassociatedTokenIds;
+    }
+    
+    /**
+     * Drops a remembered association, e.g. once the token is dissociated from the account.
+     */
+    public static void forget(LedgerId ledgerId, String accountId, String tokenId) {
+        synchronized (knownAssociations) {
+            KnownAssociations associations = knownAssociations.get(getKey(ledgerId, accountId));
+            if (associations != null) {
+                associations.tokenIds.remove(tokenId);
+            }
+        }
+    }
+    
+    public static void clear() {
+        synchronized (knownAssociations) {
+            knownAssociations.clear();
+        }
+    }
+    
+    private static void remember(LedgerId ledgerId, String accountId, Collection<String> tokenIds) {
+        if (tokenIds.isEmpty()) {
+            return;
+        }
+        
+        synchronized (knownAssociations) {
+            KnownAssociations associations = knownAssociations.get(getKey(ledgerId, accountId));
+            if (associations == null || associations.isExpired()) {
+                associations = new KnownAssociations(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(ASSOCIATION_TTL_MINUTES));
+                knownAssociations.put(getKey(ledgerId, accountId), associations);
+            }
+            associations.tokenIds.addAll(tokenIds);
+        }
+    }
+    
+    /*
+        A failed lookup counts as not associated, see associateBatch().
+    */
+    private static boolean isAssociated(JSONObject response) {
+        return response != null
+                && response.has("tokens")
+                && !response.getJSONArray("tokens").isEmpty();
+    }
+    
+    private static String getKey(LedgerId ledgerId, String accountId) {
+        return ledgerId + ":" + accountId;
+    }
+    
+    private static final class KnownAssociations {
+        
+        private final Set<String> tokenIds = new HashSet<>();
+        private final long expiry;
+        
+        private KnownAssociations(long expiry) {
+            this.expiry = expiry;
+        }
+        
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiry;
+        }
+    }
+}
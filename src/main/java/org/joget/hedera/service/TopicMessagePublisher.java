@@ -0,0 +1,93 @@
+package org.joget.hedera.service;
+
+import com.hedera.hashgraph.sdk.Client;
+import com.hedera.hashgraph.sdk.TopicId;
+import com.hedera.hashgraph.sdk.TopicMessageSubmitTransaction;
+import com.hedera.hashgraph.sdk.TransactionResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.joget.hedera.model.TransactionResult;
+
+/**
+ * Submits topic messages from any number of threads, with a bounded window of submitted but unconfirmed transactions.
+ *
+ * Submission returns as soon as the transaction is accepted by a node, and confirmation is awaited asynchronously,
+ * so throughput is bound by the window size rather than by one consensus round trip per message.
+ * Once the window is full, further submissions wait for a free slot, up to WINDOW_WAIT_SECONDS.
+ *
+ * Messages larger than one chunk are split into as many chunks as needed.
+ */
+public class TopicMessagePublisher {
+    
+    public static final int CHUNK_SIZE = 1024;
+    
+    private static final int WINDOW_SIZE = Integer.getInteger("hedera.topicPublisher.windowSize", 256);
+    private static final long WINDOW_WAIT_SECONDS = Long.getLong("hedera.topicPublisher.windowWaitSeconds", 60);
+    
+    private static final Semaphore window = new Semaphore(WINDOW_SIZE, true);
+    
+    private TopicMessagePublisher() {}
+    
+    /**
+     * Prepares a submit transaction for a message of any size. The transaction is to be frozen, signed if required, and passed to submit().
+     */
+    public static TopicMessageSubmitTransaction newTransaction(TopicId topicId, byte[] message) {
+        return new TopicMessageSubmitTransaction()
+                .setTopicId(topicId)
+                .setMessage(message)
+                .setChunkSize(CHUNK_SIZE)
+                .setMaxChunks(getChunkCount(message.length));
+    }
+    
+    /**
+     * Submits a frozen and signed message transaction, waiting for a free slot in the window if needed.
+     * @param fetchRecord True to confirm with the transaction record, false to confirm with the receipt only
+     * @return A future that completes once the message reached consensus, with the sequence number and running hash in its receipt.
+     *         For chunked messages, the result is of the last chunk.
+     */
+    public static CompletableFuture<TransactionResult> submit(Client client, TopicMessageSubmitTransaction transaction, boolean fetchRecord) {
+        try {
+            if (!window.tryAcquire(WINDOW_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                return CompletableFuture.failedFuture(new TimeoutException(
+                        "No free slot in topic message window after " + WINDOW_WAIT_SECONDS + " seconds (" + WINDOW_SIZE + " messages in flight)"
+                ));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(ex);
+        }
+        
+        final CompletableFuture<TransactionResult> result;
+        try {
+            result = transaction.executeAllAsync(client).thenCompose(responses -> confirm(client, responses, fetchRecord));
+        } catch (RuntimeException ex) {
+            window.release();
+            return CompletableFuture.failedFuture(ex);
+        }
+        
+        return result.whenComplete((transactionResult, ex) -> window.release());
+    }
+    
+    /**
+     * @return Number of messages submitted and not yet confirmed
+     */
+    public static int getInFlightCount() {
+        return WINDOW_SIZE - window.availablePermits();
+    }
+    
+    //Chunks reach consensus in order, so the message is confirmed once its last chunk is
+    private static CompletableFuture<TransactionResult> confirm(Client client, List<TransactionResponse> responses, boolean fetchRecord) {
+        final TransactionResponse lastResponse = responses.get(responses.size() - 1);
+        
+        return fetchRecord
+                ? lastResponse.getRecordAsync(client).thenApply(TransactionResult::fromRecord)
+                : lastResponse.getReceiptAsync(client).thenApply(receipt -> TransactionResult.fromReceipt(lastResponse.transactionId, receipt));
+    }
+    
+    private static int getChunkCount(int messageLength) {
+        return Math.max(1, (messageLength + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,391 @@
+package org.joget.hedera.service;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.joget.commons.util.LogUtil;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * Reads the messages of a topic in ascending order, across as many mirror node pages as needed, following the links.next cursor.
+ *
+ * Pages are only requested as the iteration reaches them, and each page is parsed as a stream, one message at a time,
+ * so neither a whole page nor the whole topic is ever held as one JSON document. Pages are therefore not cached,
+ * but concurrent readers of the same page share one request through MirrorRestService.getBodyAsync().
+ * Reading is bounded by sequence number, consensus timestamp, message count and total size.
+ *
+ * A reader is not thread-safe. It may be iterated more than once, and each iteration requests the pages again.
+ */
+public class TopicMessageReader implements Iterable<JSONObject> {
+    
+    public static final long DEFAULT_MAX_BYTES = Long.getLong("hedera.topicMessages.maxBytes", 1024L * 1024);
+    public static final int DEFAULT_MAX_MESSAGES = Integer.getInteger("hedera.topicMessages.maxMessages", 1000);
+    
+    private static final int PAGE_SIZE = Integer.getInteger("hedera.topicMessages.pageSize", 100);
+    
+    private static final String API_ROOT = "/api/v1/";
+    
+    private final MirrorRestService restService;
+    private final String topicId;
+    
+    private Long fromSequenceNumber;
+    private Long toSequenceNumber;
+    private String fromTimestamp;
+    private String toTimestamp;
+    private long maxBytes = DEFAULT_MAX_BYTES;
+    private int maxMessages = DEFAULT_MAX_MESSAGES;
+    
+    private String errorMessage;
+    private boolean truncated;
+    private long lastSequenceNumber;
+    
+    public TopicMessageReader(MirrorRestService restService, String topicId) {
+        this.restService = restService;
+        this.topicId = topicId;
+    }
+    
+    /**
+     * Skips messages before the given sequence number.
+     */
+    public TopicMessageReader fromSequenceNumber(long sequenceNumber) {
+        this.fromSequenceNumber = sequenceNumber;
+        return this;
+    }
+    
+    /**
+     * Stops after the message of the given sequence number.
+     */
+    public TopicMessageReader toSequenceNumber(long sequenceNumber) {
+        this.toSequenceNumber = sequenceNumber;
+        return this;
+    }
+    
+    /**
+     * Skips messages reaching consensus before the given mirror node timestamp, in "seconds.nanoseconds" format.
+     */
+    public TopicMessageReader fromTimestamp(String timestamp) {
+        this.fromTimestamp = timestamp;
+        return this;
+    }
+    
+    /**
+     * Stops after the messages reaching consensus at the given mirror node timestamp, in "seconds.nanoseconds" format.
+     */
+    public TopicMessageReader toTimestamp(String timestamp) {
+        this.toTimestamp = timestamp;
+        return this;
+    }
+    
+    /**
+     * Stops reading before the total size of the messages read exceeds the given limit, counted as serialized JSON.
+     * Mirror node topic messages are plain ASCII, so this equals their size in bytes.
+     * @param maxBytes Size limit, or 0 for no limit. Defaults to hedera.topicMessages.maxBytes, or 1 MB if not set.
+     */
+    public TopicMessageReader maxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        return this;
+    }
+    
+    /**
+     * Stops reading after the given number of messages.
+     * @param maxMessages Message limit, or 0 for no limit. Defaults to hedera.topicMessages.maxMessages, or 1000 if not set.
+     */
+    public TopicMessageReader maxMessages(int maxMessages) {
+        this.maxMessages = maxMessages;
+        return this;
+    }
+    
+    /**
+     * @return The error of the last iteration as described by the mirror node (e.g. "Not found"), or null if there was none
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+    
+    /**
+     * @return True if the last iteration was stopped by the size or message limit before reaching the end of the range
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+    
+    /**
+     * @return Sequence number to carry on reading from after a truncated iteration
+     */
+    public long getNextSequenceNumber() {
+        return lastSequenceNumber + 1;
+    }
+    
+    @Override
+    public Iterator<JSONObject> iterator() {
+        return new MessageIterator();
+    }
+    
+    /**
+     * Reads all messages in range into a JSON array string, as returned in the "messages" element of the mirror node response.
+     */
+    public String readAsJsonArray() {
+        final MessageIterator messages = new MessageIterator();
+        
+        StringBuilder jsonArray = new StringBuilder("[");
+        while (messages.hasNext()) {
+            messages.next();
+            if (jsonArray.length() > 1) {
+                jsonArray.append(',');
+            }
+            jsonArray.append(messages.getCurrentJson());
+        }
+        
+        return jsonArray.append(']').toString();
+    }
+    
+    private String getFirstPagePath() {
+        StringBuilder path = new StringBuilder("topics/").append(topicId).append("/messages?order=asc&limit=").append(PAGE_SIZE);
+        
+        if (fromSequenceNumber != null) {
+            path.append("&sequencenumber=gte:").append(fromSequenceNumber);
+        }
+        if (toSequenceNumber != null) {
+            path.append("&sequencenumber=lte:").append(toSequenceNumber);
+        }
+        if (fromTimestamp != null) {
+            path.append("&timestamp=gte:").append(fromTimestamp);
+        }
+        if (toTimestamp != null) {
+            path.append("&timestamp=lte:").append(toTimestamp);
+        }
+        
+        return path.toString();
+    }
+    
+    //links.next is given from the host root (e.g. /api/v1/topics/...), while MirrorRestService expects paths relative to the API root
+    private static String toRelativePath(String nextLink) {
+        if (nextLink == null || nextLink.isEmpty()) {
+            return null;
+        }
+        
+        final int apiRootIndex = nextLink.indexOf(API_ROOT);
+        return apiRootIndex >= 0 ? nextLink.substring(apiRootIndex + API_ROOT.length()) : nextLink;
+    }
+    
+    private static String getClassName() {
+        return TopicMessageReader.class.getName();
+    }
+    
+    private final class MessageIterator implements Iterator<JSONObject> {
+        
+        private String nextPagePath = getFirstPagePath();
+        private MessagePage page;
+        
+        private JSONObject nextMessage;
+        private String nextMessageJson;
+        private String currentJson;
+        private JSONObject currentMessage;
+        
+        private long bytesRead;
+        private int messagesRead;
+        private boolean done;
+        
+        private MessageIterator() {
+            errorMessage = null;
+            truncated = false;
+            lastSequenceNumber = (fromSequenceNumber != null) ? fromSequenceNumber - 1 : 0;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            while (nextMessage == null && !done) {
+                advance();
+            }
+            return nextMessage != null;
+        }
+        
+        @Override
+        public JSONObject next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            
+            currentMessage = nextMessage;
+            currentJson = nextMessageJson;
+            nextMessage = null;
+            nextMessageJson = null;
+            
+            lastSequenceNumber = currentMessage.optLong("sequence_number", lastSequenceNumber + 1);
+            
+            return currentMessage;
+        }
+        
+        private String getCurrentJson() {
+            if (currentJson == null && currentMessage != null) {
+                currentJson = currentMessage.toString();
+            }
+            return currentJson;
+        }
+        
+        private void advance() {
+            try {
+                if (page == null) {
+                    if (nextPagePath == null) {
+                        done = true;
+                        return;
+                    }
+                    page = new MessagePage(restService.getBodyAsync(nextPagePath).join());
+                    nextPagePath = null;
+                }
+                
+                final JSONObject message = page.nextMessage();
+                if (message == null) {
+                    if (page.getStatusMessage() != null) {
+                        errorMessage = page.getStatusMessage();
+                        done = true;
+                        return;
+                    }
+                    nextPagePath = toRelativePath(page.getNextLink());
+                    page = null;
+                    return;
+                }
+                
+                if (maxMessages > 0 && messagesRead >= maxMessages) {
+                    truncated = true;
+                    done = true;
+                    return;
+                }
+                if (maxBytes > 0) {
+                    final String messageJson = message.toString();
+                    if (bytesRead + messageJson.length() > maxBytes) {
+                        truncated = true;
+                        done = true;
+                        return;
+                    }
+                    bytesRead += messageJson.length();
+                    nextMessageJson = messageJson;
+                }
+                
+                messagesRead++;
+                nextMessage = message;
+            } catch (IOException | JSONException ex) {
+                LogUtil.error(getClassName(), ex, "Error reading messages of topic " + topicId);
+                errorMessage = ex.getMessage();
+                done = true;
+            }
+        }
+    }
+    
+    /*
+        Pull parser over a single page of the topic messages API, i.e. { "messages": [ ... ], "links": { "next": ... } }.
+        Each message is only parsed when asked for, and the members around the messages array are read as they are reached.
+    */
+    private static final class MessagePage {
+        
+        private final JSONTokener tokener;
+        
+        private boolean hasMember;
+        private boolean inMessages;
+        private boolean hasMessage;
+        private boolean closed;
+        
+        private String nextLink;
+        private String statusMessage;
+        
+        private MessagePage(String body) throws IOException {
+            if (body == null || body.isEmpty()) {
+                throw new IOException("Empty response from mirror node");
+            }
+            
+            tokener = new JSONTokener(body);
+            if (tokener.nextClean() != '{') {
+                throw tokener.syntaxError("A JSONObject text must begin with '{'");
+            }
+        }
+        
+        /**
+         * @return The next message of the page, or null once the whole page has been read
+         */
+        private JSONObject nextMessage() {
+            while (!closed) {
+                if (!inMessages) {
+                    readMember();
+                    continue;
+                }
+                
+                final char c = tokener.nextClean();
+                if (c == ']') {
+                    inMessages = false;
+                    continue;
+                }
+                if (hasMessage) {
+                    if (c != ',') {
+                        throw tokener.syntaxError("Expected a ',' or ']'");
+                    }
+                } else {
+                    tokener.back();
+                }
+                hasMessage = true;
+                
+                if (tokener.nextValue() instanceof JSONObject message) {
+                    return message;
+                }
+            }
+            
+            return null;
+        }
+        
+        private String getNextLink() {
+            return nextLink;
+        }
+        
+        private String getStatusMessage() {
+            return statusMessage;
+        }
+        
+        private void readMember() {
+            final char c = tokener.nextClean();
+            if (c == '}') {
+                closed = true;
+                return;
+            }
+            if (hasMember) {
+                if (c != ',') {
+                    throw tokener.syntaxError("Expected a ',' or '}'");
+                }
+            } else {
+                tokener.back();
+            }
+            hasMember = true;
+            
+            final String key = tokener.nextValue().toString();
+            if (tokener.nextClean() != ':') {
+                throw tokener.syntaxError("Expected a ':' after a key");
+            }
+            
+            switch (key) {
+                case "messages" -> {
+                    if (tokener.nextClean() == '[') {
+                        inMessages = true;
+                    } else {
+                        tokener.back();
+                        tokener.nextValue();
+                    }
+                }
+                case "links" -> {
+                    if (tokener.nextValue() instanceof JSONObject links) {
+                        nextLink = links.optString("next", null);
+                    }
+                }
+                case "_status" -> {
+                    if (tokener.nextValue() instanceof JSONObject status) {
+                        final JSONArray statusMessages = status.optJSONArray("messages");
+                        statusMessage = (statusMessages != null && !statusMessages.isEmpty())
+                                ? statusMessages.getJSONObject(0).optString("message")
+                                : "Unknown mirror node error";
+                    }
+                }
+                default -> tokener.nextValue();
+            }
+        }
+    }
+}
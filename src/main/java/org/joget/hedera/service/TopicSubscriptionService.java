@@ -0,0 +1,617 @@
+package org.joget.hedera.service;
+
+import com.hedera.hashgraph.sdk.Client;
+import com.hedera.hashgraph.sdk.SubscriptionHandle;
+import com.hedera.hashgraph.sdk.TopicId;
+import com.hedera.hashgraph.sdk.TopicMessage;
+import com.hedera.hashgraph.sdk.TopicMessageQuery;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.joget.apps.app.model.AppDefinition;
+import org.joget.apps.app.service.AppService;
+import org.joget.apps.app.service.AppUtil;
+import org.joget.apps.form.dao.FormDataDao;
+import org.joget.apps.form.model.FormRow;
+import org.joget.apps.form.model.FormRowSet;
+import org.joget.commons.util.LogUtil;
+import org.joget.hedera.model.TopicSubscription;
+import org.joget.workflow.model.WorkflowProcess;
+import org.joget.workflow.model.service.WorkflowManager;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Keeps standing subscriptions to topics on the mirror node gRPC stream, and starts workflow processes for the messages received.
+ *
+ * Received messages are buffered in a bounded queue per subscription, and drained in batches of up to BATCH_SIZE by a single dispatcher thread.
+ * When a queue is full, its stream is paused, and resumed from the last queued message once the dispatcher has caught up,
+ * so a consumer that falls behind holds back the stream instead of dropping messages or growing the heap.
+ *
+ * After each batch, the last dispatched message is checkpointed to a form table, which is also where subscriptions are restored from on startup.
+ * A message whose process fails to start is retried with exponential backoff, up to MAX_DISPATCH_ATTEMPTS times. 
+ * It is then skipped, and recorded with a failed status to the skipped message form table, so that it can be followed up.
+ *
+ * On clustered setups, each subscription is run by one server node only, which holds a lease on its row in the form table.
+ * The lease is renewed every LEASE_RENEW_SECONDS, and taken over by another node once it has not been renewed for LEASE_SECONDS,
+ * e.g. when its node is down. As leases are claimed without a database lock, two nodes may both run a subscription until the next renewal,
+ * so messages are dispatched at least once.
+ */
+public class TopicSubscriptionService {
+    
+    private static final String FORM_DEF_ID = "hedera_topic_subscription";
+    private static final String TABLE_NAME = "hedera_topic_subscription";
+    private static final String SKIPPED_FORM_DEF_ID = "hedera_topic_skipped_message";
+    private static final String SKIPPED_TABLE_NAME = "hedera_topic_skipped_message";
+    
+    private static final String STATUS_FAILED = "FAILED";
+    
+    private static final int QUEUE_CAPACITY = Integer.getInteger("hedera.topicSubscription.queueCapacity", 10000);
+    private static final int BATCH_SIZE = Integer.getInteger("hedera.topicSubscription.batchSize", 50);
+    private static final long DISPATCH_INTERVAL_MILLIS = Long.getLong("hedera.topicSubscription.dispatchIntervalMillis", 1000);
+    
+    private static final int MAX_DISPATCH_ATTEMPTS = Integer.getInteger("hedera.topicSubscription.maxDispatchAttempts", 12);
+    private static final long MAX_DISPATCH_BACKOFF_MILLIS = Long.getLong("hedera.topicSubscription.maxDispatchBackoffMillis", 300000);
+    
+    private static final long RESUBSCRIBE_INTERVAL_MILLIS = 10000;
+    private static final long RESTORE_DELAY_SECONDS = 30;
+    private static final long LEASE_SECONDS = 60;
+    private static final long LEASE_RENEW_SECONDS = 15;
+    
+    //Unique per JVM, so that server nodes on the same host are told apart
+    private static final String NODE_ID = System.getProperty("hedera.nodeId", ManagementFactory.getRuntimeMXBean().getName());
+    
+    private static final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private static final Map<String, Client> mirrorClients = new ConcurrentHashMap<>();
+    
+    private static ScheduledExecutorService dispatcher;
+    
+    private TopicSubscriptionService() {}
+    
+    /**
+     * Starts the dispatcher, and claims leases on active subscriptions once the platform is up. Called when the plugin bundle is started.
+     */
+    public static synchronized void start() {
+        if (dispatcher != null) {
+            return;
+        }
+        
+        dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hedera-topic-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        dispatcher.scheduleWithFixedDelay(() -> {
+            for (Subscription subscription : subscriptions.values()) {
+                try {
+                    subscription.dispatch();
+                } catch (Exception ex) {
+                    LogUtil.error(getClassName(), ex, "Error dispatching messages of topic " + subscription.config.topicId());
+                }
+            }
+        }, DISPATCH_INTERVAL_MILLIS, DISPATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        
+        dispatcher.scheduleWithFixedDelay(() -> {
+            try {
+                renewLeases();
+            } catch (Exception ex) {
+                LogUtil.error(getClassName(), ex, "Error renewing topic subscription leases");
+            }
+        }, RESTORE_DELAY_SECONDS, LEASE_RENEW_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Closes all subscriptions and their mirror clients. Checkpoints are kept, so subscriptions carry on from there on the next start.
+     * Leases are released, so that other nodes take over the subscriptions right away.
+     */
+    public static synchronized void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.shutdownNow();
+            dispatcher = null;
+        }
+        
+        for (Subscription subscription : subscriptions.values()) {
+            subscription.close();
+            subscription.releaseLease();
+        }
+        subscriptions.clear();
+        
+        for (Client client : mirrorClients.values()) {
+            closeClient(client);
+        }
+        mirrorClients.clear();
+    }
+    
+    /**
+     * Subscribes to a topic, replacing any existing subscription of the app to the same topic.
+     * The subscription is stored, and carries on from the last checkpoint of the topic after restarts or when subscribed to again.
+     * This node takes over the lease, so a node running the replaced subscription stops once it next renews its lease.
+     */
+    public static void subscribe(TopicSubscription config) {
+        final FormRow existingRow = getFormDataDao().load(FORM_DEF_ID, TABLE_NAME, config.getId());
+        
+        final Instant checkpointTimestamp = existingRow != null
+                ? TransactionUtil.parseMirrorTimestamp(existingRow.getProperty("lastConsensusTimestamp"))
+                : null;
+        final String checkpointSequenceNumber = existingRow != null ? existingRow.getProperty("lastSequenceNumber") : null;
+        final long leaseExpiry = getLeaseExpiry();
+        
+        saveRow(toFormRow(config, true, checkpointTimestamp, checkpointSequenceNumber, NODE_ID, leaseExpiry));
+        
+        activate(config, checkpointTimestamp, checkpointSequenceNumber, leaseExpiry);
+    }
+    
+    /**
+     * Ends the subscription of an app to a topic. Queued messages that are not dispatched yet are dropped.
+     * A subscription run by another node is ended by that node once it next renews its lease.
+     */
+    public static void unsubscribe(String appId, String topicId) {
+        final String id = appId + "_" + topicId;
+        
+        final Subscription subscription = subscriptions.remove(id);
+        if (subscription != null) {
+            subscription.close();
+        }
+        
+        final FormRow row = getFormDataDao().load(FORM_DEF_ID, TABLE_NAME, id);
+        if (row != null) {
+            row.setProperty("active", "false");
+            row.setProperty("ownerNodeId", "");
+            row.setProperty("leaseExpiry", "0");
+            saveRow(row);
+        }
+    }
+    
+    private static void activate(TopicSubscription config, Instant checkpointTimestamp, String checkpointSequenceNumber, long leaseExpiry) {
+        final Client client = mirrorClients.computeIfAbsent(
+                config.backendService() + ":" + config.networkType(),
+                k -> BackendUtil.createMirrorClient(config.backendService(), config.networkType())
+        );
+        if (client == null) {
+            LogUtil.warn(getClassName(), "Unable to initialize mirror client. Skipping subscription to topic " + config.topicId());
+            return;
+        }
+        
+        final Subscription subscription = new Subscription(config, client, checkpointTimestamp, checkpointSequenceNumber, leaseExpiry);
+        
+        final Subscription previous = subscriptions.put(config.getId(), subscription);
+        if (previous != null) {
+            previous.close();
+        }
+        
+        subscription.open();
+    }
+    
+    /*
+        Runs every LEASE_RENEW_SECONDS, starting RESTORE_DELAY_SECONDS after startup, as the platform's beans and database 
+        may not be ready while the bundle is starting. Renews the leases of subscriptions run by this node, 
+        and claims subscriptions without a lease, or with an expired one. Subscriptions taken over by another node, 
+        or ended from another node, are closed.
+    */
+    private static void renewLeases() {
+        final FormRowSet rows;
+        try {
+            rows = getFormDataDao().find(FORM_DEF_ID, TABLE_NAME, "WHERE e.customProperties.active = ?", new Object[]{ "true" }, null, null, null, null);
+        } catch (Exception ex) {
+            LogUtil.debug(getClassName(), "Unable to read topic subscriptions. Retrying in " + LEASE_RENEW_SECONDS + " seconds.");
+            return;
+        }
+        
+        final long now = System.currentTimeMillis();
+        final Set<String> activeIds = new HashSet<>();
+        
+        for (FormRow row : rows != null ? rows : Collections.<FormRow>emptyList()) {
+            activeIds.add(row.getId());
+            
+            final String ownerNodeId = row.getProperty("ownerNodeId");
+            final boolean leaseHeldByOther = ownerNodeId != null && !ownerNodeId.isEmpty() && !NODE_ID.equals(ownerNodeId) 
+                    && parseLong(row.getProperty("leaseExpiry")) > now;
+            
+            final Subscription subscription = subscriptions.get(row.getId());
+            if (leaseHeldByOther) {
+                if (subscription != null && subscriptions.remove(row.getId(), subscription)) {
+                    LogUtil.info(getClassName(), "Subscription to topic " + subscription.config.topicId() + " was taken over by node " + ownerNodeId + ". Closing it on this node.");
+                    subscription.close();
+                }
+                continue;
+            }
+            
+            try {
+                final long leaseExpiry = getLeaseExpiry();
+                if (subscription != null) {
+                    subscription.renewLease(leaseExpiry);
+                } else {
+                    final Instant checkpointTimestamp = TransactionUtil.parseMirrorTimestamp(row.getProperty("lastConsensusTimestamp"));
+                    final String checkpointSequenceNumber = row.getProperty("lastSequenceNumber");
+                    final TopicSubscription config = fromFormRow(row);
+                    
+                    saveRow(toFormRow(config, true, checkpointTimestamp, checkpointSequenceNumber, NODE_ID, leaseExpiry));
+                    activate(config, checkpointTimestamp, checkpointSequenceNumber, leaseExpiry);
+                }
+            } catch (Exception ex) {
+                LogUtil.error(getClassName(), ex, "Unable to claim subscription " + row.getId());
+            }
+        }
+        
+        for (Map.Entry<String, Subscription> entry : subscriptions.entrySet()) {
+            if (!activeIds.contains(entry.getKey()) && subscriptions.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().close();
+            }
+        }
+    }
+    
+    private static long getLeaseExpiry() {
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(LEASE_SECONDS);
+    }
+    
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+    
+    private static FormRow toFormRow(TopicSubscription config, boolean active, Instant checkpointTimestamp, String checkpointSequenceNumber, String ownerNodeId, long leaseExpiry) {
+        FormRow row = new FormRow();
+        row.setId(config.getId());
+        row.setProperty("appId", config.appId());
+        row.setProperty("appVersion", config.appVersion());
+        row.setProperty("topicId", config.topicId());
+        row.setProperty("processDefId", config.processDefId());
+        row.setProperty("username", nullToEmpty(config.username()));
+        row.setProperty("backendService", config.backendService());
+        row.setProperty("networkType", config.networkType());
+        row.setProperty("batchPerProcess", String.valueOf(config.batchPerProcess()));
+        row.setProperty("startFromBeginning", String.valueOf(config.startFromBeginning()));
+        row.setProperty("messageVariable", nullToEmpty(config.messageVariable()));
+        row.setProperty("sequenceNumberVariable", nullToEmpty(config.sequenceNumberVariable()));
+        row.setProperty("consensusTimestampVariable", nullToEmpty(config.consensusTimestampVariable()));
+        row.setProperty("active", String.valueOf(active));
+        row.setProperty("lastConsensusTimestamp", nullToEmpty(TransactionUtil.toMirrorTimestamp(checkpointTimestamp)));
+        row.setProperty("lastSequenceNumber", nullToEmpty(checkpointSequenceNumber));
+        row.setProperty("ownerNodeId", nullToEmpty(ownerNodeId));
+        row.setProperty("leaseExpiry", String.valueOf(leaseExpiry));
+        
+        return row;
+    }
+    
+    private static TopicSubscription fromFormRow(FormRow row) {
+        return new TopicSubscription(
+                row.getProperty("appId"),
+                row.getProperty("appVersion"),
+                row.getProperty("topicId"),
+                row.getProperty("processDefId"),
+                row.getProperty("username"),
+                row.getProperty("backendService"),
+                row.getProperty("networkType"),
+                "true".equals(row.getProperty("batchPerProcess")),
+                "true".equals(row.getProperty("startFromBeginning")),
+                row.getProperty("messageVariable"),
+                row.getProperty("sequenceNumberVariable"),
+                row.getProperty("consensusTimestampVariable")
+        );
+    }
+    
+    private static void saveRow(FormRow row) {
+        FormRowSet rowSet = new FormRowSet();
+        rowSet.add(row);
+        
+        getFormDataDao().saveOrUpdate(FORM_DEF_ID, TABLE_NAME, rowSet);
+    }
+    
+    private static void saveSkippedRow(FormRow row) {
+        FormRowSet rowSet = new FormRowSet();
+        rowSet.add(row);
+        
+        getFormDataDao().saveOrUpdate(SKIPPED_FORM_DEF_ID, SKIPPED_TABLE_NAME, rowSet);
+    }
+    
+    private static FormDataDao getFormDataDao() {
+        return (FormDataDao) AppUtil.getApplicationContext().getBean("formDataDao");
+    }
+    
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+    
+    private static void closeClient(Client client) {
+        try {
+            client.close();
+        } catch (TimeoutException ex) {
+            LogUtil.error(getClassName(), ex, "Timeout while closing mirror client");
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Error closing mirror client");
+        }
+    }
+    
+    private static String getClassName() {
+        return TopicSubscriptionService.class.getName();
+    }
+    
+    /*
+        Runtime state of a subscription. The stream is opened, paused and closed under the subscription's lock,
+        and each opened stream has its own generation, so that callbacks of a stream that was already paused are ignored.
+        The pending batch, dispatch attempts and backoff are only touched by the dispatcher thread.
+    */
+    private static final class Subscription {
+        
+        private final TopicSubscription config;
+        private final Client client;
+        private final Instant initialStartTime;
+        
+        private final BlockingQueue<TopicMessage> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final List<TopicMessage> pending = new ArrayList<>();
+        
+        private volatile boolean active = true;
+        private volatile int generation;
+        private volatile Instant lastQueuedTimestamp;
+        private volatile Instant checkpointTimestamp;
+        private volatile String checkpointSequenceNumber;
+        private volatile long leaseExpiry;
+        
+        private SubscriptionHandle handle;
+        private long lastOpenAttempt;
+        private int dispatchAttempts;
+        private long nextDispatchMillis;
+        private String lastDispatchError;
+        
+        private Subscription(TopicSubscription config, Client client, Instant checkpointTimestamp, String checkpointSequenceNumber, long leaseExpiry) {
+            this.config = config;
+            this.client = client;
+            this.checkpointTimestamp = checkpointTimestamp;
+            this.checkpointSequenceNumber = checkpointSequenceNumber;
+            this.leaseExpiry = leaseExpiry;
+            this.initialStartTime = config.startFromBeginning() ? Instant.EPOCH : Instant.now();
+        }
+        
+        /**
+         * Opens the stream if it is not open, carrying on after the last queued or checkpointed message.
+         */
+        private synchronized void open() {
+            if (!active || handle != null || System.currentTimeMillis() - lastOpenAttempt < RESUBSCRIBE_INTERVAL_MILLIS) {
+                return;
+            }
+            lastOpenAttempt = System.currentTimeMillis();
+            
+            final int streamGeneration = ++generation;
+            
+            final Instant resumeAfter = lastQueuedTimestamp != null ? lastQueuedTimestamp : checkpointTimestamp;
+            final Instant startTime = resumeAfter != null ? resumeAfter.plusNanos(1) : initialStartTime;
+            
+            try {
+                handle = new TopicMessageQuery()
+                        .setTopicId(TopicId.fromString(config.topicId()))
+                        .setStartTime(startTime)
+                        .setErrorHandler((ex, message) -> {
+                            LogUtil.error(getClassName(), ex, "Subscription to topic " + config.topicId() + " failed. Resubscribing shortly.");
+                            endStream(streamGeneration, false);
+                        })
+                        .setCompletionHandler(() -> endStream(streamGeneration, false))
+                        .subscribe(client, message -> onMessage(streamGeneration, message));
+            } catch (Exception ex) {
+                LogUtil.error(getClassName(), ex, "Unable to subscribe to topic " + config.topicId());
+                handle = null;
+            }
+        }
+        
+        private void onMessage(int streamGeneration, TopicMessage message) {
+            if (!active || streamGeneration != generation) {
+                return;
+            }
+            
+            //Messages up to the resume point may be delivered again after a reconnect
+            if (lastQueuedTimestamp != null && !message.consensusTimestamp.isAfter(lastQueuedTimestamp)) {
+                return;
+            }
+            
+            if (!queue.offer(message)) {
+                LogUtil.debug(getClassName(), "Message queue of topic " + config.topicId() + " is full. Pausing subscription until dispatched.");
+                endStream(streamGeneration, true);
+                return;
+            }
+            lastQueuedTimestamp = message.consensusTimestamp;
+        }
+        
+        private synchronized void endStream(int streamGeneration, boolean unsubscribe) {
+            if (streamGeneration != generation) {
+                return;
+            }
+            generation++;
+            
+            if (unsubscribe && handle != null) {
+                handle.unsubscribe();
+            }
+            handle = null;
+        }
+        
+        private synchronized void close() {
+            active = false;
+            endStream(generation, true);
+            queue.clear();
+        }
+        
+        private void dispatch() {
+            //Without a valid lease, another node may have taken over already. Messages are held back until the lease is renewed.
+            final long now = System.currentTimeMillis();
+            final boolean dispatchable = now <= leaseExpiry && now >= nextDispatchMillis;
+            
+            while (active && dispatchable) {
+                if (pending.isEmpty()) {
+                    queue.drainTo(pending, BATCH_SIZE);
+                }
+                if (pending.isEmpty()) {
+                    break;
+                }
+                
+                final int dispatchedCount = startProcesses();
+                if (dispatchedCount < 0) {
+                    break;
+                }
+                if (dispatchedCount > 0) {
+                    checkpoint(pending.get(dispatchedCount - 1));
+                    pending.subList(0, dispatchedCount).clear();
+                    dispatchAttempts = 0;
+                }
+                
+                if (!pending.isEmpty()) {
+                    if (++dispatchAttempts < MAX_DISPATCH_ATTEMPTS) {
+                        //Backs off exponentially from the dispatch interval, up to MAX_DISPATCH_BACKOFF_MILLIS
+                        final long backoffMillis = Math.min(MAX_DISPATCH_BACKOFF_MILLIS, DISPATCH_INTERVAL_MILLIS << Math.min(dispatchAttempts - 1, 30));
+                        nextDispatchMillis = System.currentTimeMillis() + backoffMillis;
+                        break;
+                    }
+                    
+                    final TopicMessage skipped = pending.remove(0);
+                    LogUtil.warn(getClassName(), "Skipping message " + skipped.sequenceNumber + " of topic " + config.topicId() + " after " + MAX_DISPATCH_ATTEMPTS + " failed attempts.");
+                    recordSkipped(skipped);
+                    checkpoint(skipped);
+                    dispatchAttempts = 0;
+                }
+            }
+            
+            //Resumes paused or failed streams once there is room in the queue again
+            if (queue.size() <= QUEUE_CAPACITY / 2) {
+                open();
+            }
+        }
+        
+        /**
+         * Starts processes for the pending batch, in order.
+         * @return The number of pending messages dispatched, which is less than the batch size if a process fails to start.
+         *         -1 if the app or process is not found, in which case messages are held back until it is deployed.
+         */
+        private int startProcesses() {
+            final AppService appService = (AppService) AppUtil.getApplicationContext().getBean("appService");
+            final WorkflowManager workflowManager = (WorkflowManager) AppUtil.getApplicationContext().getBean("workflowManager");
+            
+            final AppDefinition appDef = appService.getAppDefinition(config.appId(), config.appVersion());
+            final WorkflowProcess process = appService.getWorkflowProcessForApp(config.appId(), config.appVersion(), config.processDefId());
+            if (appDef == null || process == null) {
+                LogUtil.warn(getClassName(), "Process " + config.processDefId() + " not found in app " + config.appId() + " for topic " + config.topicId());
+                return -1;
+            }
+            
+            int dispatchedCount = 0;
+            
+            //Backend configs (e.g. the timezone) and process variables are resolved against the current app
+            AppUtil.setCurrentAppDefinition(appDef);
+            try {
+                final String timezone = BackendUtil.getTimezone(new HashMap());
+                
+                if (config.batchPerProcess()) {
+                    JSONArray messages = new JSONArray();
+                    for (TopicMessage message : pending) {
+                        messages.put(new JSONObject()
+                                .put("sequenceNumber", message.sequenceNumber)
+                                .put("consensusTimestamp", TransactionUtil.toMirrorTimestamp(message.consensusTimestamp))
+                                .put("message", getContents(message)));
+                    }
+                    
+                    final TopicMessage lastMessage = pending.get(pending.size() - 1);
+                    workflowManager.processStart(process.getId(), null, getVariables(messages.toString(), lastMessage, timezone), config.username(), null, false);
+                    dispatchedCount = pending.size();
+                } else {
+                    for (TopicMessage message : pending) {
+                        workflowManager.processStart(process.getId(), null, getVariables(getContents(message), message, timezone), config.username(), null, false);
+                        dispatchedCount++;
+                    }
+                }
+            } catch (Exception ex) {
+                LogUtil.error(getClassName(), ex, "Error starting process for messages of topic " + config.topicId());
+                lastDispatchError = ex.getClass().getName() + " : " + ex.getMessage();
+            } finally {
+                AppUtil.setCurrentAppDefinition(null);
+            }
+            
+            return dispatchedCount;
+        }
+        
+        private Map<String, String> getVariables(String messageContent, TopicMessage message, String timezone) {
+            Map<String, String> variables = new HashMap<>();
+            putVariable(variables, config.messageVariable(), messageContent);
+            putVariable(variables, config.sequenceNumberVariable(), String.valueOf(message.sequenceNumber));
+            putVariable(variables, config.consensusTimestampVariable(), TransactionUtil.convertInstantToZonedDateTimeString(message.consensusTimestamp, timezone));
+            
+            return variables;
+        }
+        
+        private void putVariable(Map<String, String> variables, String variable, String value) {
+            if (variable != null && !variable.isEmpty()) {
+                variables.put(variable, value);
+            }
+        }
+        
+        private String getContents(TopicMessage message) {
+            return message.contents != null ? new String(message.contents, StandardCharsets.UTF_8) : "";
+        }
+        
+        /*
+            Skipped messages are stored with their contents, so that they can be followed up, e.g. by starting their process manually.
+            The row ID is unique per subscription and message, so a message skipped again after a takeover overwrites its earlier row.
+        */
+        private void recordSkipped(TopicMessage message) {
+            FormRow row = new FormRow();
+            row.setId(config.getId() + "_" + message.sequenceNumber);
+            row.setProperty("subscriptionId", config.getId());
+            row.setProperty("appId", config.appId());
+            row.setProperty("topicId", config.topicId());
+            row.setProperty("processDefId", config.processDefId());
+            row.setProperty("sequenceNumber", String.valueOf(message.sequenceNumber));
+            row.setProperty("consensusTimestamp", TransactionUtil.toMirrorTimestamp(message.consensusTimestamp));
+            row.setProperty("message", getContents(message));
+            row.setProperty("attempts", String.valueOf(MAX_DISPATCH_ATTEMPTS));
+            row.setProperty("error", nullToEmpty(lastDispatchError));
+            row.setProperty("status", STATUS_FAILED);
+            
+            try {
+                saveSkippedRow(row);
+            } catch (Exception ex) {
+                LogUtil.error(getClassName(), ex, "Unable to record skipped message " + message.sequenceNumber + " of topic " + config.topicId());
+            }
+        }
+        
+        private synchronized void checkpoint(TopicMessage message) {
+            if (!active) {
+                return;
+            }
+            
+            checkpointTimestamp = message.consensusTimestamp;
+            checkpointSequenceNumber = String.valueOf(message.sequenceNumber);
+            saveRow(toFormRow(config, true, checkpointTimestamp, checkpointSequenceNumber, NODE_ID, leaseExpiry));
+        }
+        
+        //Checkpoints are saved with the lease, so the whole row is written under the subscription's lock
+        private synchronized void renewLease(long leaseExpiry) {
+            if (!active) {
+                return;
+            }
+            
+            saveRow(toFormRow(config, true, checkpointTimestamp, checkpointSequenceNumber, NODE_ID, leaseExpiry));
+            this.leaseExpiry = leaseExpiry;
+        }
+        
+        private synchronized void releaseLease() {
+            try {
+                saveRow(toFormRow(config, true, checkpointTimestamp, checkpointSequenceNumber, "", 0));
+            } catch (Exception ex) {
+                LogUtil.warn(getClassName(), "Unable to release lease of subscription to topic " + config.topicId() + ". It is taken over once the lease expires.");
+            }
+        }
+    }
+}
@@ -0,0 +1,500 @@
+package org.joget.hedera.service;
+
+import com.hedera.hashgraph.sdk.LedgerId;
+import com.hedera.hashgraph.sdk.TransactionId;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.joget.apps.app.model.AppDefinition;
+import org.joget.apps.app.service.AppService;
+import org.joget.apps.app.service.AppUtil;
+import org.joget.apps.form.dao.FormDataDao;
+import org.joget.apps.form.model.FormRow;
+import org.joget.apps.form.model.FormRowSet;
+import org.joget.commons.util.LogUtil;
+import org.joget.hedera.model.PendingCompletion;
+import org.joget.workflow.model.WorkflowActivity;
+import org.joget.workflow.model.service.WorkflowManager;
+import org.json.JSONObject;
+
+/**
+ * Completes submitted transactions in the background, so that process tools need not wait for everything upfront.
+ *
+ * Transactions are looked up on the mirror node once ingested, which usually takes a few seconds after consensus.
+ * Lookups are retried every POLL_INTERVAL_SECONDS, up to MAX_POLL_ATTEMPTS times.
+ * Once done, processes waiting on the outcome can be moved along by completing their waiting activity.
+ *
+ * Outcomes to store to a process are tracked in a form table, and resumed when the plugin bundle is started again.
+ * A transaction still not found once it can no longer reach consensus is marked UNKNOWN, and its waiting activity is left open, 
+ * so that the process can be followed up instead of carrying on as if the outcome were known.
+ *
+ * On clustered setups, each tracked completion is run by one server node only, which holds a lease on its row in the form table.
+ * The lease is renewed every LEASE_RENEW_SECONDS, and taken over by another node once it has not been renewed for LEASE_SECONDS,
+ * e.g. when its node is down. The lease is checked again right before the outcome is stored and the waiting activity completed,
+ * so a node that lost its lease leaves the completion to its new owner.
+ */
+public class TransactionCompletionService {
+    
+    private static final long POLL_INTERVAL_SECONDS = 3;
+    private static final int MAX_POLL_ATTEMPTS = 20;
+    private static final int SCHEDULER_THREADS = 2;
+    
+    private static final String FORM_DEF_ID = "hedera_pending_completion";
+    private static final String TABLE_NAME = "hedera_pending_completion";
+    
+    private static final String STATUS_PENDING = "PENDING";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+    private static final String STATUS_UNKNOWN = "UNKNOWN";
+    private static final String STATUS_FAILED = "FAILED";
+    
+    private static final long RESTORE_DELAY_SECONDS = 30;
+    private static final long LEASE_SECONDS = 60;
+    private static final long LEASE_RENEW_SECONDS = 15;
+    
+    //Unique per JVM, so that server nodes on the same host are told apart
+    private static final String NODE_ID = System.getProperty("hedera.nodeId", ManagementFactory.getRuntimeMXBean().getName());
+    
+    //Tracked completions run by this node, by transaction ID. Rows are only written under leaseLock, so that a renewal cannot overwrite a finished row.
+    private static final Map<String, PendingCompletion> ownedCompletions = new ConcurrentHashMap<>();
+    private static final Object leaseLock = new Object();
+    
+    private static ScheduledThreadPoolExecutor scheduler;
+    
+    private TransactionCompletionService() {}
+    
+    /**
+     * Passes the mirror node JSON of a transaction to the callback once the transaction is available on the mirror node,
+     * or null if it is still not found after MAX_POLL_ATTEMPTS. The callback is run on a background thread.
+     */
+    public static void whenMirrorTransactionAvailable(MirrorRestService restService, TransactionId transactionId, Consumer<JSONObject> callback) {
+        final String formattedTxId = TransactionUtil.formatTransactionIdForMirror(transactionId.toString());
+        
+        schedulePoll(restService, formattedTxId, callback, 1);
+    }
+    
+    /**
+     * Claims leases on tracked completions once the platform is up, and resumes them. Called when the plugin bundle is started.
+     */
+    public static void start() {
+        getScheduler().scheduleWithFixedDelay(() -> {
+            try {
+                renewLeases();
+            } catch (Exception ex) {
+                LogUtil.error(getClassName(), ex, "Error renewing transaction completion leases");
+            }
+        }, RESTORE_DELAY_SECONDS, LEASE_RENEW_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Stores the outcome of a submitted transaction to its process once available on the mirror node, 
+     * then completes the process's waiting activity, if any. The completion is tracked until done, across restarts.
+     */
+    public static void complete(PendingCompletion completion) {
+        try {
+            synchronized (leaseLock) {
+                saveRow(toFormRow(completion, STATUS_PENDING, getLeaseExpiry()));
+                ownedCompletions.put(completion.transactionId(), completion);
+            }
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Unable to track completion of transaction " + completion.transactionId() + ". It is not resumed after a restart.");
+        }
+        
+        scheduleCompletion(completion, 1);
+    }
+    
+    /**
+     * Stores the status of a transaction that failed before reaching consensus to its process, 
+     * then completes the process's waiting activity, if any.
+     */
+    public static void fail(PendingCompletion completion, String status) {
+        final AppDefinition appDef = getAppService().getAppDefinition(completion.appId(), completion.appVersion());
+        
+        AppUtil.setCurrentAppDefinition(appDef);
+        try {
+            storeProcessVariable(completion.processId(), completion.statusVariable(), status);
+            saveRow(toFormRow(completion, STATUS_FAILED, 0));
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Error storing failure of transaction " + completion.transactionId());
+        } finally {
+            AppUtil.setCurrentAppDefinition(null);
+        }
+        
+        if (appDef != null && completion.waitActivityDefId() != null && !completion.waitActivityDefId().isEmpty()) {
+            scheduleActivityCompletion(completion, appDef, 1);
+        }
+    }
+    
+    /**
+     * Stops all polls. Leases are released, so that other nodes take over the tracked completions right away.
+     */
+    public static synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        
+        synchronized (leaseLock) {
+            for (PendingCompletion completion : ownedCompletions.values()) {
+                try {
+                    saveRow(toFormRow(completion, STATUS_PENDING, 0));
+                } catch (Exception ex) {
+                    LogUtil.warn(getClassName(), "Unable to release lease of completion " + completion.transactionId() + ". It is taken over once the lease expires.");
+                }
+            }
+            ownedCompletions.clear();
+        }
+    }
+    
+    private static void schedulePoll(MirrorRestService restService, String formattedTxId, Consumer<JSONObject> callback, int attempt) {
+        schedule(() -> poll(restService, formattedTxId, callback, attempt), formattedTxId);
+    }
+    
+    private static void schedule(Runnable task, String taskKey) {
+        schedule(task, taskKey, POLL_INTERVAL_SECONDS);
+    }
+    
+    private static void schedule(Runnable task, String taskKey, long delaySeconds) {
+        try {
+            getScheduler().schedule(() -> {
+                try {
+                    task.run();
+                } catch (Exception ex) {
+                    LogUtil.error(getClassName(), ex, "Error running completion task for " + taskKey);
+                }
+            }, delaySeconds, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException ex) {
+            LogUtil.warn(getClassName(), "Transaction completion service is shut down. Skipping completion task for " + taskKey);
+        }
+    }
+    
+    private static void poll(MirrorRestService restService, String formattedTxId, Consumer<JSONObject> callback, int attempt) {
+        final JSONObject transaction = TransactionUtil.getMirrorTransaction(restService.getTxData(formattedTxId));
+        
+        if (transaction == null) {
+            if (attempt < MAX_POLL_ATTEMPTS) {
+                schedulePoll(restService, formattedTxId, callback, attempt + 1);
+                return;
+            }
+            LogUtil.warn(getClassName(), "Transaction " + formattedTxId + " not found on mirror node after " + MAX_POLL_ATTEMPTS + " attempts.");
+        }
+        
+        try {
+            callback.accept(transaction);
+        } catch (Exception ex) {
+            LogUtil.error(getClassName(), ex, "Error completing transaction " + formattedTxId);
+        }
+    }
+    
+    private static void scheduleCompletion(PendingCompletion completion, int attempt) {
+        schedule(() -> pollCompletion(completion, attempt), completion.transactionId());
+    }
+    
+    /*
+        Polls past MAX_POLL_ATTEMPTS for as long as the transaction may still reach consensus, as the mirror node may lag behind.
+        Process variables are resolved against the app of the process, so its app definition is set for the whole poll.
+    */
+    private static void pollCompletion(PendingCompletion completion, int attempt) {
+        final AppDefinition appDef = getAppService().getAppDefinition(completion.appId(), completion.appVersion());
+        if (appDef == null) {
+            LogUtil.warn(getClassName(), "App " + completion.appId() + " not found. Unable to complete transaction " + completion.transactionId());
+            finish(completion, STATUS_UNKNOWN);
+            return;
+        }
+        
+        AppUtil.setCurrentAppDefinition(appDef);
+        try {
+            final JSONObject transaction = TransactionUtil.getMirrorTransaction(
+                    createRestService(completion).getTxData(TransactionUtil.formatTransactionIdForMirror(completion.transactionId()))
+            );
+            
+            if (transaction == null && (attempt < MAX_POLL_ATTEMPTS || !TransactionUtil.isTransactionExpired(completion.transactionId()))) {
+                scheduleCompletion(completion, attempt + 1);
+                return;
+            }
+            
+            final Boolean leaseHeld = isLeaseHeld(completion);
+            if (leaseHeld == null) {
+                scheduleCompletion(completion, attempt + 1);
+                return;
+            }
+            if (!leaseHeld) {
+                ownedCompletions.remove(completion.transactionId());
+                LogUtil.info(getClassName(), "Completion of transaction " + completion.transactionId() + " was taken over by another node.");
+                return;
+            }
+            
+            if (transaction == null) {
+                LogUtil.warn(getClassName(), "Transaction " + completion.transactionId() + " not found on mirror node after it expired. Leaving process " + completion.processId() + " for follow up.");
+                storeProcessVariable(completion.processId(), completion.statusVariable(), STATUS_UNKNOWN);
+                finish(completion, STATUS_UNKNOWN);
+                return;
+            }
+            
+            storeProcessVariable(completion.processId(), completion.statusVariable(), transaction.getString("result"));
+            storeProcessVariable(
+                    completion.processId(), 
+                    completion.timestampVariable(), 
+                    TransactionUtil.convertInstantToZonedDateTimeString(
+                            TransactionUtil.parseMirrorTimestamp(transaction.getString("consensus_timestamp")), 
+                            completion.timezone()
+                    )
+            );
+            finish(completion, STATUS_COMPLETED);
+        } finally {
+            AppUtil.setCurrentAppDefinition(null);
+        }
+        
+        if (completion.waitActivityDefId() != null && !completion.waitActivityDefId().isEmpty()) {
+            scheduleActivityCompletion(completion, appDef, 1);
+        }
+    }
+    
+    //The backend service is set explicitly, as the backend configs of the app may not set one
+    private static MirrorRestService createRestService(PendingCompletion completion) {
+        Map properties = new HashMap();
+        properties.put("backendService", completion.backendService());
+        
+        return new MirrorRestService(properties, LedgerId.fromString(completion.networkType()));
+    }
+    
+    private static void storeProcessVariable(String processId, String variable, String value) {
+        if (variable == null || variable.isEmpty() || value == null) {
+            return;
+        }
+        
+        getWorkflowManager().processVariable(processId, variable, value);
+    }
+    
+    /*
+        Completes the open waiting activity of the process. 
+        As the process may not have reached the activity yet, retries every POLL_INTERVAL_SECONDS up to MAX_POLL_ATTEMPTS times.
+    */
+    private static void scheduleActivityCompletion(PendingCompletion completion, AppDefinition appDef, int attempt) {
+        schedule(() -> {
+            final WorkflowManager workflowManager = getWorkflowManager();
+            final WorkflowActivity activity = findOpenActivity(workflowManager, completion.processId(), completion.waitActivityDefId());
+            
+            if (activity != null) {
+                AppUtil.setCurrentAppDefinition(appDef);
+                try {
+                    workflowManager.assignmentForceComplete(completion.processDefId(), completion.processId(), activity.getId(), completion.username());
+                } finally {
+                    AppUtil.setCurrentAppDefinition(null);
+                }
+            } else if (attempt < MAX_POLL_ATTEMPTS) {
+                scheduleActivityCompletion(completion, appDef, attempt + 1);
+            } else {
+                LogUtil.warn(getClassName(), "No open activity '" + completion.waitActivityDefId() + "' found in process " + completion.processId() + " to complete.");
+            }
+        }, completion.processId());
+    }
+    
+    /*
+        Runs every LEASE_RENEW_SECONDS, starting RESTORE_DELAY_SECONDS after startup, as the platform's beans and database 
+        may not be ready while the bundle is starting. Renews the leases of completions run by this node, 
+        and claims pending completions without a lease, or with an expired one. Completions taken over by another node are dropped.
+    */
+    private static void renewLeases() {
+        final FormRowSet rows;
+        try {
+            rows = getFormDataDao().find(FORM_DEF_ID, TABLE_NAME, "WHERE e.customProperties.status = ?", new Object[]{ STATUS_PENDING }, null, null, null, null);
+        } catch (Exception ex) {
+            LogUtil.debug(getClassName(), "Unable to read pending completions. Retrying in " + LEASE_RENEW_SECONDS + " seconds.");
+            return;
+        }
+        
+        final long now = System.currentTimeMillis();
+        int claimedCount = 0;
+        
+        for (FormRow row : rows != null ? rows : Collections.<FormRow>emptyList()) {
+            final String ownerNodeId = row.getProperty("ownerNodeId");
+            final boolean leaseHeldByOther = ownerNodeId != null && !ownerNodeId.isEmpty() && !NODE_ID.equals(ownerNodeId) 
+                    && parseLong(row.getProperty("leaseExpiry")) > now;
+            
+            if (leaseHeldByOther) {
+                if (ownedCompletions.remove(row.getId()) != null) {
+                    LogUtil.info(getClassName(), "Completion of transaction " + row.getId() + " was taken over by node " + ownerNodeId + ".");
+                }
+                continue;
+            }
+            
+            try {
+                PendingCompletion claimed = null;
+                synchronized (leaseLock) {
+                    final PendingCompletion owned = ownedCompletions.get(row.getId());
+                    if (owned != null) {
+                        saveRow(toFormRow(owned, STATUS_PENDING, getLeaseExpiry()));
+                    } else if (isClaimable(getFormDataDao().load(FORM_DEF_ID, TABLE_NAME, row.getId()))) {
+                        //Read again, as the completion may have finished on this node since the rows were read
+                        claimed = fromFormRow(row);
+                        saveRow(toFormRow(claimed, STATUS_PENDING, getLeaseExpiry()));
+                        ownedCompletions.put(claimed.transactionId(), claimed);
+                    }
+                }
+                
+                if (claimed != null) {
+                    scheduleCompletion(claimed, 1);
+                    claimedCount++;
+                }
+            } catch (Exception ex) {
+                LogUtil.error(getClassName(), ex, "Unable to claim completion of transaction " + row.getId());
+            }
+        }
+        
+        if (claimedCount > 0) {
+            LogUtil.info(getClassName(), "Resumed " + claimedCount + " pending transaction completions.");
+        }
+    }
+    
+    /*
+        Checks the lease on the completion's row, right before its outcome is stored.
+        Completions that could not be tracked have no row, and are only run by the node that submitted them.
+        @return Whether this node still holds the lease, or null if the row cannot be read right now
+    */
+    private static Boolean isLeaseHeld(PendingCompletion completion) {
+        final FormRow row;
+        try {
+            row = getFormDataDao().load(FORM_DEF_ID, TABLE_NAME, completion.transactionId());
+        } catch (Exception ex) {
+            LogUtil.debug(getClassName(), "Unable to read completion of transaction " + completion.transactionId() + ". Retrying in " + POLL_INTERVAL_SECONDS + " seconds.");
+            return null;
+        }
+        
+        if (row == null) {
+            return true;
+        }
+        
+        return STATUS_PENDING.equals(row.getProperty("status"))
+                && NODE_ID.equals(row.getProperty("ownerNodeId"))
+                && parseLong(row.getProperty("leaseExpiry")) > System.currentTimeMillis();
+    }
+    
+    private static boolean isClaimable(FormRow row) {
+        if (row == null || !STATUS_PENDING.equals(row.getProperty("status"))) {
+            return false;
+        }
+        
+        final String ownerNodeId = row.getProperty("ownerNodeId");
+        return ownerNodeId == null || ownerNodeId.isEmpty() || NODE_ID.equals(ownerNodeId) 
+                || parseLong(row.getProperty("leaseExpiry")) <= System.currentTimeMillis();
+    }
+    
+    private static void finish(PendingCompletion completion, String status) {
+        synchronized (leaseLock) {
+            ownedCompletions.remove(completion.transactionId());
+            saveRow(toFormRow(completion, status, 0));
+        }
+    }
+    
+    private static long getLeaseExpiry() {
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(LEASE_SECONDS);
+    }
+    
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+    
+    private static FormRow toFormRow(PendingCompletion completion, String status, long leaseExpiry) {
+        FormRow row = new FormRow();
+        row.setId(completion.transactionId());
+        row.setProperty("appId", completion.appId());
+        row.setProperty("appVersion", completion.appVersion());
+        row.setProperty("backendService", completion.backendService());
+        row.setProperty("networkType", completion.networkType());
+        row.setProperty("processDefId", completion.processDefId());
+        row.setProperty("processId", completion.processId());
+        row.setProperty("waitActivityDefId", nullToEmpty(completion.waitActivityDefId()));
+        row.setProperty("username", nullToEmpty(completion.username()));
+        row.setProperty("statusVariable", nullToEmpty(completion.statusVariable()));
+        row.setProperty("timestampVariable", nullToEmpty(completion.timestampVariable()));
+        row.setProperty("timezone", nullToEmpty(completion.timezone()));
+        row.setProperty("status", status);
+        row.setProperty("ownerNodeId", NODE_ID);
+        row.setProperty("leaseExpiry", String.valueOf(leaseExpiry));
+        
+        return row;
+    }
+    
+    private static PendingCompletion fromFormRow(FormRow row) {
+        return new PendingCompletion(
+                row.getId(),
+                row.getProperty("appId"),
+                row.getProperty("appVersion"),
+                row.getProperty("backendService"),
+                row.getProperty("networkType"),
+                row.getProperty("processDefId"),
+                row.getProperty("processId"),
+                row.getProperty("waitActivityDefId"),
+                row.getProperty("username"),
+                row.getProperty("statusVariable"),
+                row.getProperty("timestampVariable"),
+                row.getProperty("timezone")
+        );
+    }
+    
+    private static void saveRow(FormRow row) {
+        FormRowSet rowSet = new FormRowSet();
+        rowSet.add(row);
+        
+        getFormDataDao().saveOrUpdate(FORM_DEF_ID, TABLE_NAME, rowSet);
+    }
+    
+    private static FormDataDao getFormDataDao() {
+        return (FormDataDao) AppUtil.getApplicationContext().getBean("formDataDao");
+    }
+    
+    private static AppService getAppService() {
+        return (AppService) AppUtil.getApplicationContext().getBean("appService");
+    }
+    
+    private static WorkflowManager getWorkflowManager() {
+        return (WorkflowManager) AppUtil.getApplicationContext().getBean("workflowManager");
+    }
+    
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+    
+    private static WorkflowActivity findOpenActivity(WorkflowManager workflowManager, String processId, String activityDefId) {
+        Collection<WorkflowActivity> activities = workflowManager.getActivityList(processId, null, null, null, null);
+        if (activities == null) {
+            return null;
+        }
+        
+        for (WorkflowActivity activity : activities) {
+            if (activityDefId.equals(activity.getActivityDefId()) && activity.getState() != null && activity.getState().startsWith("open")) {
+                return activity;
+            }
+        }
+        
+        return null;
+    }
+    
+    private static synchronized ScheduledThreadPoolExecutor getScheduler() {
+        if (scheduler == null) {
+            scheduler = new ScheduledThreadPoolExecutor(SCHEDULER_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "hedera-tx-completion");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+        }
+        
+        return scheduler;
+    }
+    
+    private static String getClassName() {
+        return TransactionCompletionService.class.getName();
+    }
+}
@@ -1,13 +1,30 @@
 package org.joget.hedera.service;
 
+import com.hedera.hashgraph.sdk.TransactionId;
 import java.math.BigDecimal;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.joget.commons.util.LogUtil;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
 public class TransactionUtil {
     
+    private static final String DATE_TIME_PATTERN = "yyyy-MM-dd hh:mm:ss a z";
+    private static final String DISPLAY_DATE_TIME_PATTERN = "dd-MM-yyyy hh:mm:ss a z";
+    
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    
+    //Transactions expire 180 seconds after their valid start. The rest allows for mirror node lag.
+    private static final long TRANSACTION_EXPIRY_SECONDS = 240;
+    
+    private static final Map<FormatterKey, DateTimeFormatter> formatters = new ConcurrentHashMap<>();
+    
     private TransactionUtil() {}
     
     /**
@@ -35,27 +52,137 @@ public class TransactionUtil {
         return convertInstantToZonedDateTimeString(timeStamp, null);
     }
     
+    /**
+     * Format timestamp for workflow variables and form fields (e.g.: 2023-11-14 10:13:20 PM UTC)
+     * @param zoneId Timezone to display the timestamp in. Defaults to UTC if empty.
+     */
     public static String convertInstantToZonedDateTimeString(Instant timeStamp, String zoneId) {
         if (timeStamp == null) {
             return "";
         }
         
-        String dateTimeFormat = "yyyy-MM-dd hh:mm:ss a z";
+        return getFormatter(DATE_TIME_PATTERN, Locale.getDefault(Locale.Category.FORMAT), resolveZoneId(zoneId, UTC)).format(timeStamp);
+    }
+    
+    /**
+     * Format mirror node timestamp in "seconds.nanoseconds" format for display in hash variables (e.g.: 14-11-2023 10:13:20 PM UTC)
+     * @param zoneId Timezone to display the timestamp in. Defaults to the server timezone if empty.
+     * @return The formatted timestamp, or null if there is no timestamp
+     */
+    public static String formatMirrorTimestamp(String timestamp, String zoneId) {
+        return formatDisplayTimestamp(parseMirrorTimestamp(timestamp), zoneId);
+    }
+    
+    /**
+     * Format timestamp for display in hash variables (e.g.: 14-11-2023 10:13:20 PM UTC)
+     * @param zoneId Timezone to display the timestamp in. Defaults to the server timezone if empty.
+     * @return The formatted timestamp, or null if there is no timestamp
+     */
+    public static String formatDisplayTimestamp(Instant timeStamp, String zoneId) {
+        if (timeStamp == null) {
+            return null;
+        }
         
-        //Default to UTC timezone
-        ZoneId zone;
-        if (zoneId != null && !zoneId.isEmpty()) {
-            zone = ZoneId.of(zoneId);
-        } else {
-            zone = ZoneId.of("UTC");
+        return getFormatter(DISPLAY_DATE_TIME_PATTERN, Locale.ENGLISH, resolveZoneId(zoneId, ZoneId.systemDefault())).format(timeStamp);
+    }
+    
+    /**
+     * Convert transaction ID to the format used by mirror node REST APIs (e.g.: 0.0.1234@1700000000.123456789 --> 0.0.1234-1700000000-123456789)
+     */
+    public static String formatTransactionIdForMirror(String transactionId) {
+        return (
+                transactionId.substring(0, transactionId.lastIndexOf("."))
+                + "-"
+                + transactionId.substring(transactionId.lastIndexOf(".") + 1)
+        ).replace("@", "-");
+    }
+    
+    /**
+     * Convert mirror node timestamp in "seconds.nanoseconds" format to an exact Instant
+     */
+    public static Instant parseMirrorTimestamp(String timestamp) {
+        if (timestamp == null || timestamp.isEmpty()) {
+            return null;
         }
         
-        ZonedDateTime dateTime = ZonedDateTime.ofInstant(timeStamp, zone);
+        final int separatorIndex = timestamp.indexOf('.');
+        if (separatorIndex < 0) {
+            return Instant.ofEpochSecond(Long.parseLong(timestamp));
+        }
+        
+        //Right-pad fraction to 9 digits, so that e.g. "1.5" is read as 500000000 nanoseconds
+        final String nanos = (timestamp.substring(separatorIndex + 1) + "000000000").substring(0, 9);
         
-        return DateTimeFormatter.ofPattern(dateTimeFormat).format(dateTime);
+        return Instant.ofEpochSecond(
+                Long.parseLong(timestamp.substring(0, separatorIndex)), 
+                Long.parseLong(nanos)
+        );
+    }
+    
+    /**
+     * Convert an Instant to the "seconds.nanoseconds" format used by mirror node REST APIs and query filters (e.g.: 1700000000.000000001)
+     */
+    public static String toMirrorTimestamp(Instant timestamp) {
+        if (timestamp == null) {
+            return null;
+        }
+        
+        return timestamp.getEpochSecond() + "." + String.format("%09d", timestamp.getNano());
+    }
+    
+    /**
+     * Get the transaction of a mirror node transaction lookup response (e.g. from MirrorRestService.getTxData()), or null if not found
+     */
+    public static JSONObject getMirrorTransaction(JSONObject response) {
+        if (response == null || response.has("_status")) {
+            return null;
+        }
+        
+        final JSONArray transactions = response.optJSONArray("transactions");
+        if (transactions == null || transactions.isEmpty()) {
+            return null;
+        }
+        
+        return transactions.getJSONObject(0);
+    }
+    
+    /**
+     * Whether a transaction not found on the mirror node can no longer reach consensus, as its validity window has passed
+     */
+    public static boolean isTransactionExpired(String transactionId) {
+        try {
+            final Instant validStart = TransactionId.fromString(transactionId).validStart;
+            return Instant.now().isAfter(validStart.plusSeconds(TRANSACTION_EXPIRY_SECONDS));
+        } catch (RuntimeException ex) {
+            LogUtil.warn(getClassName(), "Unable to read valid start of transaction ID --> " + transactionId);
+            return false;
+        }
+    }
+    
+    private static ZoneId resolveZoneId(String zoneId, ZoneId defaultZone) {
+        if (zoneId == null || zoneId.isBlank()) {
+            return defaultZone;
+        }
+        
+        try {
+            return ZoneId.of(zoneId.trim());
+        } catch (DateTimeException ex) {
+            LogUtil.warn(getClassName(), "Unknown timezone of --> " + zoneId + ". Using " + defaultZone.getId() + " instead.");
+            return defaultZone;
+        }
+    }
+    
+    //DateTimeFormatter is immutable and thread-safe, so one instance is shared per pattern, locale and timezone
+    private static DateTimeFormatter getFormatter(String pattern, Locale locale, ZoneId zone) {
+        return formatters.computeIfAbsent(
+                new FormatterKey(pattern, locale, zone), 
+                key -> DateTimeFormatter.ofPattern(key.pattern(), key.locale()).withZone(key.zone())
+        );
     }
     
     private static String getClassName() {
         return TransactionUtil.class.getName();
     }
+    
+    private record FormatterKey(String pattern, Locale locale, ZoneId zone) {}
 }
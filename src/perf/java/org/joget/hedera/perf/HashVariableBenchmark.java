@@ -0,0 +1,142 @@
+package org.joget.hedera.perf;
+
+import com.hedera.hashgraph.sdk.LedgerId;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.joget.hedera.lib.hashvariable.HederaAccountHashVariable;
+import org.joget.hedera.lib.hashvariable.HederaTokenHashVariable;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Key parsing, response checks and attribute formatting of the token and account hash variables.
+ *
+ * Mirror responses are parsed once from the recorded fixtures and served from memory, so no I/O is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashVariableBenchmark {
+    
+    private static final String TOKEN_ID = "0.0.5001";
+    private static final String ACCOUNT_ID = "0.0.1001";
+    private static final String UNKNOWN_ID = "0.0.404";
+    
+    private FixtureTokenHashVariable tokenHashVariable;
+    private FixtureAccountHashVariable accountHashVariable;
+    
+    @Setup
+    public void setup() throws IOException {
+        final Map<String, JSONObject> responses = new ConcurrentHashMap<>();
+        responses.put("tokens/" + TOKEN_ID, new JSONObject(MirrorFixtures.render("tokens/" + TOKEN_ID)));
+        responses.put("tokens/" + TOKEN_ID + "/nfts/1", new JSONObject(MirrorFixtures.render("tokens/" + TOKEN_ID + "/nfts/1")));
+        responses.put("accounts/" + ACCOUNT_ID, new JSONObject(MirrorFixtures.render("accounts/" + ACCOUNT_ID)));
+        
+        tokenHashVariable = new FixtureTokenHashVariable(responses);
+        accountHashVariable = new FixtureAccountHashVariable(responses);
+    }
+    
+    @Benchmark
+    public String tokenName() {
+        return tokenHashVariable.resolve("[" + TOKEN_ID + "].name");
+    }
+    
+    @Benchmark
+    public String tokenTotalSupply() {
+        return tokenHashVariable.resolve("[" + TOKEN_ID + "].totalSupply");
+    }
+    
+    @Benchmark
+    public String tokenCreatedTimestamp() {
+        return tokenHashVariable.resolve("[" + TOKEN_ID + "].createdTimestamp");
+    }
+    
+    @Benchmark
+    public String tokenExpiryTimestamp() {
+        return tokenHashVariable.resolve("[" + TOKEN_ID + "].expiryTimestamp");
+    }
+    
+    @Benchmark
+    public String tokenNftMetadata() {
+        return tokenHashVariable.resolve("[" + TOKEN_ID + "].nft[1].metadata");
+    }
+    
+    @Benchmark
+    public String tokenNotFound() {
+        return tokenHashVariable.resolve("[" + UNKNOWN_ID + "].name");
+    }
+    
+    @Benchmark
+    public String accountHbarBalance() {
+        return accountHashVariable.resolve("[" + ACCOUNT_ID + "].hbarBalance");
+    }
+    
+    @Benchmark
+    public String accountTokenBalance() {
+        return accountHashVariable.resolve("[" + ACCOUNT_ID + "].tokenBalance[0.0.5002]");
+    }
+    
+    @Benchmark
+    public String accountCreatedTimestamp() {
+        return accountHashVariable.resolve("[" + ACCOUNT_ID + "].createdTimestamp");
+    }
+    
+    @Benchmark
+    public String accountNotFound() {
+        return accountHashVariable.resolve("[" + UNKNOWN_ID + "].accountMemo");
+    }
+    
+    private static JSONObject getFixtureData(Map<String, JSONObject> responses, String path) {
+        return responses.computeIfAbsent(path, p -> new JSONObject(MirrorFixtures.NOT_FOUND_BODY));
+    }
+    
+    public static class FixtureTokenHashVariable extends HederaTokenHashVariable {
+        
+        private final Map<String, JSONObject> responses;
+        
+        FixtureTokenHashVariable(Map<String, JSONObject> responses) {
+            this.responses = responses;
+        }
+        
+        String resolve(String variableKey) {
+            return processHashVariable(LedgerId.TESTNET, variableKey);
+        }
+        
+        @Override
+        protected JSONObject getMirrorData(LedgerId ledgerId, String attrKey, String path) {
+            return getFixtureData(responses, path);
+        }
+    }
+    
+    public static class FixtureAccountHashVariable extends HederaAccountHashVariable {
+        
+        private final Map<String, JSONObject> responses;
+        
+        FixtureAccountHashVariable(Map<String, JSONObject> responses) {
+            this.responses = responses;
+        }
+        
+        String resolve(String variableKey) {
+            return processHashVariable(LedgerId.TESTNET, variableKey);
+        }
+        
+        @Override
+        protected JSONObject getMirrorData(LedgerId ledgerId, String attrKey, String path) {
+            return getFixtureData(responses, path);
+        }
+    }
+}
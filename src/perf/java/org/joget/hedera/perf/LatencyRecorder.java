@@ -0,0 +1,74 @@
+package org.joget.hedera.perf;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects per-call latencies of one scenario, and summarizes them as percentiles and throughput.
+ */
+public class LatencyRecorder {
+    
+    private final String scenario;
+    
+    private long[] latencies = new long[1024];
+    private int count;
+    private int errorCount;
+    private long wallClockNanos;
+    
+    public LatencyRecorder(String scenario) {
+        this.scenario = scenario;
+    }
+    
+    public synchronized void record(long latencyNanos, boolean isError) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+        
+        if (isError) {
+            errorCount++;
+        }
+    }
+    
+    public void setWallClockNanos(long wallClockNanos) {
+        this.wallClockNanos = wallClockNanos;
+    }
+    
+    public synchronized String summarize() {
+        final long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        
+        final double throughput = wallClockNanos > 0 ? count / (wallClockNanos / (double) TimeUnit.SECONDS.toNanos(1)) : 0;
+        
+        return String.format(
+                "%-40s %8d %7d %10.2f %10.2f %10.2f %12.1f",
+                scenario,
+                count,
+                errorCount,
+                toMillis(percentile(sorted, 50)),
+                toMillis(percentile(sorted, 99)),
+                toMillis(count > 0 ? sorted[count - 1] : 0),
+                throughput
+        );
+    }
+    
+    public static String header() {
+        return String.format(
+                "%-40s %8s %7s %10s %10s %10s %12s",
+                "scenario", "calls", "errors", "p50 (ms)", "p99 (ms)", "max (ms)", "calls/sec"
+        );
+    }
+    
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        
+        final int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+    
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
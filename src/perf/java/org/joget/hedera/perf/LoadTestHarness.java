@@ -0,0 +1,227 @@
+package org.joget.hedera.perf;
+
+import com.hedera.hashgraph.sdk.LedgerId;
+import com.hedera.hashgraph.sdk.PrivateKey;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import org.joget.apps.app.dao.PluginDefaultPropertiesDao;
+import org.joget.apps.app.service.AppUtil;
+import org.joget.hedera.lib.HederaAccountLoadBinder;
+import org.joget.hedera.lib.HederaScheduledTransactionLoadBinder;
+import org.joget.hedera.lib.hashvariable.HederaAccountHashVariable;
+import org.joget.hedera.lib.hashvariable.HederaScheduleHashVariable;
+import org.joget.hedera.lib.hashvariable.HederaTokenHashVariable;
+import org.joget.hedera.lib.hashvariable.HederaTopicHashVariable;
+import org.joget.hedera.lib.hashvariable.HederaTransactionHashVariable;
+import org.joget.hedera.service.HederaClientRegistry;
+import org.joget.hedera.service.MirrorHttpTransport;
+import org.joget.hedera.service.MirrorResponseCache;
+import org.joget.hedera.service.MirrorRestService;
+import org.joget.plugin.base.ExtDefaultPlugin;
+import org.json.JSONObject;
+import org.springframework.context.support.StaticApplicationContext;
+
+/**
+ * Offline load test of the plugin entry points that query the mirror node, run against MirrorNodeStub.
+ *
+ * Each scenario is run by perf.threads threads for perf.iterations calls, after a short warm-up,
+ * and reports p50/p99 latency and throughput. Stub behaviour is set through perf.latencyMillis, perf.jitterMillis and perf.errorRate.
+ * Run with: mvn -Pperf test-compile exec:java
+ */
+public class LoadTestHarness {
+    
+    private static final int THREADS = Integer.getInteger("perf.threads", 8);
+    private static final int ITERATIONS = Integer.getInteger("perf.iterations", 2000);
+    private static final long LATENCY_MILLIS = Long.getLong("perf.latencyMillis", 20);
+    private static final long JITTER_MILLIS = Long.getLong("perf.jitterMillis", 10);
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("perf.errorRate", "0"));
+    
+    private static final int WARMUP_OFFSET = 1_000_000;
+    
+    private static String mirrorEndpointUrl;
+    
+    public static void main(String[] args) throws Exception {
+        try (MirrorNodeStub stub = new MirrorNodeStub().setLatency(LATENCY_MILLIS, JITTER_MILLIS).setErrorRate(ERROR_RATE).start()) {
+            mirrorEndpointUrl = stub.getEndpointUrl();
+            installOfflineAppContext();
+            
+            System.out.println("Mirror node stub at " + stub.getEndpointUrl() + " (latency " + LATENCY_MILLIS + "+" + JITTER_MILLIS + " ms, error rate " + ERROR_RATE + ")");
+            System.out.println(THREADS + " threads, " + ITERATIONS + " calls per scenario");
+            System.out.println();
+            System.out.println(LatencyRecorder.header() + "   mirror requests");
+            
+            for (Scenario scenario : createScenarios()) {
+                MirrorResponseCache.clear();
+                stub.resetCounters();
+                
+                LatencyRecorder recorder = run(scenario);
+                
+                System.out.println(recorder.summarize() + "   " + stub.getRequestCount());
+            }
+        } finally {
+            HederaClientRegistry.shutdown();
+            MirrorRestService.shutdown();
+            MirrorHttpTransport.shutdown();
+        }
+    }
+    
+    private static List<Scenario> createScenarios() {
+        final MirrorRestService restService = new MirrorRestService(getBackendProperties(), LedgerId.TESTNET);
+        
+        List<Scenario> scenarios = new ArrayList<>();
+        
+        scenarios.add(new Scenario("MirrorRestService.get (uncached)", i -> restService.get("accounts/0.0." + (10_000 + i))));
+        scenarios.add(new Scenario("MirrorRestService.get (cached)", i -> restService.get("accounts/0.0.1001")));
+        scenarios.add(new Scenario("MirrorRestService.getAsync (10x fan-out)", i -> {
+            List<CompletableFuture<JSONObject>> requests = new ArrayList<>();
+            for (int k = 0; k < 10; k++) {
+                requests.add(restService.getAsync("tokens/0.0." + (100_000 + i * 10 + k)));
+            }
+            return CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).thenApply(v -> requests.get(0).join()).join();
+        }));
+        
+        final HederaAccountHashVariable accountHashVariable = withBackend(new HederaAccountHashVariable());
+        scenarios.add(new Scenario("HederaAccountHashVariable", i -> accountHashVariable.processHashVariable("[0.0." + (20_000 + i) + "].hbarBalance")));
+        
+        final HederaTokenHashVariable tokenHashVariable = withBackend(new HederaTokenHashVariable());
+        scenarios.add(new Scenario("HederaTokenHashVariable", i -> tokenHashVariable.processHashVariable("[0.0." + (30_000 + i) + "].totalSupply")));
+        
+        final HederaTransactionHashVariable transactionHashVariable = withBackend(new HederaTransactionHashVariable());
+        scenarios.add(new Scenario("HederaTransactionHashVariable", i -> transactionHashVariable.processHashVariable("[0.0.1001@" + (1_700_000_000L + i) + ".000000001].result")));
+        
+        final HederaScheduleHashVariable scheduleHashVariable = withBackend(new HederaScheduleHashVariable());
+        scenarios.add(new Scenario("HederaScheduleHashVariable", i -> scheduleHashVariable.processHashVariable("[0.0." + (40_000 + i) + "].creatorAccountId")));
+        
+        final HederaTopicHashVariable topicHashVariable = withBackend(new HederaTopicHashVariable());
+        scenarios.add(new Scenario("HederaTopicHashVariable", i -> topicHashVariable.processHashVariable("[0.0." + (50_000 + i) + "].message[1].messageContent")));
+        scenarios.add(new Scenario("HederaTopicHashVariable (allMessages)", i -> topicHashVariable.processHashVariable("[0.0." + (55_000 + i) + "].allMessages[1-100]")));
+        
+        scenarios.add(new Scenario("HederaAccountLoadBinder.load", i -> {
+            HederaAccountLoadBinder binder = new HederaAccountLoadBinder();
+            Map properties = getBackendProperties();
+            properties.put("accountId", "0.0." + (60_000 + i));
+            properties.put("hbarBalanceField", "hbarBalance");
+            properties.put("tokenBalances", new Object[0]);
+            properties.put("accountMemoField", "memo");
+            properties.put("accountIsDeletedField", "");
+            properties.put("receiverSignatureRequiredField", "");
+            properties.put("evmAddressField", "");
+            properties.put("maxAutoTokenAssociationsField", "");
+            binder.setProperties(properties);
+            
+            return emptyToNull(binder.load(null, null, null));
+        }));
+        
+        scenarios.add(new Scenario("HederaScheduledTransactionLoadBinder.load", i -> {
+            HederaScheduledTransactionLoadBinder binder = new HederaScheduledTransactionLoadBinder();
+            Map properties = getBackendProperties();
+            properties.put("scheduleId", "0.0." + (70_000 + i));
+            binder.setProperties(properties);
+            
+            return emptyToNull(binder.load(null, null, null));
+        }));
+        
+        return scenarios;
+    }
+    
+    private static LatencyRecorder run(Scenario scenario) throws InterruptedException {
+        //Warm up class loading, JIT and connection pool with IDs outside the measured range
+        execute(scenario, new LatencyRecorder(scenario.name()), WARMUP_OFFSET, Math.max(1, ITERATIONS / 10));
+        
+        LatencyRecorder recorder = new LatencyRecorder(scenario.name());
+        final long start = System.nanoTime();
+        execute(scenario, recorder, 0, ITERATIONS);
+        recorder.setWallClockNanos(System.nanoTime() - start);
+        
+        return recorder;
+    }
+    
+    private static void execute(Scenario scenario, LatencyRecorder recorder, int offset, int iterations) throws InterruptedException {
+        final AtomicInteger nextIteration = new AtomicInteger();
+        final ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+        
+        for (int t = 0; t < THREADS; t++) {
+            workers.execute(() -> {
+                int iteration;
+                while ((iteration = nextIteration.getAndIncrement()) < iterations) {
+                    final long start = System.nanoTime();
+                    boolean isError;
+                    try {
+                        isError = isError(scenario.call().apply(offset + iteration));
+                    } catch (Exception ex) {
+                        isError = true;
+                    }
+                    recorder.record(System.nanoTime() - start, isError);
+                }
+            });
+        }
+        
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+    }
+    
+    //Mirror error responses are passed through as JSON, with a _status element instead of data
+    private static boolean isError(Object result) {
+        return result == null || (result instanceof JSONObject jsonObject && jsonObject.has("_status"));
+    }
+    
+    private static <T extends ExtDefaultPlugin> T withBackend(T plugin) {
+        plugin.setProperties(getBackendProperties());
+        return plugin;
+    }
+    
+    private static Map getBackendProperties() {
+        Map properties = new HashMap();
+        properties.put("backendService", MirrorRestService.CUSTOM_REST_SERVICE);
+        properties.put(MirrorRestService.CUSTOM_ENDPOINT_PROPERTY, mirrorEndpointUrl);
+        properties.put("networkType", "testnet");
+        properties.put("operatorId", "0.0.1001");
+        properties.put("operatorKey", OperatorKeyHolder.OPERATOR_KEY);
+        return properties;
+    }
+    
+    private static Object emptyToNull(Collection result) {
+        return (result == null || result.isEmpty()) ? null : result;
+    }
+    
+    /*
+        Plugins look up backend default configs through Spring beans.
+        A bare application context with a no-op PluginDefaultPropertiesDao stands in for the Joget platform.
+    */
+    private static void installOfflineAppContext() {
+        final Object pluginDefaultPropertiesDao = Proxy.newProxyInstance(
+                LoadTestHarness.class.getClassLoader(),
+                new Class[]{ PluginDefaultPropertiesDao.class },
+                (proxy, method, methodArgs) -> switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == methodArgs[0];
+                    case "toString" -> "OfflinePluginDefaultPropertiesDao";
+                    default -> null;
+                }
+        );
+        
+        StaticApplicationContext context = new StaticApplicationContext();
+        context.getBeanFactory().registerSingleton("pluginDefaultPropertiesDao", pluginDefaultPropertiesDao);
+        context.refresh();
+        
+        new AppUtil().setApplicationContext(context);
+    }
+    
+    private record Scenario(String name, IntFunction<Object> call) {}
+    
+    //Operator credentials are only used to build clients for form binders, no transactions are ever sent
+    private static final class OperatorKeyHolder {
+        
+        private static final String OPERATOR_KEY = PrivateKey.generateED25519().toString();
+    }
+}
@@ -0,0 +1,83 @@
+package org.joget.hedera.perf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recorded mirror node responses, read from /fixtures/mirror on the classpath.
+ *
+ * Entity IDs in the request path are substituted into the fixtures (${id}, ${serial}, ${sequence}), so any ID resolves to a consistent response.
+ */
+final class MirrorFixtures {
+    
+    static final String NOT_FOUND_BODY = "{\"_status\":{\"messages\":[{\"message\":\"Not found\"}]}}";
+    
+    private static final List<Route> ROUTES = List.of(
+            new Route(Pattern.compile("accounts/([^/?]+)/tokens"), "account-tokens"),
+            new Route(Pattern.compile("accounts/([^/?]+)"), "account"),
+            new Route(Pattern.compile("balances"), "balances"),
+            new Route(Pattern.compile("tokens/([^/?]+)/nfts/(\\d+)"), "nft"),
+            new Route(Pattern.compile("tokens/([^/?]+)"), "token"),
+            new Route(Pattern.compile("transactions/([^/?]+)"), "transaction"),
+            new Route(Pattern.compile("schedules/([^/?]+)"), "schedule"),
+            new Route(Pattern.compile("topics/([^/?]+)/messages/(\\d+)"), "topic-message"),
+            new Route(Pattern.compile("topics/([^/?]+)/messages"), "topic-messages")
+    );
+    
+    private static final Map<String, String> fixtures = new ConcurrentHashMap<>();
+    
+    private MirrorFixtures() {}
+    
+    /**
+     * @param path Mirror node path relative to the API root, without query string, e.g. tokens/0.0.5001
+     * @return Recorded response body for the path, or null if no fixture matches
+     */
+    static String render(String path) throws IOException {
+        for (Route route : ROUTES) {
+            Matcher matcher = route.pattern().matcher(path);
+            if (matcher.matches()) {
+                return render(route, matcher);
+            }
+        }
+        
+        return null;
+    }
+    
+    private static String render(Route route, Matcher matcher) throws IOException {
+        String body = getFixture(route.fixture());
+        
+        if (matcher.groupCount() >= 1) {
+            body = body.replace("${id}", matcher.group(1));
+        }
+        if (matcher.groupCount() >= 2) {
+            body = body.replace("${serial}", matcher.group(2)).replace("${sequence}", matcher.group(2));
+        }
+        
+        return body;
+    }
+    
+    private static String getFixture(String name) throws IOException {
+        String fixture = fixtures.get(name);
+        if (fixture != null) {
+            return fixture;
+        }
+        
+        try (InputStream in = MirrorFixtures.class.getResourceAsStream("/fixtures/mirror/" + name + ".json")) {
+            if (in == null) {
+                throw new IOException("Missing mirror fixture " + name);
+            }
+            fixture = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        
+        fixtures.put(name, fixture);
+        return fixture;
+    }
+    
+    private record Route(Pattern pattern, String fixture) {}
+}
@@ -0,0 +1,142 @@
+package org.joget.hedera.perf;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded stand-in for a mirror node REST API, serving the recorded responses of MirrorFixtures.
+ *
+ * Each response can be delayed by a fixed latency plus random jitter, and a share of requests can be failed on purpose.
+ */
+public class MirrorNodeStub implements AutoCloseable {
+    
+    private static final String API_ROOT = "/api/v1/";
+    
+    private static final String UNAVAILABLE_BODY = "{\"_status\":{\"messages\":[{\"message\":\"Service Unavailable\"}]}}";
+    
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    
+    private final HttpServer server;
+    private final ExecutorService executor;
+    
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+    private volatile double errorRate;
+    
+    public MirrorNodeStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mirror-node-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        server.setExecutor(executor);
+        server.createContext(API_ROOT, this::handle);
+    }
+    
+    public MirrorNodeStub start() {
+        server.start();
+        return this;
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    /**
+     * @return Base URL of the stub's REST API, as used by MirrorRestService, e.g. http://127.0.0.1:12345/api/v1/
+     */
+    public String getEndpointUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + API_ROOT;
+    }
+    
+    /**
+     * Delays every response by latencyMillis, plus a random amount of up to jitterMillis.
+     */
+    public MirrorNodeStub setLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        return this;
+    }
+    
+    /**
+     * Fails the given share of requests (0.0 to 1.0) with HTTP 503.
+     */
+    public MirrorNodeStub setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+    
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+    
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+    
+    public void resetCounters() {
+        requestCount.set(0);
+        failedCount.set(0);
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        
+        try (exchange) {
+            delay();
+            
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failedCount.incrementAndGet();
+                respond(exchange, 503, UNAVAILABLE_BODY);
+                return;
+            }
+            
+            final String path = exchange.getRequestURI().getPath().substring(API_ROOT.length());
+            
+            final String body = MirrorFixtures.render(path);
+            if (body != null) {
+                respond(exchange, 200, body);
+            } else {
+                respond(exchange, 404, MirrorFixtures.NOT_FOUND_BODY);
+            }
+        }
+    }
+    
+    private void delay() {
+        final long delayMillis = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (delayMillis <= 0) {
+            return;
+        }
+        
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
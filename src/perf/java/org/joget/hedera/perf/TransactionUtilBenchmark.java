@@ -0,0 +1,71 @@
+package org.joget.hedera.perf;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.joget.hedera.service.TransactionUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Amount, transaction ID and timestamp conversions of TransactionUtil.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionUtilBenchmark {
+    
+    //Non-final, so the JIT cannot fold the inputs into constants
+    private String tokenAmount = "1234.56";
+    private long actualTokenAmount = 123456L;
+    private int decimals = 2;
+    private String transactionId = "0.0.1001@1700000000.123456789";
+    private String mirrorTimestamp = "1700000000.123456789";
+    private Instant instant = Instant.ofEpochSecond(1700000000L, 123456789L);
+    private String zoneId = "Asia/Kuala_Lumpur";
+    
+    @Benchmark
+    public int calcActualTokenAmountBasedOnDecimals() {
+        return TransactionUtil.calcActualTokenAmountBasedOnDecimals(tokenAmount, decimals);
+    }
+    
+    @Benchmark
+    public BigDecimal deriveTokenAmountBasedOnDecimals() {
+        return TransactionUtil.deriveTokenAmountBasedOnDecimals(actualTokenAmount, decimals);
+    }
+    
+    @Benchmark
+    public String formatTransactionIdForMirror() {
+        return TransactionUtil.formatTransactionIdForMirror(transactionId);
+    }
+    
+    @Benchmark
+    public Instant parseMirrorTimestamp() {
+        return TransactionUtil.parseMirrorTimestamp(mirrorTimestamp);
+    }
+    
+    @Benchmark
+    public String convertInstantToZonedDateTimeString() {
+        return TransactionUtil.convertInstantToZonedDateTimeString(instant);
+    }
+    
+    @Benchmark
+    public String convertInstantToZonedDateTimeStringWithZone() {
+        return TransactionUtil.convertInstantToZonedDateTimeString(instant, zoneId);
+    }
+    
+    @Benchmark
+    public String formatMirrorTimestamp() {
+        return TransactionUtil.formatMirrorTimestamp(mirrorTimestamp, zoneId);
+    }
+}
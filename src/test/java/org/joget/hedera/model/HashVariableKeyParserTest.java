@@ -0,0 +1,117 @@
+package org.joget.hedera.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class HashVariableKeyParserTest {
+    
+    private final AtomicInteger validations = new AtomicInteger();
+    
+    private HashVariableKeyParser<Attribute> newParser(boolean ignoreCase) {
+        return new HashVariableKeyParser<>(Attribute.class, "account", this::validateEntityId, ignoreCase);
+    }
+    
+    private String validateEntityId(String entityId) {
+        validations.incrementAndGet();
+        if (!entityId.matches("\\d+\\.\\d+\\.\\d+")) {
+            throw new IllegalArgumentException("Invalid entity ID " + entityId);
+        }
+        return entityId;
+    }
+    
+    @Test
+    public void parsesKeyWithOrWithoutLeadingDot() {
+        final HashVariableKeyParser<Attribute> parser = newParser(false);
+        
+        for (String variableKey : new String[] {"[0.0.123].balance", "[0.0.123]balance"}) {
+            final HashVariableKey<Attribute> key = parser.parse(variableKey);
+            
+            assertNotNull(key, variableKey);
+            assertEquals("0.0.123", key.entityId());
+            assertEquals(Attribute.BALANCE, key.attribute());
+            assertNull(key.subId());
+        }
+    }
+    
+    @Test
+    public void parsesTrailingSubId() {
+        final HashVariableKey<Attribute> key = newParser(false).parse("[0.0.123].tokenBalance[0.0.456]");
+        
+        assertNotNull(key);
+        assertEquals("0.0.123", key.entityId());
+        assertEquals("0.0.456", key.subId());
+        assertEquals(Attribute.TOKEN_BALANCE, key.attribute());
+    }
+    
+    @Test
+    public void parsesSubIdWithinAttribute() {
+        final HashVariableKey<Attribute> key = newParser(false).parse("[0.0.123].nft[7].metadata");
+        
+        assertNotNull(key);
+        assertEquals("7", key.subId());
+        assertEquals(Attribute.NFT_METADATA, key.attribute());
+    }
+    
+    @Test
+    public void matchesAttributeCaseOnlyIfIgnoringCase() {
+        assertEquals(Attribute.TOKEN_BALANCE, newParser(true).parse("[0.0.123].TOKENBALANCE[0.0.456]").attribute());
+        assertNull(newParser(false).parse("[0.0.123].TOKENBALANCE[0.0.456]"));
+    }
+    
+    @Test
+    public void rejectsMalformedKeys() {
+        final HashVariableKeyParser<Attribute> parser = newParser(false);
+        
+        assertNull(parser.parse("0.0.123.balance"));
+        assertNull(parser.parse("[0.0.123.balance"));
+        assertNull(parser.parse("[0.0.123].tokenBalance]0.0.456["));
+        assertNull(parser.parse("[0.0.123].tokenBalance[0.0.456"));
+        assertNull(parser.parse("[abc].balance"));
+        assertNull(parser.parse("[0.0.123].unknown"));
+    }
+    
+    @Test
+    public void cachesValidKeys() {
+        final HashVariableKeyParser<Attribute> parser = newParser(false);
+        
+        final HashVariableKey<Attribute> key = parser.parse("[0.0.123].balance");
+        
+        assertSame(key, parser.parse("[0.0.123].balance"));
+        assertEquals(1, validations.get());
+    }
+    
+    @Test
+    public void doesNotCacheInvalidOrUnknownKeys() {
+        final HashVariableKeyParser<Attribute> parser = newParser(false);
+        
+        parser.parse("[abc].balance");
+        parser.parse("[abc].balance");
+        assertEquals(2, validations.get());
+        
+        parser.parse("[0.0.123].unknown");
+        parser.parse("[0.0.123].unknown");
+        assertEquals(4, validations.get());
+    }
+    
+    private enum Attribute implements HashVariableAttribute {
+        BALANCE("balance"),
+        TOKEN_BALANCE("tokenBalance"),
+        NFT_METADATA("nft.metadata");
+        
+        private final String key;
+        
+        Attribute(String key) {
+            this.key = key;
+        }
+        
+        @Override
+        public String getKey() {
+            return key;
+        }
+    }
+}
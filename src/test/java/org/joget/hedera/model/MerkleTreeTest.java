@@ -0,0 +1,107 @@
+package org.joget.hedera.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import org.bouncycastle.util.encoders.Hex;
+import org.joget.hedera.model.MerkleTree.ProofStep;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MerkleTreeTest {
+    
+    @Test
+    public void singleLeafIsRoot() {
+        final String leaf = sha256("record-0");
+        final MerkleTree tree = MerkleTree.build(List.of(leaf));
+        
+        assertEquals(leaf, tree.getRoot());
+        assertTrue(tree.getProof(0).isEmpty());
+        assertTrue(MerkleTree.verify(leaf, tree.getProof(0), tree.getRoot()));
+    }
+    
+    @Test
+    public void verifiesEveryLeafForOddAndEvenLeafCounts() {
+        for (int leafCount = 2; leafCount <= 9; leafCount++) {
+            final List<String> leaves = newLeaves(leafCount);
+            final MerkleTree tree = MerkleTree.build(leaves);
+            
+            assertEquals(leafCount, tree.getLeafCount());
+            for (int i = 0; i < leafCount; i++) {
+                assertTrue(MerkleTree.verify(leaves.get(i), tree.getProof(i), tree.getRoot()), "Leaf " + i + " of " + leafCount);
+            }
+        }
+    }
+    
+    @Test
+    public void carriesUnpairedLeafUpWithoutProofStep() {
+        final List<String> leaves = newLeaves(3);
+        final MerkleTree tree = MerkleTree.build(leaves);
+        
+        //The third leaf is only paired at the root level, with the parent of the first two
+        final List<ProofStep> proof = tree.getProof(2);
+        assertEquals(1, proof.size());
+        assertTrue(proof.get(0).left());
+        
+        assertEquals(2, tree.getProof(0).size());
+    }
+    
+    @Test
+    public void rejectsLeafNotInTree() {
+        final List<String> leaves = newLeaves(5);
+        final MerkleTree tree = MerkleTree.build(leaves);
+        
+        assertFalse(MerkleTree.verify(sha256("other"), tree.getProof(4), tree.getRoot()));
+        assertFalse(MerkleTree.verify(leaves.get(4), tree.getProof(3), tree.getRoot()));
+    }
+    
+    @Test
+    public void rootDependsOnLeafOrder() {
+        final List<String> leaves = newLeaves(4);
+        final List<String> swapped = new ArrayList<>(leaves);
+        swapped.set(0, leaves.get(1));
+        swapped.set(1, leaves.get(0));
+        
+        assertNotEquals(MerkleTree.build(leaves).getRoot(), MerkleTree.build(swapped).getRoot());
+    }
+    
+    @Test
+    public void proofSurvivesJsonRoundTrip() {
+        final List<String> leaves = newLeaves(7);
+        final MerkleTree tree = MerkleTree.build(leaves);
+        
+        final List<ProofStep> proof = MerkleTree.fromJson(MerkleTree.toJson(tree.getProof(5)));
+        
+        assertEquals(tree.getProof(5), proof);
+        assertTrue(MerkleTree.verify(leaves.get(5), proof, tree.getRoot()));
+    }
+    
+    @Test
+    public void rejectsEmptyTreeAndUnknownLeaf() {
+        assertThrows(IllegalArgumentException.class, () -> MerkleTree.build(List.of()));
+        assertThrows(IndexOutOfBoundsException.class, () -> MerkleTree.build(newLeaves(3)).getProof(3));
+    }
+    
+    private static List<String> newLeaves(int count) {
+        List<String> leaves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            leaves.add(sha256("record-" + i));
+        }
+        return leaves;
+    }
+    
+    private static String sha256(String text) {
+        try {
+            return Hex.toHexString(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.joget.hedera.service;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TransactionUtilTest {
+    
+    @Test
+    public void parsesMirrorTimestampWithNanoseconds() {
+        assertEquals(Instant.ofEpochSecond(1700000000L, 123456789L), TransactionUtil.parseMirrorTimestamp("1700000000.123456789"));
+        assertEquals(Instant.ofEpochSecond(1700000000L, 1L), TransactionUtil.parseMirrorTimestamp("1700000000.000000001"));
+    }
+    
+    @Test
+    public void padsShortFractionToNanoseconds() {
+        assertEquals(Instant.ofEpochSecond(1L, 500000000L), TransactionUtil.parseMirrorTimestamp("1.5"));
+    }
+    
+    @Test
+    public void parsesMirrorTimestampWithoutFraction() {
+        assertEquals(Instant.ofEpochSecond(1700000000L), TransactionUtil.parseMirrorTimestamp("1700000000"));
+    }
+    
+    @Test
+    public void parsesMissingMirrorTimestampToNull() {
+        assertNull(TransactionUtil.parseMirrorTimestamp(null));
+        assertNull(TransactionUtil.parseMirrorTimestamp(""));
+        assertNull(TransactionUtil.formatMirrorTimestamp(null, "UTC"));
+    }
+    
+    @Test
+    public void roundTripsMirrorTimestamp() {
+        final String timestamp = "1700000000.000100000";
+        
+        assertEquals(timestamp, TransactionUtil.toMirrorTimestamp(TransactionUtil.parseMirrorTimestamp(timestamp)));
+    }
+    
+    @Test
+    public void formatsMirrorTimestampInGivenTimezone() {
+        assertEquals("14-11-2023 10:13:20 PM UTC", TransactionUtil.formatMirrorTimestamp("1700000000.999999999", "UTC"));
+        assertEquals("15-11-2023 07:13:20 AM JST", TransactionUtil.formatMirrorTimestamp("1700000000", "Asia/Tokyo"));
+    }
+    
+    @Test
+    public void formatsMirrorTimestampInServerTimezoneIfTimezoneUnknown() {
+        final Instant timestamp = Instant.ofEpochSecond(1700000000L);
+        
+        assertEquals(TransactionUtil.formatDisplayTimestamp(timestamp, null), TransactionUtil.formatMirrorTimestamp("1700000000", "Not/A_Zone"));
+        assertEquals(TransactionUtil.formatDisplayTimestamp(timestamp, null), TransactionUtil.formatMirrorTimestamp("1700000000", " "));
+    }
+}